@@ -0,0 +1,113 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.BookService;
+import com.example.musiclibrary.services.RentalService;
+import com.netflix.graphql.dgs.DgsQueryExecutor;
+import graphql.ExecutionResult;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запросы через поднятый контекст приложения (профиль bench, H2 в памяти):
+ * GraphQL через DgsQueryExecutor и сервисные методы, которые читают аренды.
+ * rows - число аренд; пользователей в 20 раз меньше, книг в 4 раза. Число запросов на операцию
+ * даёт StatementCountProfiler: при N+1 оно растёт вместе с rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApplicationBenchmark {
+    private static final String ALL_BOOKS = "{ getAllBooks { title author } }";
+    private static final String RENTALS_PAGE = "{ getRentalsPage(first: 100) { items { id due_date user { name } book { title } } nextCursor } }";
+
+    @Param({"200", "2000", "20000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private DgsQueryExecutor queryExecutor;
+    private BookService bookService;
+    private RentalService rentalService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MusiclibraryApplication.class)
+                .profiles("bench")
+                .run();
+        queryExecutor = context.getBean(DgsQueryExecutor.class);
+        bookService = context.getBean(BookService.class);
+        rentalService = context.getBean(RentalService.class);
+        seed(context.getBean(UserRepository.class), context.getBean(BookRepository.class), context.getBean(RentalRepository.class));
+        StatementCountProfiler.register(context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics());
+    }
+
+    private void seed(UserRepository users, BookRepository books, RentalRepository rentals) {
+        List<User> savedUsers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, rows / 20); i++) {
+            savedUsers.add(users.save(new User("user" + i, "user" + i + "@library.test", "password" + i,
+                    User.Role.User, LocalDate.of(2020, 1, 1), "+7900000" + i, "Москва")));
+        }
+        List<Book> savedBooks = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, rows / 4); i++) {
+            Book b = new Book("Книга " + i, "Автор " + (i % 50), "Издательство", 2000, "Жанр", 10, 10, "Описание книги " + i);
+            b.setUser(savedUsers.get(i % savedUsers.size()));
+            savedBooks.add(books.save(b));
+        }
+        List<Rental> newRentals = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Rental r = new Rental(LocalDate.now(), LocalDate.now().plusDays(14), null, 0, false);
+            r.setUser(savedUsers.get(i % savedUsers.size()));
+            r.setBook(savedBooks.get(i % savedBooks.size()));
+            newRentals.add(r);
+        }
+        rentals.saveAll(newRentals);
+    }
+
+    @TearDown
+    public void tearDown() {
+        StatementCountProfiler.unregister();
+        context.close();
+    }
+
+    @Benchmark
+    public ExecutionResult graphqlAllBooks() {
+        return queryExecutor.execute(ALL_BOOKS);
+    }
+
+    @Benchmark
+    public ExecutionResult graphqlRentalsPage() {
+        return queryExecutor.execute(RENTALS_PAGE);
+    }
+
+    @Benchmark
+    public Object serviceAllBooks() throws InterruptedException {
+        return bookService.getAllBooks();
+    }
+
+    @Benchmark
+    public Object serviceAllRentals() throws InterruptedException {
+        return rentalService.getAllRentals();
+    }
+
+    @Benchmark
+    public Object serviceAllRentalsWithDetails() throws InterruptedException {
+        return rentalService.getAllRentalsWithDetails();
+    }
+}
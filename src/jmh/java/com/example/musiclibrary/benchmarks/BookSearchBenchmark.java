@@ -0,0 +1,81 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.services.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по каталогу из миллиона книг (профиль bench-pg, данные {@link PostgresSampleData}).
+ * Режим SampleTime: в отчёте JMH есть перцентили, цель — p0.99 меньше 20 мс.
+ * Каждый вызов — полная страница BookService.searchBooks: id по релевантности, догрузка книг и фасеты.
+ * Запуск: mvn -P benchmark test-compile exec:exec -Djmh.args=BookSearchBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookSearchBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MusiclibraryApplication.class)
+                .profiles("bench-pg")
+                .run();
+        bookService = context.getBean(BookService.class);
+        PostgresSampleData.seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String pick(String[] values) {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    // Автор целиком: около двух тысяч совпадений
+    @Benchmark
+    public Object author() throws InterruptedException {
+        return bookService.searchBooks(pick(PostgresSampleData.NAMES) + " " + pick(PostgresSampleData.SURNAMES), null, 0, PAGE_SIZE);
+    }
+
+    // Набор с клавиатуры: последнее слово недописано
+    @Benchmark
+    public Object prefix() throws InterruptedException {
+        String surname = pick(PostgresSampleData.SURNAMES);
+        return bookService.searchBooks(pick(PostgresSampleData.WORDS) + " " + surname.substring(0, 3), null, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object titleWithFilters() throws InterruptedException {
+        BookSearchFilter filter = new BookSearchFilter(pick(PostgresSampleData.GENRES), null, null, 1980, 2010);
+        return bookService.searchBooks("Книга " + ThreadLocalRandom.current().nextInt(1000), filter, 0, PAGE_SIZE);
+    }
+
+    // Опечатка: полнотекстовый поиск пуст, ответ даёт триграммный индекс
+    @Benchmark
+    public Object typo() throws InterruptedException {
+        String surname = pick(PostgresSampleData.SURNAMES);
+        String typo = surname.substring(0, 2) + surname.substring(3);
+        return bookService.searchBooks(typo, null, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object facetsOnly() throws InterruptedException {
+        return bookService.searchBooks(null, new BookSearchFilter(pick(PostgresSampleData.GENRES), null, null, null, null), 0, PAGE_SIZE);
+    }
+}
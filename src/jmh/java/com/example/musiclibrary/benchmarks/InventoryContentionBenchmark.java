@@ -0,0 +1,64 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.InventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 200 потоков выдают и возвращают копии одной книги. Параметр hot сравнивает
+ * условный UPDATE по строке (false) и выдачу из пачки в памяти через library.inventory.hot-titles (true).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(200)
+@State(Scope.Benchmark)
+public class InventoryContentionBenchmark {
+    private static final String TITLE = "Популярная книга";
+
+    @Param({"false", "true"})
+    public boolean hot;
+
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private Book book;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MusiclibraryApplication.class)
+                .profiles("bench")
+                .properties("library.inventory.hot-titles=" + (hot ? TITLE : ""))
+                .run();
+        inventoryService = context.getBean(InventoryService.class);
+        User owner = context.getBean(UserRepository.class).save(new User("owner", "owner@library.test", "password",
+                User.Role.Librarian, LocalDate.of(2020, 1, 1), "+79000000000", "Москва"));
+        Book b = new Book(TITLE, "Автор", "Издательство", 2000, "Жанр", 100_000, 100_000, "Описание");
+        b.setUser(owner);
+        book = context.getBean(BookRepository.class).save(b);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean acquireAndRelease() {
+        boolean taken = inventoryService.acquireCopy(book);
+        if (taken) {
+            inventoryService.releaseCopy(book);
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.mappers.BookMapper;
+import com.example.musiclibrary.mappers.RentalMapper;
+import com.example.musiclibrary.mappers.ReservationMapper;
+import com.example.musiclibrary.mappers.UserMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.hateoas.Link;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-сериализация списков BookShow и RentalShow со ссылками HATEOAS, как их отдают контроллеры.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    private ObjectMapper objectMapper;
+    private List<BookShow> books;
+    private List<RentalShow> rentals;
+
+    @Setup
+    public void setUp() {
+        SampleData data = new SampleData(100, 500, 1000);
+        objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        try (AnnotationConfigApplicationContext mappers = new AnnotationConfigApplicationContext(
+                UserMapper.class, BookMapper.class, RentalMapper.class, ReservationMapper.class)) {
+            BookMapper bookMapper = mappers.getBean(BookMapper.class);
+            RentalMapper rentalMapper = mappers.getBean(RentalMapper.class);
+            books = data.books.stream().map(bookMapper::toShow).toList();
+            rentals = data.rentals.stream().map(rentalMapper::toShow).toList();
+        }
+        for (BookShow b : books) {
+            b.add(Link.of("http://localhost:8081/books/" + b.getTitle()).withSelfRel());
+            b.add(Link.of("http://localhost:8081/books").withRel("all-books"));
+        }
+        for (RentalShow r : rentals) {
+            r.add(Link.of("http://localhost:8081/rentals/" + r.getId()).withSelfRel());
+            r.add(Link.of("http://localhost:8081/rentals").withRel("all-rentals"));
+        }
+    }
+
+    @Benchmark
+    public byte[] books() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] rentals() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rentals);
+    }
+}
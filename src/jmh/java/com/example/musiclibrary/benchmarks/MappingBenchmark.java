@@ -0,0 +1,143 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.dtos.BookDto;
+import com.example.musiclibrary.dtos.RentalDto;
+import com.example.musiclibrary.dtos.UserDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.mappers.BookMapper;
+import com.example.musiclibrary.mappers.RentalMapper;
+import com.example.musiclibrary.mappers.ReservationMapper;
+import com.example.musiclibrary.mappers.UserMapper;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.Reservation;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рефлексивный ModelMapper (бин из MusiclibraryApplication) против мапперов из пакета mappers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+    private SampleData data;
+    private ModelMapper modelMapper;
+    private AnnotationConfigApplicationContext mappers;
+    private UserMapper userMapper;
+    private BookMapper bookMapper;
+    private RentalMapper rentalMapper;
+    private ReservationMapper reservationMapper;
+
+    @Setup
+    public void setUp() {
+        data = new SampleData(100, 500, 1000);
+        modelMapper = new MusiclibraryApplication().modelMapper();
+        mappers = new AnnotationConfigApplicationContext(UserMapper.class, BookMapper.class, RentalMapper.class, ReservationMapper.class);
+        userMapper = mappers.getBean(UserMapper.class);
+        bookMapper = mappers.getBean(BookMapper.class);
+        rentalMapper = mappers.getBean(RentalMapper.class);
+        reservationMapper = mappers.getBean(ReservationMapper.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mappers.close();
+    }
+
+    @Benchmark
+    public void bookShowModelMapper(Blackhole bh) {
+        for (Book b : data.books) {
+            bh.consume(modelMapper.map(b, BookShow.class));
+        }
+    }
+
+    @Benchmark
+    public void bookShowMapper(Blackhole bh) {
+        for (Book b : data.books) {
+            bh.consume(bookMapper.toShow(b));
+        }
+    }
+
+    @Benchmark
+    public void bookDtoModelMapper(Blackhole bh) {
+        for (Book b : data.books) {
+            bh.consume(modelMapper.map(b, BookDto.class));
+        }
+    }
+
+    @Benchmark
+    public void bookDtoMapper(Blackhole bh) {
+        for (Book b : data.books) {
+            bh.consume(bookMapper.toDto(b));
+        }
+    }
+
+    @Benchmark
+    public void userDtoRoundTripModelMapper(Blackhole bh) {
+        for (int i = 0; i < data.users.size(); i++) {
+            UserDto dto = modelMapper.map(data.users.get(i), UserDto.class);
+            bh.consume(modelMapper.map(dto, com.example.musiclibrary.models.User.class));
+        }
+    }
+
+    @Benchmark
+    public void userDtoRoundTripMapper(Blackhole bh) {
+        for (int i = 0; i < data.users.size(); i++) {
+            UserDto dto = userMapper.toDto(data.users.get(i));
+            bh.consume(userMapper.toEntity(dto));
+        }
+    }
+
+    @Benchmark
+    public void rentalShowModelMapper(Blackhole bh) {
+        for (Rental r : data.rentals) {
+            bh.consume(modelMapper.map(r, RentalShow.class));
+        }
+    }
+
+    @Benchmark
+    public void rentalShowMapper(Blackhole bh) {
+        for (Rental r : data.rentals) {
+            bh.consume(rentalMapper.toShow(r));
+        }
+    }
+
+    @Benchmark
+    public void rentalDtoModelMapper(Blackhole bh) {
+        for (Rental r : data.rentals) {
+            bh.consume(modelMapper.map(r, RentalDto.class));
+        }
+    }
+
+    @Benchmark
+    public void rentalDtoMapper(Blackhole bh) {
+        for (Rental r : data.rentals) {
+            bh.consume(rentalMapper.toDto(r));
+        }
+    }
+
+    @Benchmark
+    public void reservationShowModelMapper(Blackhole bh) {
+        for (Reservation r : data.reservations) {
+            bh.consume(modelMapper.map(r, ReservationShow.class));
+        }
+    }
+
+    @Benchmark
+    public void reservationShowMapper(Blackhole bh) {
+        for (Reservation r : data.reservations) {
+            bh.consume(reservationMapper.toShow(r));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по естественным ключам на PostgreSQL с миллионом книг, аренд и броней (профиль bench-pg, схема из миграций).
+ * Данные генерирует {@link PostgresSampleData}.
+ * Перед замером проверяется, что планировщик идёт по индексам, а не по seq scan.
+ * Запуск: mvn -P benchmark test-compile exec:exec -Djmh.args=NaturalKeyLookupBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NaturalKeyLookupBenchmark {
+    private static final int USERS = PostgresSampleData.USERS;
+    private static final int ROWS = PostgresSampleData.ROWS;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private UserRepository userRepository;
+    private RentalRepository rentalRepository;
+    private JdbcTemplate jdbc;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MusiclibraryApplication.class)
+                .profiles("bench-pg")
+                .run();
+        bookRepository = context.getBean(BookRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        rentalRepository = context.getBean(RentalRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        PostgresSampleData.seed(jdbc);
+        requireIndexScan("select * from books where title = 'Книга 1'");
+        requireIndexScan("select * from users where name = 'user1'");
+        requireIndexScan("select r.* from rentals r join books b on b.id = r.book_id where b.title = 'Книга 1'");
+        requireIndexScan("select r.* from rentals r join users u on u.id = r.user_id where u.name = 'user1'");
+        requireIndexScan("select r.* from reservations r join books b on b.id = r.book_id where b.title = 'Книга 1'");
+        requireIndexScan("select id from rentals where book_id = '" + bookId(1) + "' and is_returned = false");
+    }
+
+    private void requireIndexScan(String sql) {
+        PostgresSampleData.requireIndexScan(jdbc, sql);
+    }
+
+    private UUID bookId(int n) {
+        return jdbc.queryForObject("select md5('book' || ?)::uuid", UUID.class, n);
+    }
+
+    private static String title() {
+        return "Книга " + ThreadLocalRandom.current().nextInt(ROWS);
+    }
+
+    private static String name() {
+        return "user" + ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object bookByTitle() {
+        return bookRepository.findByTitle(title());
+    }
+
+    @Benchmark
+    public boolean bookExistsByTitle() {
+        return bookRepository.existsByTitle(title());
+    }
+
+    @Benchmark
+    public Object userByName() {
+        return userRepository.findByName(name());
+    }
+
+    @Benchmark
+    public boolean userExistsByName() {
+        return userRepository.existsByName(name());
+    }
+
+    @Benchmark
+    public Object rentalsByBookTitle() {
+        return rentalRepository.findByBook(title());
+    }
+
+    @Benchmark
+    public Object rentalsByUserName() {
+        return rentalRepository.findByUser(name());
+    }
+
+    @Benchmark
+    public Object activeRentalsOfBook() {
+        return jdbc.queryForList("select id from rentals where book_id = md5('book' || ?)::uuid and is_returned = false",
+                UUID.class, ThreadLocalRandom.current().nextInt(ROWS));
+    }
+}
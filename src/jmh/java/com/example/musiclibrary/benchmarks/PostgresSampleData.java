@@ -0,0 +1,69 @@
+package com.example.musiclibrary.benchmarks;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Миллион книг, аренд и броней в PostgreSQL для бенчмарков профиля bench-pg.
+ * Строки генерируются через generate_series одним запросом на таблицу и переиспользуются между запусками.
+ * Ключи детерминированы (md5 от номера), поэтому аренды и брони ссылаются на книги и пользователей без join'ов при вставке.
+ */
+final class PostgresSampleData {
+    static final int USERS = 100_000;
+    static final int ROWS = 1_000_000;
+
+    static final String[] SURNAMES = {"Толстой", "Чехов", "Пушкин", "Гоголь", "Булгаков", "Тургенев", "Достоевский",
+            "Бунин", "Набоков", "Пастернак", "Лермонтов", "Куприн", "Горький", "Шолохов", "Платонов", "Зощенко",
+            "Ахматова", "Цветаева", "Блок", "Есенин", "Маяковский", "Грибоедов", "Островский", "Лесков", "Гончаров"};
+    static final String[] NAMES = {"Антон", "Лев", "Александр", "Николай", "Михаил", "Иван", "Фёдор", "Владимир",
+            "Борис", "Сергей", "Андрей", "Максим", "Анна", "Марина", "Алексей", "Евгений", "Юрий", "Дмитрий", "Пётр", "Павел"};
+    static final String[] GENRES = {"Роман", "Повесть", "Рассказ", "Поэзия", "Драма", "Фантастика", "Детектив",
+            "Приключения", "История", "Биография", "Публицистика", "Сказка"};
+    static final String[] WORDS = {"война", "мир", "сад", "море", "город", "дорога", "зима", "лето", "дом", "река",
+            "письмо", "тайна", "остров", "звезда", "ночь", "утро", "поезд", "степь", "память", "судьба"};
+
+    private PostgresSampleData() {
+    }
+
+    static void seed(JdbcTemplate jdbc) {
+        Integer books = jdbc.queryForObject("select count(*) from books", Integer.class);
+        if (books != null && books >= ROWS) {
+            return;
+        }
+        jdbc.execute("truncate table reservations, rentals, books, users");
+        jdbc.execute("insert into users (id, \"created on\", name, email, password, role, membership_date, phone_number, address) "
+                + "select md5('user' || g)::uuid, now(), 'user' || g, 'user' || g || '@library.test', 'password', 0, date '2020-01-01', '+7900' || g, 'Москва' "
+                + "from generate_series(0, " + (USERS - 1) + ") g");
+        // 500 авторов, 12 жанров, 200 издательств, 75 лет; описание из трёх слов словаря
+        jdbc.execute("insert into books (id, \"created on\", title, author, publisher, publication_year, genre, available_copies, total_copies, description, added_by) "
+                + "select md5('book' || g)::uuid, now(), 'Книга ' || g, "
+                + pick(NAMES, "(g / " + SURNAMES.length + ")") + " || ' ' || " + pick(SURNAMES, "g") + ", "
+                + "'Издательство ' || (g % 200), 1950 + g % 75, " + pick(GENRES, "g") + ", 10, 10, "
+                + pick(WORDS, "g") + " || ' ' || " + pick(WORDS, "(g / 7)") + " || ' ' || " + pick(WORDS, "(g / 131)") + ", "
+                + "md5('user' || (g % " + USERS + "))::uuid "
+                + "from generate_series(0, " + (ROWS - 1) + ") g");
+        // Каждая десятая аренда не возвращена: частичный индекс покрывает только их
+        jdbc.execute("insert into rentals (id, \"created on\", rental_date, due_date, return_date, extended_times, is_returned, user_id, book_id) "
+                + "select md5('rental' || g)::uuid, now(), current_date - 30, current_date - 15 + (g % 30), null, 0, g % 10 <> 0, "
+                + "md5('user' || (g % " + USERS + "))::uuid, md5('book' || ((g * 7) % " + ROWS + "))::uuid "
+                + "from generate_series(0, " + (ROWS - 1) + ") g");
+        jdbc.execute("insert into reservations (id, \"created on\", reservation_date, expiry_date, is_active, user_id, book_id) "
+                + "select md5('reservation' || g)::uuid, now(), current_date, current_date + 7, g % 2 = 0, "
+                + "md5('user' || ((g * 3) % " + USERS + "))::uuid, md5('book' || ((g * 11) % " + ROWS + "))::uuid "
+                + "from generate_series(0, " + (ROWS - 1) + ") g");
+        jdbc.execute("analyze users, books, rentals, reservations");
+    }
+
+    static void requireIndexScan(JdbcTemplate jdbc, String sql) {
+        List<String> plan = jdbc.queryForList("explain " + sql, String.class);
+        if (plan.stream().anyMatch(line -> line.contains("Seq Scan"))) {
+            throw new IllegalStateException("Запрос идёт без индекса: " + sql + "\n" + String.join("\n", plan));
+        }
+    }
+
+    // Элемент массива-литерала по номеру строки: (array['a','b'])[n % 2 + 1]
+    private static String pick(String[] values, String n) {
+        return "(array['" + String.join("','", values) + "'])[" + n + " % " + values.length + " + 1]";
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.RentalCheckRequest;
+import com.example.musiclibrary.RentalCheckResponse;
+import com.example.musiclibrary.RentalServiceGrpc;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оформление аренд через gRPC (профиль bench): 500 заявок по одной addRental против одного потока addRentals.
+ * Результат — аренд в секунду; у книг большой запас копий, поэтому все заявки успешны.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RentalBatchRpcBenchmark {
+    private static final int RENTALS = 500;
+    private static final int USERS = 100;
+    private static final int BOOKS = 50;
+
+    private ConfigurableApplicationContext context;
+    private ManagedChannel channel;
+    private RentalServiceGrpc.RentalServiceBlockingStub blocking;
+    private RentalServiceGrpc.RentalServiceStub async;
+    private List<RentalCheckRequest> requests;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MusiclibraryApplication.class)
+                .profiles("bench")
+                .run();
+        UserRepository users = context.getBean(UserRepository.class);
+        BookRepository books = context.getBean(BookRepository.class);
+        List<User> savedUsers = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            savedUsers.add(users.save(new User("reader" + i, "reader" + i + "@library.test", "password",
+                    User.Role.User, LocalDate.of(2020, 1, 1), "+7900000" + i, "Москва")));
+        }
+        for (int i = 0; i < BOOKS; i++) {
+            Book b = new Book("Книга " + i, "Автор", "Издательство", 2000, "Жанр", 100_000_000, 100_000_000, null);
+            b.setUser(savedUsers.get(i % USERS));
+            books.save(b);
+        }
+        requests = new ArrayList<>(RENTALS);
+        for (int i = 0; i < RENTALS; i++) {
+            requests.add(RentalCheckRequest.newBuilder().setUser("reader" + (i % USERS)).setBook("Книга " + (i % BOOKS)).build());
+        }
+        channel = ManagedChannelBuilder.forAddress("localhost", context.getBean(Server.class).getPort()).usePlaintext().build();
+        blocking = RentalServiceGrpc.newBlockingStub(channel);
+        async = RentalServiceGrpc.newStub(channel);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RENTALS)
+    public int single() {
+        int ok = 0;
+        for (RentalCheckRequest request : requests) {
+            if (blocking.addRental(request).getSuccess()) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RENTALS)
+    public int streamed() throws Exception {
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        StreamObserver<RentalCheckRequest> stream = async.addRentals(new StreamObserver<>() {
+            private int ok;
+
+            @Override
+            public void onNext(RentalCheckResponse response) {
+                if (response.getSuccess()) {
+                    ok++;
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                done.complete(ok);
+            }
+        });
+        requests.forEach(stream::onNext);
+        stream.onCompleted();
+        return done.get(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.controllers.BookController;
+import com.example.musiclibrary.controllers.LinkTemplates;
+import com.example.musiclibrary.controllers.RentalController;
+import com.example.musiclibrary.controllers.UserController;
+import com.example.musiclibrary.dtos.ActionDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.mappers.BookMapper;
+import com.example.musiclibrary.mappers.RentalMapper;
+import com.example.musiclibrary.mappers.ReservationMapper;
+import com.example.musiclibrary.mappers.UserMapper;
+import com.example.musiclibrary.models.Rental;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость ссылок и действий одной аренды из /rentals (сама аренда, книга и пользователь):
+ * WebMvcLinkBuilder.linkTo(methodOn(...)) против LinkTemplates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RentalLinksBenchmark {
+    private List<Rental> rentals;
+    private RentalMapper rentalMapper;
+    private AnnotationConfigApplicationContext mappers;
+    private LinkTemplates linkTemplates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rentals = new SampleData(10, 50, 1000).rentals;
+        mappers = new AnnotationConfigApplicationContext(UserMapper.class, BookMapper.class, RentalMapper.class, ReservationMapper.class);
+        rentalMapper = mappers.getBean(RentalMapper.class);
+        linkTemplates = new LinkTemplates();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rentals");
+        request.setServerPort(8081);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        mappers.close();
+    }
+
+    private RentalShow nextRental() {
+        Rental r = rentals.get(next++ % rentals.size());
+        return rentalMapper.toShow(r);
+    }
+
+    @Benchmark
+    public void linkBuilder(Blackhole bh) throws Throwable {
+        RentalShow rental = nextRental();
+        rental.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).findRental(rental.getId())).withSelfRel());
+        rental.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).all()).withRel("all-rentals"));
+        List<ActionDto> actions = new ArrayList<>();
+        actions.add(new ActionDto(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class)
+                .editRental(rental.getId(), null)).withRel("update").toUri().toString(), "PUT", "application/json"));
+        actions.add(new ActionDto(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class)
+                .deleteRental(rental.getId())).withRel("delete").toUri().toString(), "DELETE"));
+        rental.setActions(actions);
+
+        BookShow book = rental.getBook();
+        book.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).findBook(book.getTitle())).withSelfRel());
+        book.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).all()).withRel("all-books"));
+        List<ActionDto> bookActions = new ArrayList<>();
+        bookActions.add(new ActionDto(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
+                .editBook(book.getTitle(), null)).withRel("update").toUri().toString(), "PUT", "application/json"));
+        bookActions.add(new ActionDto(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
+                .deleteBook(book.getTitle())).withRel("delete").toUri().toString(), "DELETE"));
+        book.setActions(bookActions);
+
+        UserShow user = rental.getUser();
+        user.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).findUser(user.getName())).withSelfRel());
+        user.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).all()).withRel("all-users"));
+        List<ActionDto> userActions = new ArrayList<>();
+        userActions.add(new ActionDto(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
+                .editUser(user.getName(), null)).withRel("update").toUri().toString(), "PUT", "application/json"));
+        userActions.add(new ActionDto(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
+                .deleteUser(user.getName())).withRel("delete").toUri().toString(), "DELETE"));
+        user.setActions(userActions);
+        bh.consume(rental);
+    }
+
+    @Benchmark
+    public void linkTemplates(Blackhole bh) {
+        RentalShow rental = nextRental();
+        linkTemplates.decorate(rental);
+        linkTemplates.decorate(rental.getBook());
+        linkTemplates.decorate(rental.getUser());
+        bh.consume(rental);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.models.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Граф сущностей в памяти (без БД) для бенчмарков преобразования и сериализации.
+ */
+final class SampleData {
+    final List<User> users = new ArrayList<>();
+    final List<Book> books = new ArrayList<>();
+    final List<Rental> rentals = new ArrayList<>();
+    final List<Reservation> reservations = new ArrayList<>();
+
+    SampleData(int userCount, int bookCount, int rentalCount) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < userCount; i++) {
+            User u = new User("user" + i, "user" + i + "@library.test", "password" + i,
+                    i % 10 == 0 ? User.Role.Librarian : User.Role.User, LocalDate.of(2020, 1, 1).plusDays(i), "+7900000" + i, "Москва, ул. Тестовая, " + i);
+            u.setId(UUID.randomUUID());
+            u.setCreated(now);
+            u.setModified(now);
+            users.add(u);
+        }
+        for (int i = 0; i < bookCount; i++) {
+            Book b = new Book("Книга " + i, "Автор " + (i % 50), "Издательство", 1950 + i % 70, "Жанр " + (i % 8), 5, 10, "Описание книги " + i);
+            b.setId(UUID.randomUUID());
+            b.setUser(users.get(i % users.size()));
+            b.setCreated(now);
+            b.setModified(now);
+            books.add(b);
+        }
+        for (int i = 0; i < rentalCount; i++) {
+            Rental r = new Rental(LocalDate.now().minusDays(i % 30), LocalDate.now().plusDays(14 - i % 30), null, i % 3, i % 4 == 0);
+            r.setId(UUID.randomUUID());
+            r.setUser(users.get(i % users.size()));
+            r.setBook(books.get(i % books.size()));
+            r.setCreated(now);
+            r.setModified(now);
+            rentals.add(r);
+
+            Reservation reserv = new Reservation(LocalDate.now().minusDays(i % 7), LocalDate.now().plusDays(7 - i % 7), i % 2 == 0);
+            reserv.setId(UUID.randomUUID());
+            reserv.setUser(users.get((i + 1) % users.size()));
+            reserv.setBook(books.get((i + 1) % books.size()));
+            reservations.add(reserv);
+        }
+    }
+}
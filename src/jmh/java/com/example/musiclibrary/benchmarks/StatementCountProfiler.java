@@ -0,0 +1,56 @@
+package com.example.musiclibrary.benchmarks;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Число SQL-запросов на операцию (statements.norm) по статистике Hibernate, по аналогии с gc.alloc.rate.norm.
+ * Бенчмарк регистрирует Statistics своего контекста в @Setup; без регистрации профайлер ничего не добавляет.
+ * Считаются все запросы контекста за итерацию, включая фоновые задачи, поэтому они в профиле bench отключены.
+ * Подключается через -prof com.example.musiclibrary.benchmarks.StatementCountProfiler.
+ */
+public class StatementCountProfiler implements InternalProfiler {
+    private static volatile Statistics statistics;
+
+    private long before;
+
+    static void register(Statistics statistics) {
+        statistics.setStatisticsEnabled(true);
+        StatementCountProfiler.statistics = statistics;
+    }
+
+    static void unregister() {
+        statistics = null;
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        Statistics current = statistics;
+        before = current != null ? current.getPrepareStatementCount() : 0;
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+        Statistics current = statistics;
+        long ops = result.getMetadata() != null ? result.getMetadata().getAllOps() : 0;
+        if (current == null || ops == 0) {
+            return List.of();
+        }
+        double perOp = (double) (current.getPrepareStatementCount() - before) / ops;
+        return List.of(new ScalarResult("statements.norm", perOp, "statements/op", AggregationPolicy.AVG));
+    }
+
+    @Override
+    public String getDescription() {
+        return "SQL-запросы Hibernate на операцию";
+    }
+}
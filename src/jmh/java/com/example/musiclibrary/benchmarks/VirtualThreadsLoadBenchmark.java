@@ -0,0 +1,98 @@
+package com.example.musiclibrary.benchmarks;
+
+import com.example.musiclibrary.MusiclibraryApplication;
+import com.example.musiclibrary.UserNameRequest;
+import com.example.musiclibrary.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузка на поднятое приложение (профиль bench-pg, PostgreSQL с данными PostgresSampleData):
+ * 1000 клиентов без пауз запрашивают случайных пользователей по REST, GraphQL и gRPC.
+ * Пропускная способность при насыщении — предельный RPS; параметр virtual сравнивает пулы
+ * платформенных потоков (Tomcat 200, фиксированный пул gRPC из library.grpc.executor-threads) с виртуальными потоками.
+ * Лимит library.grpc.max-concurrent-calls поднят до числа клиентов, чтобы вызовы не отклонялись.
+ * Ближний кэш выключен, и каждый запрос идёт в БД; пул соединений увеличен до 50, чтобы упираться в потоки, а не в Hikari.
+ * Закрепления виртуальных потоков пишет в лог VirtualThreadPinningMonitor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1000)
+@State(Scope.Benchmark)
+public class VirtualThreadsLoadBenchmark {
+    @Param({"false", "true"})
+    public boolean virtual;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient http;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub users;
+    private URI restBase;
+    private URI graphql;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(MusiclibraryApplication.class)
+                .profiles("bench-pg")
+                .properties("spring.threads.virtual.enabled=" + virtual,
+                        "spring.datasource.hikari.maximum-pool-size=50",
+                        "library.cache.near.max-size=0",
+                        "library.grpc.max-concurrent-calls=1000")
+                .run();
+        PostgresSampleData.seed(context.getBean(JdbcTemplate.class));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        restBase = URI.create("http://localhost:" + port + "/users/info/");
+        graphql = URI.create("http://localhost:" + port + "/graphql");
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        channel = ManagedChannelBuilder.forAddress("localhost", context.getBean(Server.class).getPort()).usePlaintext().build();
+        users = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    private static String randomUser() {
+        return "user" + ThreadLocalRandom.current().nextInt(PostgresSampleData.USERS);
+    }
+
+    @Benchmark
+    public int rest() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(restBase.resolve(randomUser())).GET().build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int graphql() throws IOException, InterruptedException {
+        String body = "{\"query\":\"{ getUser(name: \\\"" + randomUser() + "\\\") { name email } }\"}";
+        HttpRequest request = HttpRequest.newBuilder(graphql)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public Object grpc() {
+        return users.findUser(UserNameRequest.newBuilder().setName(randomUser()).build());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.musiclibrary.grpc;
+
+import com.example.musiclibrary.BookListResponse;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка и сериализация protobuf-ответов grpc.BookServiceImpl.
+ * Лежит в пакете grpc, так как toResponse доступен только внутри пакета.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtobufBenchmark {
+    @Param({"100", "1000"})
+    public int size;
+
+    private List<Book> books;
+
+    @Setup
+    public void setUp() {
+        User owner = new User("owner", "owner@library.test", "password", User.Role.Librarian, LocalDate.of(2020, 1, 1), "+79000000000", "Москва");
+        owner.setId(UUID.randomUUID());
+        books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book b = new Book("Книга " + i, "Автор " + i, "Издательство", 2000, "Жанр", 5, 10, "Описание книги " + i);
+            b.setId(UUID.randomUUID());
+            b.setUser(owner);
+            books.add(b);
+        }
+    }
+
+    @Benchmark
+    public BookListResponse buildListResponse() {
+        BookListResponse.Builder builder = BookListResponse.newBuilder();
+        for (Book b : books) {
+            builder.addBooks(BookServiceImpl.toResponse(b));
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public byte[] buildAndSerialize() {
+        return buildListResponse().toByteArray();
+    }
+}
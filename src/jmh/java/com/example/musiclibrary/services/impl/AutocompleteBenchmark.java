@@ -0,0 +1,91 @@
+package com.example.musiclibrary.services.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автодополнение по индексу в памяти на миллионе книг, без Spring и БД.
+ * Лежит в пакете services.impl, так как индекс доступен только внутри пакета.
+ * Размер сегмента и время построения печатаются при подготовке; перестройка целиком — отдельный замер build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AutocompleteBenchmark {
+    private static final int BOOKS = 1_000_000;
+    private static final int DELTA = 1000;
+    private static final String[] WORDS = {"война", "мир", "сад", "море", "город", "дорога", "зима", "лето", "дом", "река",
+            "письмо", "тайна", "остров", "звезда", "ночь", "утро", "поезд", "степь", "память", "судьба"};
+    private static final String[] SURNAMES = {"Толстой", "Чехов", "Пушкин", "Гоголь", "Булгаков", "Тургенев", "Достоевский",
+            "Бунин", "Набоков", "Пастернак", "Лермонтов", "Куприн", "Горький", "Шолохов", "Платонов", "Зощенко"};
+
+    private List<AutocompleteDoc> docs;
+    private AutocompleteIndex index;
+
+    @Setup
+    public void setUp() {
+        docs = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            String title = capitalize(WORDS[i % WORDS.length]) + " и " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            docs.add(AutocompleteDoc.of(new UUID(0, i), title, SURNAMES[(i / 7) % SURNAMES.length]));
+        }
+        index = new AutocompleteIndex();
+        long start = System.nanoTime();
+        index.rebuild(state -> docs);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        // дельта как между двумя фоновыми перестройками
+        for (int i = 0; i < DELTA; i++) {
+            index.put(new UUID(1, i), "Новая книга " + i, "Новый автор");
+        }
+        AutocompleteSegment base = index.state().base();
+        System.out.printf("%nСегмент: %d книг, %d слов, ~%d МБ, построен за %d мс%n",
+                base.size(), base.terms(), base.memoryBytes() / (1024 * 1024), millis);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String word() {
+        return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+    }
+
+    // Два символа: десятки тысяч подходящих названий, отдаются первые 10
+    @Benchmark
+    public Object shortTitlePrefix() {
+        return index.suggest(word().substring(0, 2), 10);
+    }
+
+    @Benchmark
+    public Object titlePrefix() {
+        return index.suggest(word() + " и " + word().substring(0, 2), 10);
+    }
+
+    // Название не начинается с запроса: поиск по началам слов названия и автора
+    @Benchmark
+    public Object wordsPrefix() {
+        return index.suggest(SURNAMES[ThreadLocalRandom.current().nextInt(SURNAMES.length)].substring(0, 4) + " " + word(), 10);
+    }
+
+    @Benchmark
+    public Object numberPrefix() {
+        return index.suggest(String.valueOf(ThreadLocalRandom.current().nextInt(BOOKS)), 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public AutocompleteSegment build() {
+        return AutocompleteSegment.build(docs);
+    }
+}
@@ -1,4 +1,5 @@
 package com.example.musiclibrary;
+import com.example.musiclibrary.init.BookImportRunner;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Contact;
 import io.swagger.v3.oas.models.info.Info;
@@ -6,8 +7,11 @@ import org.modelmapper.ModelMapper;
 import org.modelmapper.config.Configuration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 @SpringBootApplication
+@EnableScheduling
 public class MusiclibraryApplication {
 	@Bean
 	public ModelMapper modelMapper(){
@@ -30,6 +34,10 @@ public class MusiclibraryApplication {
 				);
 	}
 	public static void main(String[] args) {
-		SpringApplication.run(MusiclibraryApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(MusiclibraryApplication.class, args);
+		// Запуск с --import-books только загружает каталог (см. BookImportRunner)
+		if (context.getEnvironment().containsProperty(BookImportRunner.OPTION)) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.musiclibrary.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class CacheConfig {
+    @Bean
+    @ConditionalOnProperty(name = "library.cache.remote.enabled", havingValue = "true", matchIfMissing = true)
+    RemoteCache remoteCache(RedisConnectionFactory connectionFactory) {
+        return new RedisRemoteCache(connectionFactory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.cache.remote.enabled", havingValue = "false")
+    RemoteCache noRemoteCache() {
+        return new NoRemoteCache();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.cache.remote.enabled", havingValue = "true", matchIfMissing = true)
+    RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory, LibraryCaches caches) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> caches.onRemoteEviction(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RedisRemoteCache.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
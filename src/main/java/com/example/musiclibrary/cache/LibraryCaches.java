@@ -0,0 +1,93 @@
+package com.example.musiclibrary.cache;
+
+import com.example.musiclibrary.dtos.BookDto;
+import com.example.musiclibrary.dtos.UserDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Кэши книг (по названию) и пользователей (по имени).
+ */
+@Component
+public class LibraryCaches {
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private RemoteCache remoteCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.cache.near.max-size:10000}")
+    private long nearMaxSize;
+    @Value("${library.cache.near.ttl-seconds:5}")
+    private long nearTtlSeconds;
+    @Value("${library.cache.remote.ttl-seconds:600}")
+    private long remoteTtlSeconds;
+
+    private TwoLevelCache<BookShow> bookShows;
+    private TwoLevelCache<BookDto> bookDtos;
+    private TwoLevelCache<UserShow> userShows;
+    private TwoLevelCache<UserDto> userDtos;
+
+    @PostConstruct
+    void init() {
+        ObjectMapper mapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        bookShows = create("book-show", BookShow.class, mapper);
+        bookDtos = create("book-dto", BookDto.class, mapper);
+        userShows = create("user-show", UserShow.class, mapper);
+        userDtos = create("user-dto", UserDto.class, mapper);
+    }
+
+    private <V> TwoLevelCache<V> create(String name, Class<V> type, ObjectMapper mapper) {
+        return new TwoLevelCache<>(name, type, mapper, remoteCache, nearMaxSize,
+                Duration.ofSeconds(nearTtlSeconds), Duration.ofSeconds(remoteTtlSeconds), meterRegistry);
+    }
+
+    public TwoLevelCache<BookShow> bookShows() {
+        return bookShows;
+    }
+
+    public TwoLevelCache<BookDto> bookDtos() {
+        return bookDtos;
+    }
+
+    public TwoLevelCache<UserShow> userShows() {
+        return userShows;
+    }
+
+    public TwoLevelCache<UserDto> userDtos() {
+        return userDtos;
+    }
+
+    public void evictBook(String title) {
+        bookShows.evict(title);
+        bookDtos.evict(title);
+    }
+
+    public void evictUser(String name) {
+        userShows.evict(name);
+        userDtos.evict(name);
+    }
+
+    /**
+     * Обработка оповещения из Redis: сбрасывается ближний уровень кэша, которому принадлежит ключ.
+     */
+    public void onRemoteEviction(String remoteKey) {
+        for (TwoLevelCache<?> cache : List.of(bookShows, bookDtos, userShows, userDtos)) {
+            String key = cache.localKey(remoteKey);
+            if (key != null) {
+                cache.evictLocal(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.musiclibrary.cache;
+
+import java.time.Duration;
+
+/**
+ * Общий уровень отключён (library.cache.remote.enabled=false): работает только ближний кэш.
+ */
+public class NoRemoteCache implements RemoteCache {
+    @Override
+    public byte[] get(String key) {
+        return null;
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+    }
+
+    @Override
+    public void evict(String key) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.musiclibrary.cache;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+public class RedisRemoteCache implements RemoteCache {
+    // канал, по которому экземпляры сообщают друг другу об удалённых ключах
+    public static final String INVALIDATION_CHANNEL = "library:cache:invalidate";
+
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    public RedisRemoteCache(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        this.redisTemplate = template;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        redisTemplate.opsForValue().set(key, value, ttl);
+    }
+
+    @Override
+    public void evict(String key) {
+        redisTemplate.delete(key);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, key);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.musiclibrary.cache;
+
+import java.time.Duration;
+
+/**
+ * Общий для всех экземпляров приложения уровень кэша (Redis).
+ */
+public interface RemoteCache {
+    byte[] get(String key);
+    void put(String key, byte[] value, Duration ttl);
+    /**
+     * Удаляет запись и оповещает остальные экземпляры, чтобы они сбросили ближний кэш.
+     */
+    void evict(String key);
+}
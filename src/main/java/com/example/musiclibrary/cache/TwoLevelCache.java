@@ -0,0 +1,167 @@
+package com.example.musiclibrary.cache;
+
+import com.example.musiclibrary.datasource.PrimaryReads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through кэш из двух уровней: ближний (Caffeine, в памяти процесса) и общий (Redis).
+ * Оба уровня хранят сериализованный JSON, поэтому каждый вызывающий получает собственную копию объекта
+ * и может дополнять её ссылками HATEOAS, не затрагивая кэш.
+ */
+public class TwoLevelCache<V> {
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final Class<V> type;
+    private final ObjectMapper objectMapper;
+    private final RemoteCache remote;
+    private final Duration remoteTtl;
+    private final Cache<String, byte[]> near;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+
+    public TwoLevelCache(String name, Class<V> type, ObjectMapper objectMapper, RemoteCache remote,
+                         long nearMaxSize, Duration nearTtl, Duration remoteTtl, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.type = type;
+        this.objectMapper = objectMapper;
+        this.remote = remote;
+        this.remoteTtl = remoteTtl;
+        this.near = Caffeine.newBuilder()
+                .maximumSize(nearMaxSize)
+                .expireAfterWrite(nearTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, near, name);
+        this.remoteHits = Counter.builder("library.cache.remote.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.remoteMisses = Counter.builder("library.cache.remote.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Значение по ключу; при промахе на обоих уровнях загружается через loader (из основной БД) и кладётся в оба уровня.
+     * Отсутствующие значения не кэшируются.
+     */
+    public Optional<V> get(String key, Function<String, Optional<V>> loader) {
+        String remoteKey = remoteKey(key);
+        byte[] bytes = near.getIfPresent(key);
+        if (bytes == null) {
+            bytes = remoteGet(remoteKey);
+            if (bytes != null) {
+                near.put(key, bytes);
+            }
+        }
+        if (bytes != null) {
+            return Optional.of(read(bytes));
+        }
+        // Кэш общий и живёт до remote TTL, поэтому загрузка идёт из основной БД, а не из отстающей реплики
+        Optional<V> loaded = PrimaryReads.call(() -> loader.apply(key));
+        loaded.ifPresent(value -> {
+            byte[] written = write(value);
+            near.put(key, written);
+            remotePut(remoteKey, written);
+        });
+        return loaded;
+    }
+
+    /**
+     * Удаляет ключ на обоих уровнях. Внутри транзакции удаление повторяется после коммита,
+     * чтобы параллельное чтение не вернуло в кэш ещё не зафиксированное старое значение.
+     */
+    public void evict(String key) {
+        if (key == null) {
+            return;
+        }
+        evictNow(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Сбрасывает только ближний уровень (по оповещению от другого экземпляра).
+     */
+    public void evictLocal(String key) {
+        near.invalidate(key);
+    }
+
+    /**
+     * @return ключ ближнего уровня, если remoteKey принадлежит этому кэшу, иначе null
+     */
+    String localKey(String remoteKey) {
+        String prefix = remoteKey("");
+        return remoteKey.startsWith(prefix) ? remoteKey.substring(prefix.length()) : null;
+    }
+
+    private void evictNow(String key) {
+        near.invalidate(key);
+        try {
+            remote.evict(remoteKey(key));
+        } catch (RuntimeException e) {
+            log.warn("Не удалось удалить ключ {} из кэша {}", key, name, e);
+        }
+    }
+
+    // Недоступность Redis не ломает чтение: запрос просто уходит в БД
+    private byte[] remoteGet(String remoteKey) {
+        try {
+            byte[] bytes = remote.get(remoteKey);
+            (bytes != null ? remoteHits : remoteMisses).increment();
+            return bytes;
+        } catch (RuntimeException e) {
+            log.warn("Кэш {} недоступен", name, e);
+            remoteMisses.increment();
+            return null;
+        }
+    }
+
+    private void remotePut(String remoteKey, byte[] bytes) {
+        try {
+            remote.put(remoteKey, bytes, remoteTtl);
+        } catch (RuntimeException e) {
+            log.warn("Кэш {} недоступен", name, e);
+        }
+    }
+
+    private String remoteKey(String key) {
+        return "library:" + name + ":" + key;
+    }
+
+    private V read(byte[] bytes) {
+        try {
+            return objectMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать значение из кэша " + name, e);
+        }
+    }
+
+    private byte[] write(V value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось записать значение в кэш " + name, e);
+        }
+    }
+}
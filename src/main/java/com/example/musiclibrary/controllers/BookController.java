@@ -2,16 +2,19 @@ package com.example.musiclibrary.controllers;
 import com.example.musiclibrary.dtos.*;
 import com.example.musiclibrary.dtos.show.BookShow;
 import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.exceptions.InvalidArgumentException;
+import com.example.musiclibrary.services.AutocompleteService;
+import com.example.musiclibrary.services.BookImportService;
 import com.example.musiclibrary.services.BookService;
 import com.example.musiclibrary.services.UserService;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.ArrayList;
-import java.util.Collections;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 @RestController
@@ -21,45 +24,95 @@ public class BookController {
     @Autowired
     private BookService bookService;
     @Autowired
-    private ModelMapper modelMapper;
-    public BookController(UserService userService, BookService bookService, ModelMapper modelMapper) {
+    private ObjectMapper objectMapper;
+    @Autowired
+    private LinkTemplates linkTemplates;
+    @Autowired
+    private AutocompleteService autocompleteService;
+    @Autowired
+    private BookImportService bookImportService;
+    public BookController(UserService userService, BookService bookService) {
         this.userService = userService;
         this.bookService = bookService;
-        this.modelMapper = modelMapper;
     }
     @GetMapping("/books")
     public ResponseEntity<List<BookShow>> all() throws Throwable {
         List<BookShow> books = bookService.getAllBooks();
         for (BookShow book : books) {
-            addLinks(book);
-            addActions(book);
+            linkTemplates.decorate(book);
             UserShow u = userService.findUser(book.getUser().getName()).orElseThrow(() -> new NotFoundException(book.getUser().getName()));
-            addUserLinks(u);
-            addUserActions(u);
+            linkTemplates.decorate(u);
             book.setUser(u);
         }
         return ResponseEntity.ok(books);
     }
+    @GetMapping("/books/page")
+    public ResponseEntity<CursorPage<BookShow>> page(@RequestParam(required = false) UUID after, @RequestParam(required = false) Integer limit) throws Throwable {
+        CursorPage<BookShow> page = bookService.getBooksPage(after, CursorPage.limit(limit));
+        for (BookShow book : page.getItems()) {
+            linkTemplates.decorate(book);
+            linkTemplates.decorate(book.getUser());
+        }
+        return ResponseEntity.ok(page);
+    }
+    @GetMapping(value = "/books/stream", produces = NdjsonPageWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Integer batch) {
+        int limit = CursorPage.limit(batch);
+        return ResponseEntity.ok(NdjsonPageWriter.body(objectMapper, after -> bookService.getBooksPage(after, limit)));
+    }
+    @GetMapping("/books/search")
+    public ResponseEntity<BookSearchPage> search(@RequestParam(required = false) String q,
+                                                 @RequestParam(required = false) String genre,
+                                                 @RequestParam(required = false) String publisher,
+                                                 @RequestParam(required = false) String author,
+                                                 @RequestParam(required = false) Integer yearFrom,
+                                                 @RequestParam(required = false) Integer yearTo,
+                                                 @RequestParam(required = false) Integer page,
+                                                 @RequestParam(required = false) Integer size) throws Throwable {
+        BookSearchPage result = bookService.searchBooks(q, new BookSearchFilter(genre, publisher, author, yearFrom, yearTo),
+                page != null ? page : 0, CursorPage.limit(size));
+        for (BookShow book : result.getItems()) {
+            linkTemplates.decorate(book);
+            linkTemplates.decorate(book.getUser());
+        }
+        return ResponseEntity.ok(result);
+    }
+    @GetMapping("/books/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggest(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(autocompleteService.suggest(q, limit != null ? limit : 10));
+    }
+    @GetMapping("/books/suggest/stats")
+    public ResponseEntity<AutocompleteStats> suggestStats() {
+        return ResponseEntity.ok(autocompleteService.stats());
+    }
     @PostMapping("/books/add")
     public ResponseEntity<BookShow> addBook(@RequestBody BookDto newBook) throws Throwable {
         BookDto book = bookService.addBook(newBook, newBook.getUser().getName());
         BookShow b = bookService.findBook(book.getTitle()).orElseThrow(() -> new NotFoundException(book.getTitle()));
-        addLinks(b);
-        addActions(b);
+        linkTemplates.decorate(b);
         UserShow u = userService.findUser(b.getUser().getName()).orElseThrow(() -> new NotFoundException(b.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         b.setUser(u);
         return ResponseEntity.ok(b);
     }
+    // Тело запроса читается потоком и в память целиком не загружается
+    @PostMapping("/books/import")
+    public ResponseEntity<BookImportReport> importBooks(InputStream body, @RequestParam String user,
+                                                        @RequestParam(required = false, defaultValue = "csv") String format) throws IOException {
+        BookImportService.Format f;
+        try {
+            f = BookImportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidArgumentException("неизвестный формат " + format);
+        }
+        return ResponseEntity.ok(bookImportService.importBooks(body, f, user, report -> { }));
+    }
     @GetMapping("/books/info/{title}")
     public ResponseEntity<BookShow> findBook(@PathVariable String title) throws Throwable {
         BookShow book = bookService.findBook(title).orElseThrow(() -> new NotFoundException(title));
-        addLinks(book);
-        addActions(book);
+        linkTemplates.decorate(book);
         UserShow u = userService.findUser(book.getUser().getName()).orElseThrow(() -> new NotFoundException(book.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         book.setUser(u);
         return ResponseEntity.ok(book);
     }
@@ -67,81 +120,15 @@ public class BookController {
     public ResponseEntity<BookShow> editBook(@PathVariable String title, @RequestBody BookDto book) throws Throwable {
         bookService.editBook(title, book);
         BookShow b = bookService.findBook(book.getTitle()).orElseThrow(() -> new NotFoundException(book.getTitle()));
-        addLinks(b);
-        addActions(b);
+        linkTemplates.decorate(b);
         UserShow u = userService.findUser(b.getUser().getName()).orElseThrow(() -> new NotFoundException(b.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         b.setUser(u);
         return ResponseEntity.ok(b);
     }
     @DeleteMapping("/books/delete/{title}")
     public Link deleteBook(@PathVariable String title) throws Throwable {
         bookService.deleteBook(title);
-        return WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).all()).withRel("all-books");
-    }
-    private void addLinks(BookShow book) throws Throwable {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .findBook(book.getTitle()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .all())
-                .withRel("all-books");
-
-        book.add(selfLink);
-        book.add(allUsersLink);
-    }
-    private void addActions(BookShow book) throws Throwable {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .editBook(book.getTitle(), modelMapper.map(book, BookDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .deleteBook(book.getTitle())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        book.setActions(actions);
-    }
-    private void addUserLinks(UserShow user) throws InterruptedException {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .findUser(user.getName()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .all())
-                .withRel("all-users");
-
-        user.add(selfLink);
-        user.add(allUsersLink);
-    }
-    private void addUserActions(UserShow user) throws InterruptedException {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .editUser(user.getName(), modelMapper.map(user, UserDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .deleteUser(user.getName())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        user.setActions(actions);
+        return linkTemplates.allBooks();
     }
 }
\ No newline at end of file
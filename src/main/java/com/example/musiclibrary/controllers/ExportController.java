@@ -0,0 +1,75 @@
+package com.example.musiclibrary.controllers;
+
+import com.example.musiclibrary.exceptions.InvalidArgumentException;
+import com.example.musiclibrary.services.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Выгрузки для отчётов: плоские строки без ссылок HATEOAS, format=ndjson|csv,
+ * gzip=true сжимает ответ (Content-Encoding: gzip).
+ */
+@RestController
+public class ExportController {
+    @FunctionalInterface
+    private interface Export {
+        long write(OutputStream out, ExportService.Format format) throws IOException;
+    }
+    @Autowired
+    private ExportService exportService;
+    @GetMapping("/export/books")
+    public ResponseEntity<StreamingResponseBody> books(@RequestParam(required = false, defaultValue = "ndjson") String format,
+                                                       @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+        return export("books", format, gzip, exportService::exportBooks);
+    }
+    @GetMapping("/export/rentals")
+    public ResponseEntity<StreamingResponseBody> rentals(@RequestParam(required = false, defaultValue = "ndjson") String format,
+                                                         @RequestParam(required = false, defaultValue = "false") boolean gzip,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return export("rentals", format, gzip, (out, f) -> exportService.exportRentals(out, f, from, to));
+    }
+    @GetMapping("/export/reservations")
+    public ResponseEntity<StreamingResponseBody> reservations(@RequestParam(required = false, defaultValue = "ndjson") String format,
+                                                              @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+        return export("reservations", format, gzip, exportService::exportReservations);
+    }
+    private static ResponseEntity<StreamingResponseBody> export(String name, String format, boolean gzip, Export export) {
+        ExportService.Format f;
+        try {
+            f = ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidArgumentException("неизвестный формат " + format);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(f == ExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.parseMediaType(NdjsonPageWriter.NDJSON));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(name + "." + format.toLowerCase()).build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody body = out -> {
+            if (!gzip) {
+                export.write(out, f);
+                return;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 1 << 16, true);
+            export.write(compressed, f);
+            compressed.finish();
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+}
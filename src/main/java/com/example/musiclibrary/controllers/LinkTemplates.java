@@ -0,0 +1,184 @@
+package com.example.musiclibrary.controllers;
+
+import com.example.musiclibrary.dtos.ActionDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Шаблоны ссылок и действий HATEOAS для *Show. Пути один раз снимаются с WebMvcLinkBuilder при старте,
+ * дальше ссылка собирается подстановкой id или названия, без прокси methodOn на каждую сущность.
+ * Результат совпадает с тем, что вернул бы WebMvcLinkBuilder.linkTo(methodOn(...)).
+ */
+@Component
+public class LinkTemplates {
+    private static final String KEY = "__key__";
+    private static final UUID ID = new UUID(0, 0);
+    private static final String BASE_URI = LinkTemplates.class.getName() + ".BASE_URI";
+
+    private final Resource books;
+    private final Resource users;
+    private final Resource rentals;
+    private final Resource reservations;
+
+    public LinkTemplates() {
+        try {
+            books = new Resource(KEY,
+                    link(WebMvcLinkBuilder.methodOn(BookController.class).findBook(KEY)),
+                    link(WebMvcLinkBuilder.methodOn(BookController.class).all()),
+                    "all-books",
+                    link(WebMvcLinkBuilder.methodOn(BookController.class).editBook(KEY, null)),
+                    link(WebMvcLinkBuilder.methodOn(BookController.class).deleteBook(KEY)));
+            users = new Resource(KEY,
+                    link(WebMvcLinkBuilder.methodOn(UserController.class).findUser(KEY)),
+                    link(WebMvcLinkBuilder.methodOn(UserController.class).all()),
+                    "all-users",
+                    link(WebMvcLinkBuilder.methodOn(UserController.class).editUser(KEY, null)),
+                    link(WebMvcLinkBuilder.methodOn(UserController.class).deleteUser(KEY)));
+            rentals = new Resource(ID.toString(),
+                    link(WebMvcLinkBuilder.methodOn(RentalController.class).findRental(ID)),
+                    link(WebMvcLinkBuilder.methodOn(RentalController.class).all()),
+                    "all-rentals",
+                    link(WebMvcLinkBuilder.methodOn(RentalController.class).editRental(ID, null)),
+                    link(WebMvcLinkBuilder.methodOn(RentalController.class).deleteRental(ID)));
+            reservations = new Resource(ID.toString(),
+                    link(WebMvcLinkBuilder.methodOn(ReservationController.class).findReservation(ID)),
+                    link(WebMvcLinkBuilder.methodOn(ReservationController.class).all()),
+                    "all-reservations",
+                    link(WebMvcLinkBuilder.methodOn(ReservationController.class).editReservation(ID, null)),
+                    link(WebMvcLinkBuilder.methodOn(ReservationController.class).deleteReservation(ID)));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Не удалось построить шаблоны ссылок", e);
+        }
+    }
+
+    public void decorate(BookShow book) {
+        String base = baseUri();
+        String key = UriUtils.encodePath(book.getTitle(), StandardCharsets.UTF_8);
+        book.add(Link.of(base + books.self.expand(key), IanaLinkRelations.SELF));
+        book.add(Link.of(base + books.all, books.allRel));
+        book.setActions(books.actions(base, key));
+    }
+
+    public void decorate(UserShow user) {
+        String base = baseUri();
+        String key = UriUtils.encodePath(user.getName(), StandardCharsets.UTF_8);
+        user.add(Link.of(base + users.self.expand(key), IanaLinkRelations.SELF));
+        user.add(Link.of(base + users.all, users.allRel));
+        user.setActions(users.actions(base, key));
+    }
+
+    public void decorate(RentalShow rental) {
+        String base = baseUri();
+        String key = rental.getId().toString();
+        rental.add(Link.of(base + rentals.self.expand(key), IanaLinkRelations.SELF));
+        rental.add(Link.of(base + rentals.all, rentals.allRel));
+        rental.setActions(rentals.actions(base, key));
+    }
+
+    public void decorate(ReservationShow reservation) {
+        String base = baseUri();
+        String key = reservation.getId().toString();
+        reservation.add(Link.of(base + reservations.self.expand(key), IanaLinkRelations.SELF));
+        reservation.add(Link.of(base + reservations.all, reservations.allRel));
+        reservation.setActions(reservations.actions(base, key));
+    }
+
+    public Link allBooks() {
+        return Link.of(baseUri() + books.all, books.allRel);
+    }
+
+    public Link allUsers() {
+        return Link.of(baseUri() + users.all, users.allRel);
+    }
+
+    public Link allRentals() {
+        return Link.of(baseUri() + rentals.all, rentals.allRel);
+    }
+
+    public Link allReservations() {
+        return Link.of(baseUri() + reservations.all, reservations.allRel);
+    }
+
+    /**
+     * Базовый URI текущего запроса в том виде, в каком его подставляет WebMvcLinkBuilder.
+     * Считается один раз на запрос и хранится в его атрибутах.
+     */
+    private static String baseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return base();
+        }
+        String cached = (String) attributes.getAttribute(BASE_URI, RequestAttributes.SCOPE_REQUEST);
+        if (cached == null) {
+            cached = base();
+            attributes.setAttribute(BASE_URI, cached, RequestAttributes.SCOPE_REQUEST);
+        }
+        return cached;
+    }
+
+    private static String base() {
+        String uri = WebMvcLinkBuilder.linkTo(LinkTemplates.class).toUri().toString();
+        return uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+
+    // Путь без базового URI: при старте запроса нет, и linkTo строит ссылку от "/"
+    private static String link(Object invocation) {
+        String uri = WebMvcLinkBuilder.linkTo(invocation).toUri().toString();
+        return uri.substring(base().length());
+    }
+
+    private static final class Resource {
+        private final Template self;
+        private final String all;
+        private final String allRel;
+        private final Template update;
+        private final Template delete;
+
+        private Resource(String marker, String self, String all, String allRel, String update, String delete) {
+            this.self = new Template(self, marker);
+            this.all = all;
+            this.allRel = allRel;
+            this.update = new Template(update, marker);
+            this.delete = new Template(delete, marker);
+        }
+
+        private List<ActionDto> actions(String base, String key) {
+            List<ActionDto> actions = new ArrayList<>(2);
+            actions.add(new ActionDto(base + update.expand(key), "PUT", "application/json"));
+            actions.add(new ActionDto(base + delete.expand(key), "DELETE"));
+            return actions;
+        }
+    }
+
+    private static final class Template {
+        private final String prefix;
+        private final String suffix;
+
+        private Template(String path, String marker) {
+            int i = path.indexOf(marker);
+            if (i < 0) {
+                throw new IllegalStateException("В пути " + path + " нет подстановки " + marker);
+            }
+            this.prefix = path.substring(0, i);
+            this.suffix = path.substring(i + marker.length());
+        }
+
+        private String expand(String key) {
+            return prefix + key + suffix;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.musiclibrary.controllers;
+import com.example.musiclibrary.dtos.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.InterruptedIOException;
+import java.util.UUID;
+/**
+ * Потоковая выдача списка в формате NDJSON: записи читаются страницами по курсору
+ * и пишутся в ответ сразу, поэтому в памяти находится не больше одной страницы.
+ */
+final class NdjsonPageWriter {
+    static final String NDJSON = "application/x-ndjson";
+    @FunctionalInterface
+    interface PageSource<T> {
+        CursorPage<T> next(UUID after) throws InterruptedException;
+    }
+    private NdjsonPageWriter() {
+    }
+    static <T> StreamingResponseBody body(ObjectMapper objectMapper, PageSource<T> source) {
+        return out -> {
+            UUID after = null;
+            do {
+                CursorPage<T> page;
+                try {
+                    page = source.next(after);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(e.getMessage());
+                }
+                for (T item : page.getItems()) {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write('\n');
+                }
+                out.flush();
+                after = page.getNextCursor();
+            } while (after != null);
+        };
+    }
+}
@@ -4,18 +4,22 @@ import com.example.musiclibrary.dtos.*;
 import com.example.musiclibrary.dtos.show.BookShow;
 import com.example.musiclibrary.dtos.show.RentalShow;
 import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.repositories.specifications.RentalSpecifications;
 import com.example.musiclibrary.services.BookService;
 import com.example.musiclibrary.services.RentalService;
 import com.example.musiclibrary.services.UserService;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -27,70 +31,64 @@ public class RentalController {
     @Autowired
     private RentalService rentalService;
     @Autowired
-    private ModelMapper modelMapper;
-    public RentalController(RentalService rentalService, BookService bookService, UserService userService, ModelMapper modelMapper) {
+    private ObjectMapper objectMapper;
+    @Autowired
+    private LinkTemplates linkTemplates;
+    public RentalController(RentalService rentalService, BookService bookService, UserService userService) {
         this.rentalService = rentalService;
         this.bookService = bookService;
         this.userService = userService;
-        this.modelMapper = modelMapper;
     }
     @GetMapping("/rentals")
     public ResponseEntity<List<RentalShow>> all() throws Throwable {
-        List<RentalShow> rentals = rentalService.getAllRentals();
-        for (RentalShow rental : rentals) {
-            addLinks(rental);
-            addActions(rental);
-            BookShow b = bookService.findBook(rental.getBook().getTitle()).orElseThrow(() -> new NotFoundException(rental.getBook().getTitle()));
-            addBookLinks(b);
-            addBookActions(b);
-            rental.setBook(b);
-            UserShow u1 = userService.findUser(rental.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(rental.getUser().getName()));
-            addUserLinks(u1);
-            addUserActions(u1);
-            b.setUser(u1);
-            UserShow u = userService.findUser(rental.getUser().getName()).orElseThrow(() -> new NotFoundException(rental.getUser().getName()));
-            addUserLinks(u);
-            addUserActions(u);
-            rental.setUser(u);
-        }
+        List<RentalShow> rentals = rentalService.getAllRentalsWithDetails();
+        decorate(rentals);
         return ResponseEntity.ok(rentals);
     }
+    @GetMapping("/rentals/page")
+    public ResponseEntity<CursorPage<RentalShow>> page(@RequestParam(required = false) UUID after, @RequestParam(required = false) Integer limit,
+                                                       @RequestParam(required = false) Boolean returned, @RequestParam(required = false) Boolean overdue) throws Throwable {
+        // Без фильтров — прежний запрос с fetch join; текущие задолженности: ?overdue=true&returned=false
+        CursorPage<RentalShow> page = returned == null && overdue == null
+                ? rentalService.getRentalsPage(after, CursorPage.limit(limit))
+                : rentalService.getRentalsPage(Specification.where(RentalSpecifications.returned(returned)).and(RentalSpecifications.overdue(overdue)),
+                        after, CursorPage.limit(limit));
+        decorate(page.getItems());
+        return ResponseEntity.ok(page);
+    }
+    @GetMapping(value = "/rentals/stream", produces = NdjsonPageWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Integer batch) {
+        int limit = CursorPage.limit(batch);
+        return ResponseEntity.ok(NdjsonPageWriter.body(objectMapper, after -> rentalService.getRentalsPage(after, limit)));
+    }
     @PostMapping("/rentals/add")
     public ResponseEntity<RentalShow> newRental(@RequestBody RentalDto newRental) throws Throwable {
         RentalDto rental = rentalService.addRental(newRental, newRental.getUser().getName(), newRental.getBook().getTitle());
         RentalShow r = rentalService.findRental(rental.getId()).orElseThrow(() -> new NotFoundException(rental.getId().toString()));
-        addLinks(r);
-        addActions(r);
+        linkTemplates.decorate(r);
         BookShow b = bookService.findBook(rental.getBook().getTitle()).orElseThrow(() -> new NotFoundException(rental.getBook().getTitle()));
-        addBookLinks(b);
-        addBookActions(b);
+        linkTemplates.decorate(b);
         r.setBook(b);
         UserShow u1 = userService.findUser(rental.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(rental.getUser().getName()));
-        addUserLinks(u1);
-        addUserActions(u1);
+        linkTemplates.decorate(u1);
         b.setUser(u1);
         UserShow u = userService.findUser(rental.getUser().getName()).orElseThrow(() -> new NotFoundException(rental.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         r.setUser(u);
         return ResponseEntity.ok(r);
     }
     @GetMapping("/rentals/info/{id}")
     public ResponseEntity<RentalShow> findRental(@PathVariable UUID id) throws Throwable {
         RentalShow rental = rentalService.findRental(id).orElseThrow((() -> new NotFoundException(id.toString())));
-        addLinks(rental);
-        addActions(rental);
+        linkTemplates.decorate(rental);
         BookShow book = bookService.findBook(rental.getBook().getTitle()).orElseThrow(() -> new NotFoundException(rental.getBook().getTitle()));
-        addBookLinks(book);
-        addBookActions(book);
+        linkTemplates.decorate(book);
         rental.setBook(book);
         UserShow u1 = userService.findUser(rental.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(rental.getUser().getName()));
-        addUserLinks(u1);
-        addUserActions(u1);
+        linkTemplates.decorate(u1);
         book.setUser(u1);
         UserShow u = userService.findUser(book.getUser().getName()).orElseThrow(() -> new NotFoundException(book.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         rental.setUser(u);
         return ResponseEntity.ok(rental);
     }
@@ -98,19 +96,15 @@ public class RentalController {
     public ResponseEntity<RentalShow> editRental(@PathVariable UUID id, @RequestBody RentalDto rental) throws Throwable {
         rentalService.editRental(id, rental);
         RentalShow r = rentalService.findRental(id).orElseThrow((() -> new NotFoundException(id.toString())));
-        addLinks(r);
-        addActions(r);
+        linkTemplates.decorate(r);
         BookShow book = bookService.findBook(r.getBook().getTitle()).orElseThrow(() -> new NotFoundException(rental.getBook().getTitle()));
-        addBookLinks(book);
-        addBookActions(book);
+        linkTemplates.decorate(book);
         r.setBook(book);
         UserShow u1 = userService.findUser(r.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(rental.getUser().getName()));
-        addUserLinks(u1);
-        addUserActions(u1);
+        linkTemplates.decorate(u1);
         book.setUser(u1);
         UserShow u = userService.findUser(book.getUser().getName()).orElseThrow(() -> new NotFoundException(book.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         r.setUser(u);
         return ResponseEntity.ok(r);
     }
@@ -118,108 +112,26 @@ public class RentalController {
     @DeleteMapping("/rentals/{id}")
     public Link deleteRental(@PathVariable UUID id) throws Throwable {
         rentalService.deleteRental(id);
-        return WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).all()).withRel("all-rentals");
-    }
-
-    private void addLinks(RentalShow rental) throws Throwable {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class)
-                        .findRental(rental.getId()))
-                .withSelfRel();
-
-        Link allLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class)
-                        .all())
-                .withRel("all-rentals");
-
-        rental.add(selfLink);
-        rental.add(allLink);
-    }
-
-    private void addActions(RentalShow rental) throws Throwable {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class)
-                        .editRental(rental.getId(), modelMapper.map(rental, RentalDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class)
-                        .deleteRental(rental.getId())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        rental.setActions(actions);
+        return linkTemplates.allRentals();
     }
 
-    private void addBookLinks(BookShow book) throws Throwable {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .findBook(book.getTitle()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .all())
-                .withRel("all-books");
-
-        book.add(selfLink);
-        book.add(allUsersLink);
-    }
-
-    private void addBookActions(BookShow book) throws Throwable {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .editBook(book.getTitle(), modelMapper.map(book, BookDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .deleteBook(book.getTitle())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        book.setActions(actions);
-    }
-
-    private void addUserLinks(UserShow user) throws InterruptedException {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .findUser(user.getName()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .all())
-                .withRel("all-users");
-
-        user.add(selfLink);
-        user.add(allUsersLink);
+    private void decorate(List<RentalShow> rentals) throws Throwable {
+        // Книги и пользователи общие для нескольких аренд, ссылки добавляются каждому объекту один раз
+        Set<Object> decorated = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (RentalShow rental : rentals) {
+            linkTemplates.decorate(rental);
+            BookShow b = rental.getBook();
+            if (decorated.add(b)) {
+                linkTemplates.decorate(b);
+            }
+            decorateUser(b.getUser(), decorated);
+            decorateUser(rental.getUser(), decorated);
+        }
     }
 
-    private void addUserActions(UserShow user) throws InterruptedException {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .editUser(user.getName(), modelMapper.map(user, UserDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .deleteUser(user.getName())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        user.setActions(actions);
+    private void decorateUser(UserShow user, Set<Object> decorated) throws InterruptedException {
+        if (decorated.add(user)) {
+            linkTemplates.decorate(user);
+        }
     }
-}
\ No newline at end of file
+}
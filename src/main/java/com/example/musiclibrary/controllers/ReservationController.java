@@ -8,15 +8,14 @@ import com.example.musiclibrary.dtos.show.UserShow;
 import com.example.musiclibrary.services.BookService;
 import com.example.musiclibrary.services.ReservationService;
 import com.example.musiclibrary.services.UserService;
-import org.modelmapper.ModelMapper;
+import com.example.musiclibrary.services.WaitlistService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,70 +28,78 @@ public class ReservationController {
     @Autowired
     private ReservationService reservationService;
     @Autowired
-    private ModelMapper modelMapper;
-    public ReservationController(ReservationService reservationService, BookService bookService, UserService userService, ModelMapper modelMapper) {
+    private ObjectMapper objectMapper;
+    @Autowired
+    private LinkTemplates linkTemplates;
+    @Autowired
+    private WaitlistService waitlistService;
+    public ReservationController(ReservationService reservationService, BookService bookService, UserService userService) {
         this.reservationService = reservationService;
         this.bookService = bookService;
         this.userService = userService;
-        this.modelMapper = modelMapper;
     }
     @GetMapping("/reservations")
     public ResponseEntity<List<ReservationShow>> all() throws Throwable {
         List<ReservationShow> reservations = reservationService.getAllReservations();
         for (ReservationShow reservation : reservations) {
-            addLinks(reservation);
-            addActions(reservation);
+            linkTemplates.decorate(reservation);
             BookShow b = bookService.findBook(reservation.getBook().getTitle()).orElseThrow(() -> new NotFoundException(reservation.getBook().getTitle()));
-            addBookLinks(b);
-            addBookActions(b);
+            linkTemplates.decorate(b);
             reservation.setBook(b);
             UserShow u1 = userService.findUser(reservation.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(reservation.getUser().getName()));
-            addUserLinks(u1);
-            addUserActions(u1);
+            linkTemplates.decorate(u1);
             b.setUser(u1);
             UserShow u = userService.findUser(reservation.getUser().getName()).orElseThrow(() -> new NotFoundException(reservation.getUser().getName()));
-            addUserLinks(u);
-            addUserActions(u);
+            linkTemplates.decorate(u);
             reservation.setUser(u);
         }
         return ResponseEntity.ok(reservations);
     }
+    @GetMapping("/reservations/page")
+    public ResponseEntity<CursorPage<ReservationShow>> page(@RequestParam(required = false) UUID after, @RequestParam(required = false) Integer limit) throws Throwable {
+        CursorPage<ReservationShow> page = reservationService.getReservationsPage(after, CursorPage.limit(limit));
+        for (ReservationShow reservation : page.getItems()) {
+            linkTemplates.decorate(reservation);
+            BookShow b = reservation.getBook();
+            linkTemplates.decorate(b);
+            linkTemplates.decorate(b.getUser());
+            linkTemplates.decorate(reservation.getUser());
+        }
+        return ResponseEntity.ok(page);
+    }
+    @GetMapping(value = "/reservations/stream", produces = NdjsonPageWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Integer batch) {
+        int limit = CursorPage.limit(batch);
+        return ResponseEntity.ok(NdjsonPageWriter.body(objectMapper, after -> reservationService.getReservationsPage(after, limit)));
+    }
     @PostMapping("/reservations/add")
     public ResponseEntity<ReservationShow> newReservation(@RequestBody ReservationDto newReservation) throws Throwable {
         ReservationDto reservation = reservationService.addReservation(newReservation, newReservation.getUser().getName(), newReservation.getBook().getTitle());
         ReservationShow r = reservationService.findReservation(reservation.getId()).orElseThrow(() -> new NotFoundException(reservation.getId().toString()));
-        addLinks(r);
-        addActions(r);
+        linkTemplates.decorate(r);
         BookShow b = bookService.findBook(reservation.getBook().getTitle()).orElseThrow(() -> new NotFoundException(reservation.getBook().getTitle()));
-        addBookLinks(b);
-        addBookActions(b);
+        linkTemplates.decorate(b);
         r.setBook(b);
         UserShow u1 = userService.findUser(reservation.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(reservation.getUser().getName()));
-        addUserLinks(u1);
-        addUserActions(u1);
+        linkTemplates.decorate(u1);
         b.setUser(u1);
         UserShow u = userService.findUser(reservation.getUser().getName()).orElseThrow(() -> new NotFoundException(reservation.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         r.setUser(u);
         return ResponseEntity.ok(r);
     }
     @GetMapping("/reservations/info/{id}")
     public ResponseEntity<ReservationShow> findReservation(@PathVariable UUID id) throws Throwable {
         ReservationShow reservation = reservationService.findReservation(id).orElseThrow((() -> new NotFoundException(id.toString())));
-        addLinks(reservation);
-        addActions(reservation);
+        linkTemplates.decorate(reservation);
         BookShow book = bookService.findBook(reservation.getBook().getTitle()).orElseThrow(() -> new NotFoundException(reservation.getBook().getTitle()));
-        addBookLinks(book);
-        addBookActions(book);
+        linkTemplates.decorate(book);
         reservation.setBook(book);
         UserShow u1 = userService.findUser(reservation.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(reservation.getUser().getName()));
-        addUserLinks(u1);
-        addUserActions(u1);
+        linkTemplates.decorate(u1);
         book.setUser(u1);
         UserShow u = userService.findUser(book.getUser().getName()).orElseThrow(() -> new NotFoundException(book.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         reservation.setUser(u);
         return ResponseEntity.ok(reservation);
     }
@@ -100,127 +107,34 @@ public class ReservationController {
     public ResponseEntity<ReservationShow> editReservation(@PathVariable UUID id, @RequestBody ReservationDto reservation) throws Throwable {
         reservationService.editReservation(id, reservation);
         ReservationShow r = reservationService.findReservation(id).orElseThrow((() -> new NotFoundException(id.toString())));
-        addLinks(r);
-        addActions(r);
+        linkTemplates.decorate(r);
         BookShow book = bookService.findBook(r.getBook().getTitle()).orElseThrow(() -> new NotFoundException(r.getBook().getTitle()));
-        addBookLinks(book);
-        addBookActions(book);
+        linkTemplates.decorate(book);
         r.setBook(book);
         UserShow u1 = userService.findUser(r.getBook().getUser().getName()).orElseThrow(() -> new NotFoundException(r.getUser().getName()));
-        addUserLinks(u1);
-        addUserActions(u1);
+        linkTemplates.decorate(u1);
         book.setUser(u1);
         UserShow u = userService.findUser(book.getUser().getName()).orElseThrow(() -> new NotFoundException(book.getUser().getName()));
-        addUserLinks(u);
-        addUserActions(u);
+        linkTemplates.decorate(u);
         r.setUser(u);
         return ResponseEntity.ok(r);
     }
     @DeleteMapping("/reservations/delete/{id}")
     public Link deleteReservation(@PathVariable UUID id) throws Throwable {
         reservationService.deleteReservation(id);
-        return WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ReservationController.class).all()).withRel("all-reservations");
-    }
-
-    private void addLinks(ReservationShow reservation) throws Throwable {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ReservationController.class)
-                        .findReservation(reservation.getId()))
-                .withSelfRel();
-
-        Link allLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ReservationController.class)
-                        .all())
-                .withRel("all-reservations");
-
-        reservation.add(selfLink);
-        reservation.add(allLink);
+        return linkTemplates.allReservations();
     }
-
-    private void addActions(ReservationShow reservation) throws Throwable {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ReservationController.class)
-                        .editReservation(reservation.getId(), modelMapper.map(reservation, ReservationDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ReservationController.class)
-                        .deleteReservation(reservation.getId())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        reservation.setActions(actions);
+    // Очередь ожидания книги без свободных копий; в ответе - место в очереди
+    @PostMapping("/reservations/waitlist")
+    public ResponseEntity<Long> joinWaitlist(@RequestParam String user, @RequestParam String book,
+                                             @RequestParam(required = false, defaultValue = "0") int priority) {
+        return ResponseEntity.ok(waitlistService.join(user, book, priority));
     }
-
-    private void addBookLinks(BookShow book) throws Throwable {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .findBook(book.getTitle()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .all())
-                .withRel("all-books");
-
-        book.add(selfLink);
-        book.add(allUsersLink);
-    }
-
-    private void addBookActions(BookShow book) throws Throwable {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .editBook(book.getTitle(), modelMapper.map(book, BookDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class)
-                        .deleteBook(book.getTitle())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        book.setActions(actions);
-    }
-
-    private void addUserLinks(UserShow user) throws InterruptedException {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .findUser(user.getName()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .all())
-                .withRel("all-users");
-
-        user.add(selfLink);
-        user.add(allUsersLink);
-    }
-
-    private void addUserActions(UserShow user) throws InterruptedException {
-        List<ActionDto> actions = new ArrayList<>();
-
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .editUser(user.getName(), modelMapper.map(user, UserDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .deleteUser(user.getName())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-
-        user.setActions(actions);
+    @DeleteMapping("/reservations/waitlist")
+    public ResponseEntity<Void> leaveWaitlist(@RequestParam String user, @RequestParam String book) {
+        if (!waitlistService.leave(user, book)) {
+            throw new NotFoundException(user);
+        }
+        return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -1,90 +1,71 @@
 package com.example.musiclibrary.controllers;
-import com.example.musiclibrary.dtos.ActionDto;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.UserDto;
 import com.example.musiclibrary.dtos.show.UserShow;
 import com.example.musiclibrary.services.UserService;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.ArrayList;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 import java.util.UUID;
 @RestController
 public class UserController {
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final ObjectMapper objectMapper;
+    private final LinkTemplates linkTemplates;
     @Autowired
-    public UserController(UserService userService, ModelMapper modelMapper) {
+    public UserController(UserService userService, ObjectMapper objectMapper, LinkTemplates linkTemplates) {
         this.userService = userService;
-        this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
+        this.linkTemplates = linkTemplates;
     }
     @GetMapping("/users")
     public ResponseEntity<List<UserShow>> all() throws InterruptedException {
         List<UserShow> users = userService.getAllUsers();
         for (UserShow user : users) {
-            addActions(user);
-            addUserLinks(user);
+            linkTemplates.decorate(user);
         }
         return ResponseEntity.ok(users);
     }
+    @GetMapping("/users/page")
+    public ResponseEntity<CursorPage<UserShow>> page(@RequestParam(required = false) UUID after, @RequestParam(required = false) Integer limit) throws InterruptedException {
+        CursorPage<UserShow> page = userService.getUsersPage(after, CursorPage.limit(limit));
+        for (UserShow user : page.getItems()) {
+            linkTemplates.decorate(user);
+        }
+        return ResponseEntity.ok(page);
+    }
+    @GetMapping(value = "/users/stream", produces = NdjsonPageWriter.NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Integer batch) {
+        int limit = CursorPage.limit(batch);
+        return ResponseEntity.ok(NdjsonPageWriter.body(objectMapper, after -> userService.getUsersPage(after, limit)));
+    }
     @PostMapping("/users/add")
     public ResponseEntity<UserShow> newUser(@RequestBody UserDto newUser) throws InterruptedException {
         UserDto user = userService.register(newUser);
         UserShow u = userService.findUser(user.getName()).orElseThrow(() -> new NotFoundException(user.getName()));
-        addActions(u);
-        addUserLinks(u);
+        linkTemplates.decorate(u);
         return ResponseEntity.ok(u);
     }
     @GetMapping("/users/info/{name}")
     public ResponseEntity<UserShow> findUser(@PathVariable String name) throws InterruptedException {
         UserShow user = userService.findUser(name).orElseThrow(() -> new NotFoundException(name));
-        addUserLinks(user);
-        addActions(user);
+        linkTemplates.decorate(user);
         return ResponseEntity.ok(user);
     }
     @PutMapping("/users/edit/{name}")
     public ResponseEntity<UserShow> editUser(@PathVariable String name, @RequestBody UserDto user) throws InterruptedException {
         userService.editUser(name, user);
         UserShow u = userService.findUser(user.getName()).orElseThrow(() -> new NotFoundException(user.getName()));
-        addUserLinks(u);
-        addActions(u);
+        linkTemplates.decorate(u);
         return ResponseEntity.ok(u);
     }
     @DeleteMapping("/users/delete/{name}")
     public Link deleteUser(@PathVariable String name) throws InterruptedException {
         userService.delete(name);
-        return WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).all()).withRel("all-users");
-
-    }
-    private void addUserLinks(UserShow user) throws InterruptedException {
-        Link selfLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .findUser(user.getName()))
-                .withSelfRel();
-
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .all())
-                .withRel("all-users");
-        user.add(selfLink);
-        user.add(allUsersLink);
-    }
-    private void addActions(UserShow user) throws InterruptedException {
-        List<ActionDto> actions = new ArrayList<>();
-        ActionDto updateAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .editUser(user.getName(), modelMapper.map(user, UserDto.class))).withRel("update").toUri().toString(),
-                "PUT",
-                "application/json"
-        );
-        actions.add(updateAction);
-        ActionDto deleteAction = new ActionDto(
-                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class)
-                        .deleteUser(user.getName())).withRel("delete").toUri().toString(),
-                "DELETE"
-        );
-        actions.add(deleteAction);
-        user.setActions(actions);
+        return linkTemplates.allUsers();
     }
 }
\ No newline at end of file
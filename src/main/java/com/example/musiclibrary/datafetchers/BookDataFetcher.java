@@ -1,20 +1,29 @@
 package com.example.musiclibrary.datafetchers;
 
+import com.example.musiclibrary.datafetchers.records.BookFilter;
 import com.example.musiclibrary.datafetchers.records.SubmittedBook;
 import com.example.musiclibrary.dtos.BookDto;
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.dtos.BookSearchPage;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.repositories.specifications.BookSpecifications;
 import com.example.musiclibrary.services.BookService;
 import com.example.musiclibrary.services.UserService;
 import com.netflix.graphql.dgs.DgsComponent;
 import com.netflix.graphql.dgs.DgsMutation;
 import com.netflix.graphql.dgs.DgsQuery;
 import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @DgsComponent
 public class BookDataFetcher implements BookFetcherApi {
@@ -36,6 +45,24 @@ public class BookDataFetcher implements BookFetcherApi {
         return bookService.getAllBooks();
     }
 
+    @DgsQuery
+    public CursorPage<BookShow> getBooksPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException {
+        return bookService.getBooksPage(after != null ? UUID.fromString(after) : null, CursorPage.limit(first));
+    }
+
+    @DgsQuery
+    public Connection<BookShow> books(@InputArgument Integer first, @InputArgument String after, @InputArgument BookFilter filter) throws InterruptedException {
+        Specification<Book> spec = filter == null ? null : Specification.where(BookSpecifications.genre(filter.genre()))
+                .and(BookSpecifications.author(filter.author()));
+        UUID cursor = Connections.cursor(after);
+        return Connections.of(bookService.getBooksPage(spec, cursor, CursorPage.limit(first)), cursor);
+    }
+
+    @DgsQuery
+    public BookSearchPage searchBooks(@InputArgument String query, @InputArgument BookSearchFilter filter, @InputArgument Integer page, @InputArgument Integer first) throws InterruptedException {
+        return bookService.searchBooks(query, filter, page != null ? page : 0, CursorPage.limit(first));
+    }
+
     @DgsMutation
     public BookDto addBook(@InputArgument SubmittedBook input) throws InterruptedException {
         BookDto b = new BookDto();
@@ -0,0 +1,51 @@
+package com.example.musiclibrary.datafetchers;
+
+import com.example.musiclibrary.datafetchers.records.SubmittedBook;
+import com.example.musiclibrary.datafetchers.records.BookFilter;
+import com.example.musiclibrary.dtos.BookDto;
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.dtos.BookSearchPage;
+import com.example.musiclibrary.dtos.CursorPage;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+import java.util.List;
+
+@Tag(name = "books/graphql", description = "Управление каталогом книг через GraphQL")
+@ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Успешная обработка запроса"),
+        @ApiResponse(responseCode = "400", description = "Ошибка валидации"),
+        @ApiResponse(responseCode = "404", description = "Ресурс не найден"),
+        @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+})
+public interface BookFetcherApi {
+    @Operation(summary = "Получить список всех книг")
+    List<BookShow> getAllBooks() throws InterruptedException;
+
+    @Operation(summary = "Получить страницу книг после курсора")
+    CursorPage<BookShow> getBooksPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException;
+
+    @Operation(summary = "Получить книги с курсорной пагинацией и фильтром по жанру и автору")
+    Connection<BookShow> books(@InputArgument Integer first, @InputArgument String after, @InputArgument BookFilter filter) throws InterruptedException;
+
+    @Operation(summary = "Поиск по каталогу с ранжированием, опечатками и фасетами по жанру, издательству и году")
+    BookSearchPage searchBooks(@InputArgument String query, @InputArgument BookSearchFilter filter, @InputArgument Integer page, @InputArgument Integer first) throws InterruptedException;
+
+    @Operation(summary = "Добавить новую книгу")
+    BookDto addBook(@Valid @InputArgument SubmittedBook input) throws InterruptedException;
+
+    @Operation(summary = "Получить информацию о книге по названию")
+    BookDto getBook(@InputArgument String title) throws InterruptedException;
+
+    @Operation(summary = "Редактировать книгу по названию")
+    BookDto editBook(@InputArgument String title, @Valid @InputArgument SubmittedBook input) throws InterruptedException;
+
+    @Operation(summary = "Удалить книгу по названию")
+    String deleteBook(@InputArgument String title) throws InterruptedException;
+}
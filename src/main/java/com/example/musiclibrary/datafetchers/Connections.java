@@ -0,0 +1,43 @@
+package com.example.musiclibrary.datafetchers;
+
+import com.example.musiclibrary.dtos.CursorPage;
+import graphql.relay.Connection;
+import graphql.relay.ConnectionCursor;
+import graphql.relay.DefaultConnection;
+import graphql.relay.DefaultConnectionCursor;
+import graphql.relay.DefaultEdge;
+import graphql.relay.DefaultPageInfo;
+import graphql.relay.Edge;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Преобразование страниц CursorPage в Relay-соединения. Курсор ребра — id записи.
+ */
+final class Connections {
+    private Connections() {
+    }
+
+    static <T> Connection<T> of(CursorPage<T> page, UUID after) {
+        List<T> items = page.getItems();
+        List<UUID> cursors = page.getCursors();
+        List<Edge<T>> edges = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            edges.add(new DefaultEdge<>(items.get(i), new DefaultConnectionCursor(cursors.get(i).toString())));
+        }
+        ConnectionCursor start = edges.isEmpty() ? null : edges.get(0).getCursor();
+        ConnectionCursor end = edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor();
+        return new DefaultConnection<>(edges, new DefaultPageInfo(start, end, after != null, page.isHasNext()));
+    }
+
+    static UUID cursor(String after) {
+        return after != null && !after.isEmpty() ? UUID.fromString(after) : null;
+    }
+
+    static LocalDate date(String value) {
+        return value != null && !value.isEmpty() ? LocalDate.parse(value) : null;
+    }
+}
@@ -1,23 +1,38 @@
 package com.example.musiclibrary.datafetchers;
 
+import com.example.musiclibrary.datafetchers.loaders.BooksByTitleLoader;
+import com.example.musiclibrary.datafetchers.loaders.RentalsByUserLoader;
+import com.example.musiclibrary.datafetchers.loaders.UsersByNameLoader;
+import com.example.musiclibrary.datafetchers.records.RentalFilter;
 import com.example.musiclibrary.datafetchers.records.SubmittedRental;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.RentalDto;
+import com.example.musiclibrary.dtos.show.BookShow;
 import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.RentalSpecifications;
 import com.example.musiclibrary.services.BookService;
 import com.example.musiclibrary.services.RentalService;
 import com.example.musiclibrary.services.UserService;
 import com.netflix.graphql.dgs.DgsComponent;
+import com.netflix.graphql.dgs.DgsData;
+import com.netflix.graphql.dgs.DgsDataFetchingEnvironment;
 import com.netflix.graphql.dgs.DgsMutation;
 import com.netflix.graphql.dgs.DgsQuery;
 import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static java.util.Optional.ofNullable;
 
@@ -40,7 +55,44 @@ public class RentalDataFetcher implements RentalFetcherApi {
 
     @DgsQuery
     public List<RentalShow> getAllRentals() throws InterruptedException {
-        return rentalService.getAllRentals();
+        // Пользователь и книга приходят ключами и догружаются пачками через DataLoader'ы ниже
+        return rentalService.getAllRentalRefs();
+    }
+
+    @DgsData(parentType = "RentalShow", field = "user")
+    public CompletableFuture<UserShow> rentalUser(DgsDataFetchingEnvironment dfe) {
+        RentalShow rental = dfe.getSource();
+        return dfe.<String, UserShow>getDataLoader(UsersByNameLoader.class).load(rental.getUser().getName());
+    }
+
+    @DgsData(parentType = "RentalShow", field = "book")
+    public CompletableFuture<BookShow> rentalBook(DgsDataFetchingEnvironment dfe) {
+        RentalShow rental = dfe.getSource();
+        return dfe.<String, BookShow>getDataLoader(BooksByTitleLoader.class).load(rental.getBook().getTitle());
+    }
+
+    @DgsData(parentType = "UserShow", field = "rentals")
+    public CompletableFuture<List<RentalShow>> userRentals(DgsDataFetchingEnvironment dfe) {
+        UserShow user = dfe.getSource();
+        return dfe.<String, List<RentalShow>>getDataLoader(RentalsByUserLoader.class).load(user.getName())
+                .thenApply(rentals -> rentals != null ? rentals : List.of());
+    }
+
+    @DgsQuery
+    public CursorPage<RentalShow> getRentalsPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException {
+        return rentalService.getRentalsPage(after != null ? UUID.fromString(after) : null, CursorPage.limit(first));
+    }
+
+    @DgsQuery
+    public Connection<RentalShow> rentals(@InputArgument Integer first, @InputArgument String after, @InputArgument RentalFilter filter) throws InterruptedException {
+        Specification<Rental> spec = filter == null ? null : Specification.where(RentalSpecifications.user(filter.user()))
+                .and(RentalSpecifications.book(filter.book()))
+                .and(RentalSpecifications.returned(filter.is_returned()))
+                .and(RentalSpecifications.overdue(filter.is_overdue()))
+                .and(EntitySpecifications.dateBetween("rental_date", Connections.date(filter.rental_from()), Connections.date(filter.rental_to())))
+                .and(EntitySpecifications.dateBetween("due_date", Connections.date(filter.due_from()), Connections.date(filter.due_to())));
+        UUID cursor = Connections.cursor(after);
+        return Connections.of(rentalService.getRentalsPage(spec, cursor, CursorPage.limit(first)), cursor);
     }
 
     @DgsMutation
@@ -1,9 +1,12 @@
 package com.example.musiclibrary.datafetchers;
 
 import com.example.musiclibrary.datafetchers.records.SubmittedRental;
+import com.example.musiclibrary.datafetchers.records.RentalFilter;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.RentalDto;
 import com.example.musiclibrary.dtos.show.RentalShow;
 import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -28,6 +31,12 @@ public interface RentalFetcherApi {
     @Operation(summary = "Получить список всех аренд")
     List<RentalShow> getAllRentals() throws InterruptedException;
 
+    @Operation(summary = "Получить страницу аренд после курсора")
+    CursorPage<RentalShow> getRentalsPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException;
+
+    @Operation(summary = "Получить аренды с курсорной пагинацией и фильтром по пользователю, книге, возврату и датам")
+    Connection<RentalShow> rentals(@InputArgument Integer first, @InputArgument String after, @InputArgument RentalFilter filter) throws InterruptedException;
+
     @Operation(summary = "Создать новую аренду")
     RentalDto addRental(@InputArgument SubmittedRental input) throws InterruptedException;
 
@@ -1,22 +1,37 @@
 package com.example.musiclibrary.datafetchers;
 
+import com.example.musiclibrary.datafetchers.loaders.BooksByTitleLoader;
+import com.example.musiclibrary.datafetchers.loaders.ReservationsByBookLoader;
+import com.example.musiclibrary.datafetchers.loaders.UsersByNameLoader;
+import com.example.musiclibrary.datafetchers.records.ReservationFilter;
 import com.example.musiclibrary.datafetchers.records.SubmittedReservation;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.ReservationDto;
+import com.example.musiclibrary.dtos.show.BookShow;
 import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.ReservationSpecifications;
 import com.example.musiclibrary.services.BookService;
 import com.example.musiclibrary.services.ReservationService;
 import com.example.musiclibrary.services.UserService;
 import com.netflix.graphql.dgs.DgsComponent;
+import com.netflix.graphql.dgs.DgsData;
+import com.netflix.graphql.dgs.DgsDataFetchingEnvironment;
 import com.netflix.graphql.dgs.DgsMutation;
 import com.netflix.graphql.dgs.DgsQuery;
 import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @DgsComponent
 public class ReservationDataFetcher implements ReservationFetcherApi {
@@ -37,7 +52,43 @@ public class ReservationDataFetcher implements ReservationFetcherApi {
 
     @DgsQuery
     public List<ReservationShow> getAllReservations() throws InterruptedException {
-        return reservationService.getAllReservations();
+        // Пользователь и книга приходят ключами и догружаются пачками через DataLoader'ы ниже
+        return reservationService.getAllReservationRefs();
+    }
+
+    @DgsData(parentType = "ReservationShow", field = "user")
+    public CompletableFuture<UserShow> reservationUser(DgsDataFetchingEnvironment dfe) {
+        ReservationShow reservation = dfe.getSource();
+        return dfe.<String, UserShow>getDataLoader(UsersByNameLoader.class).load(reservation.getUser().getName());
+    }
+
+    @DgsData(parentType = "ReservationShow", field = "book")
+    public CompletableFuture<BookShow> reservationBook(DgsDataFetchingEnvironment dfe) {
+        ReservationShow reservation = dfe.getSource();
+        return dfe.<String, BookShow>getDataLoader(BooksByTitleLoader.class).load(reservation.getBook().getTitle());
+    }
+
+    @DgsData(parentType = "BookShow", field = "reservations")
+    public CompletableFuture<List<ReservationShow>> bookReservations(DgsDataFetchingEnvironment dfe) {
+        BookShow book = dfe.getSource();
+        return dfe.<String, List<ReservationShow>>getDataLoader(ReservationsByBookLoader.class).load(book.getTitle())
+                .thenApply(reservations -> reservations != null ? reservations : List.of());
+    }
+
+    @DgsQuery
+    public CursorPage<ReservationShow> getReservationsPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException {
+        return reservationService.getReservationsPage(after != null ? UUID.fromString(after) : null, CursorPage.limit(first));
+    }
+
+    @DgsQuery
+    public Connection<ReservationShow> reservations(@InputArgument Integer first, @InputArgument String after, @InputArgument ReservationFilter filter) throws InterruptedException {
+        Specification<Reservation> spec = filter == null ? null : Specification.where(ReservationSpecifications.user(filter.user()))
+                .and(ReservationSpecifications.book(filter.book()))
+                .and(ReservationSpecifications.active(filter.is_active()))
+                .and(EntitySpecifications.dateBetween("reservation_date", Connections.date(filter.reservation_from()), Connections.date(filter.reservation_to())))
+                .and(EntitySpecifications.dateBetween("expiry_date", Connections.date(filter.expiry_from()), Connections.date(filter.expiry_to())));
+        UUID cursor = Connections.cursor(after);
+        return Connections.of(reservationService.getReservationsPage(spec, cursor, CursorPage.limit(first)), cursor);
     }
 
     @DgsMutation
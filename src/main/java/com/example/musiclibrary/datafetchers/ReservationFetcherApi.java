@@ -1,9 +1,12 @@
 package com.example.musiclibrary.datafetchers;
 
 import com.example.musiclibrary.datafetchers.records.SubmittedReservation;
+import com.example.musiclibrary.datafetchers.records.ReservationFilter;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.ReservationDto;
 import com.example.musiclibrary.dtos.show.ReservationShow;
 import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -28,6 +31,12 @@ public interface ReservationFetcherApi {
     @Operation(summary = "Получить список всех бронирований")
     List<ReservationShow> getAllReservations() throws InterruptedException;
 
+    @Operation(summary = "Получить страницу бронирований после курсора")
+    CursorPage<ReservationShow> getReservationsPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException;
+
+    @Operation(summary = "Получить бронирования с курсорной пагинацией и фильтром по пользователю, книге, активности и датам")
+    Connection<ReservationShow> reservations(@InputArgument Integer first, @InputArgument String after, @InputArgument ReservationFilter filter) throws InterruptedException;
+
     @Operation(summary = "Создать новое бронирование")
     ReservationDto addReservation(@Valid @InputArgument SubmittedReservation input) throws InterruptedException;
 
@@ -1,15 +1,23 @@
 package com.example.musiclibrary.datafetchers;
 import com.example.musiclibrary.datafetchers.records.SubmittedUser;
+import com.example.musiclibrary.datafetchers.records.UserFilter;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.UserDto;
 import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.UserSpecifications;
 import com.example.musiclibrary.services.UserService;
 import com.netflix.graphql.dgs.*;
+import graphql.relay.Connection;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static java.util.Optional.ofNullable;
 
@@ -28,6 +36,17 @@ public class UserDataFetcher implements UserFetcherApi {
     public List<UserShow> getAllUsers() throws InterruptedException {
         return userService.getAllUsers();
     }
+    @DgsQuery
+    public CursorPage<UserShow> getUsersPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException {
+        return userService.getUsersPage(after != null ? UUID.fromString(after) : null, CursorPage.limit(first));
+    }
+    @DgsQuery
+    public Connection<UserShow> users(@InputArgument Integer first, @InputArgument String after, @InputArgument UserFilter filter) throws InterruptedException {
+        Specification<User> spec = filter == null ? null : Specification.where(UserSpecifications.role(filter.role() != null ? User.Role.valueOf(filter.role()) : null))
+                .and(EntitySpecifications.dateBetween("membership_date", Connections.date(filter.membership_from()), Connections.date(filter.membership_to())));
+        UUID cursor = Connections.cursor(after);
+        return Connections.of(userService.getUsersPage(spec, cursor, CursorPage.limit(first)), cursor);
+    }
     @DgsMutation
     public UserDto register(@InputArgument SubmittedUser input) throws InterruptedException {
         UserDto u = new UserDto();
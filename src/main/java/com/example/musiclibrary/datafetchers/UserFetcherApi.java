@@ -1,10 +1,13 @@
 package com.example.musiclibrary.datafetchers;
 
 import com.example.musiclibrary.datafetchers.records.SubmittedUser;
+import com.example.musiclibrary.datafetchers.records.UserFilter;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.UserDto;
 import com.example.musiclibrary.dtos.show.ReservationShow;
 import com.example.musiclibrary.dtos.show.UserShow;
 import com.netflix.graphql.dgs.InputArgument;
+import graphql.relay.Connection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -24,6 +27,12 @@ public interface UserFetcherApi {
     @Operation(summary = "Получить список всех пользователей")
     List<UserShow> getAllUsers() throws InterruptedException;
 
+    @Operation(summary = "Получить страницу пользователей после курсора")
+    CursorPage<UserShow> getUsersPage(@InputArgument String after, @InputArgument Integer first) throws InterruptedException;
+
+    @Operation(summary = "Получить пользователей с курсорной пагинацией и фильтром по роли и дате регистрации")
+    Connection<UserShow> users(@InputArgument Integer first, @InputArgument String after, @InputArgument UserFilter filter) throws InterruptedException;
+
     @Operation(summary = "Создать нового пользователя")
     UserDto register(@Valid @InputArgument SubmittedUser input) throws InterruptedException;
 
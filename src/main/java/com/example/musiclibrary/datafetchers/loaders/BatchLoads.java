@@ -0,0 +1,22 @@
+package com.example.musiclibrary.datafetchers.loaders;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+final class BatchLoads {
+    private BatchLoads() {
+    }
+
+    // Пачка грузится синхронно в потоке диспетчеризации DataLoader'а: запрос к БД один на пачку
+    static <T> CompletionStage<T> load(Callable<T> query) {
+        try {
+            return CompletableFuture.completedFuture(query.call());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
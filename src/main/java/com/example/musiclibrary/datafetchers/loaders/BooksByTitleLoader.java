@@ -0,0 +1,22 @@
+package com.example.musiclibrary.datafetchers.loaders;
+
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.services.BookService;
+import com.netflix.graphql.dgs.DgsDataLoader;
+import org.dataloader.MappedBatchLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+@DgsDataLoader(name = "booksByTitle")
+public class BooksByTitleLoader implements MappedBatchLoader<String, BookShow> {
+    @Autowired
+    private BookService bookService;
+
+    @Override
+    public CompletionStage<Map<String, BookShow>> load(Set<String> titles) {
+        return BatchLoads.load(() -> bookService.findBooks(titles));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.musiclibrary.datafetchers.loaders;
+
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.services.RentalService;
+import com.netflix.graphql.dgs.DgsDataLoader;
+import org.dataloader.MappedBatchLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+@DgsDataLoader(name = "rentalsByUser")
+public class RentalsByUserLoader implements MappedBatchLoader<String, List<RentalShow>> {
+    @Autowired
+    private RentalService rentalService;
+
+    @Override
+    public CompletionStage<Map<String, List<RentalShow>>> load(Set<String> names) {
+        return BatchLoads.load(() -> rentalService.findRentalsByUsers(names));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.musiclibrary.datafetchers.loaders;
+
+import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.services.ReservationService;
+import com.netflix.graphql.dgs.DgsDataLoader;
+import org.dataloader.MappedBatchLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+@DgsDataLoader(name = "reservationsByBook")
+public class ReservationsByBookLoader implements MappedBatchLoader<String, List<ReservationShow>> {
+    @Autowired
+    private ReservationService reservationService;
+
+    @Override
+    public CompletionStage<Map<String, List<ReservationShow>>> load(Set<String> titles) {
+        return BatchLoads.load(() -> reservationService.findReservationsByBooks(titles));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.musiclibrary.datafetchers.loaders;
+
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.services.UserService;
+import com.netflix.graphql.dgs.DgsDataLoader;
+import org.dataloader.MappedBatchLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+@DgsDataLoader(name = "usersByName")
+public class UsersByNameLoader implements MappedBatchLoader<String, UserShow> {
+    @Autowired
+    private UserService userService;
+
+    @Override
+    public CompletionStage<Map<String, UserShow>> load(Set<String> names) {
+        return BatchLoads.load(() -> userService.findUsers(names));
+    }
+}
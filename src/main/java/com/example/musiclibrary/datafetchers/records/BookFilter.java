@@ -0,0 +1,4 @@
+package com.example.musiclibrary.datafetchers.records;
+
+public record BookFilter(String genre, String author) {
+}
@@ -0,0 +1,4 @@
+package com.example.musiclibrary.datafetchers.records;
+
+public record RentalFilter(String user, String book, Boolean is_returned, Boolean is_overdue, String rental_from, String rental_to, String due_from, String due_to) {
+}
@@ -0,0 +1,4 @@
+package com.example.musiclibrary.datafetchers.records;
+
+public record ReservationFilter(String user, String book, Boolean is_active, String reservation_from, String reservation_to, String expiry_from, String expiry_to) {
+}
@@ -0,0 +1,4 @@
+package com.example.musiclibrary.datafetchers.records;
+
+public record UserFilter(String role, String membership_from, String membership_to) {
+}
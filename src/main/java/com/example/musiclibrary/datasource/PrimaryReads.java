@@ -0,0 +1,34 @@
+package com.example.musiclibrary.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Чтения, которые идут в основную БД даже внутри @Transactional(readOnly = true): например, загрузка в общий кэш,
+ * куда нельзя положить данные отстающей реплики. Без реплик ничего не меняет.
+ * Соединение выбирается при первом запросе, поэтому действует на транзакции, ещё не обращавшиеся к БД.
+ */
+public final class PrimaryReads {
+    // Глубина вложенных вызовов call в этом потоке; null - вне call
+    private static final ThreadLocal<Integer> depth = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        Integer outer = depth.get();
+        depth.set(outer == null ? 1 : outer + 1);
+        try {
+            return action.get();
+        } finally {
+            if (outer == null) {
+                depth.remove();
+            } else {
+                depth.set(outer);
+            }
+        }
+    }
+
+    static boolean active() {
+        return depth.get() != null;
+    }
+}
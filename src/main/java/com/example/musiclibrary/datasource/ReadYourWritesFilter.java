@@ -0,0 +1,77 @@
+package com.example.musiclibrary.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes между запросами одного клиента: время последней записи уходит клиенту в cookie
+ * и заголовке X-Library-Written-At, а с его следующими запросами возвращается в ReplicaRoutingDataSource.
+ * Время из будущего урезается до текущего, а старше ttl забывается: к этому моменту его проиграли все реплики,
+ * которые вообще участвуют в выборе.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String HEADER = "X-Library-Written-At";
+    static final String COOKIE = "library-written-at";
+
+    private final ReplicaRoutingDataSource routing;
+    private final long ttlMillis;
+
+    ReadYourWritesFilter(ReplicaRoutingDataSource routing, long ttlMillis) {
+        this.routing = routing;
+        this.ttlMillis = ttlMillis;
+        routing.setWriteListener(this::onWrite);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        Long writtenAt = writtenAt(request);
+        long now = System.currentTimeMillis();
+        if (writtenAt != null && writtenAt > now - ttlMillis) {
+            routing.requireWrittenAt(Math.min(writtenAt, now));
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            routing.reset();
+        }
+    }
+
+    private static Long writtenAt(HttpServletRequest request) {
+        String value = request.getHeader(HEADER);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        try {
+            return value != null ? Long.parseLong(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Коммит идёт до записи тела ответа, поэтому заголовки ещё можно менять
+    private void onWrite(long writtenAt) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null && !response.isCommitted()) {
+                response.setHeader(HEADER, Long.toString(writtenAt));
+                Cookie cookie = new Cookie(COOKIE, Long.toString(writtenAt));
+                cookie.setPath("/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge((int) Math.ceil(ttlMillis / 1000.0));
+                response.addCookie(cookie);
+            }
+        }
+    }
+}
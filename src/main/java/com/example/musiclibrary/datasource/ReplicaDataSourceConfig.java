@@ -0,0 +1,91 @@
+package com.example.musiclibrary.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Основная БД и реплики для чтения, включается свойством library.datasource.replica.urls.
+ * Пул основной БД настраивается как обычно (spring.datasource.*, spring.datasource.hikari.*),
+ * реплики берут у него имя пользователя и пароль, если свои не заданы.
+ * Hibernate отдаёт соединение после каждой транзакции: иначе при open-in-view первое соединение запроса
+ * (например, с реплики) держалось бы до его конца, и следующая пишущая транзакция пошла бы туда же.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+    static final PhysicalConnectionHandlingMode CONNECTION_HANDLING = PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION;
+
+    @Value("${library.datasource.replica.urls}")
+    private List<String> urls;
+    @Value("${library.datasource.replica.username:${spring.datasource.username:}}")
+    private String username;
+    @Value("${library.datasource.replica.password:${spring.datasource.password:}}")
+    private String password;
+    @Value("${library.datasource.replica.pool-size:10}")
+    private int poolSize;
+    @Value("${library.datasource.replica.max-lag-ms:5000}")
+    private long maxLagMillis;
+    @Value("${library.datasource.replica.lag-check-interval-ms:1000}")
+    private long lagCheckIntervalMillis;
+
+    @Bean
+    HibernatePropertiesCustomizer connectionPerTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING, CONNECTION_HANDLING);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties, MeterRegistry meterRegistry) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReplicaRoutingDataSource.Replica(replica.getPoolName(), replica));
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMillis, meterRegistry);
+        routing.checkLag();
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // Запись, которой больше max-lag-ms + интервал проверки, проиграли все реплики, допущенные к чтению
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReadYourWritesFilter(replicaRoutingDataSource, maxLagMillis + lagCheckIntervalMillis);
+    }
+}
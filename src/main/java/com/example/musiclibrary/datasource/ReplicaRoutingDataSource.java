@@ -0,0 +1,181 @@
+package com.example.musiclibrary.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Соединения для @Transactional(readOnly = true) берутся из реплик, остальные - из основной БД.
+ * Реплика участвует в выборе, пока её отставание, измеренное checkLag, не больше maxLagMillis;
+ * если подходящих реплик нет, чтение идёт в основную БД. Чтения внутри PrimaryReads всегда идут в основную БД.
+ * Ключ выбирается при получении физического соединения, поэтому снаружи нужен LazyConnectionDataSourceProxy,
+ * а Hibernate должен отдавать соединение после каждой транзакции (см. ReplicaDataSourceConfig).
+ * <p>
+ * Read-your-writes: после коммита пишущей транзакции поток запоминает время записи, и чтения в нём идут
+ * только в реплики, проигравшие журнал дальше этого момента. Между запросами время передаёт ReadYourWritesFilter.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    static final String PRIMARY = "primary";
+    // Отставание реплики: 0, если она проиграла всё полученное (или это не реплика), иначе возраст последней проигранной транзакции
+    private static final String LAG_QUERY = "select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else coalesce((extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000)::bigint, 0) end";
+
+    /**
+     * Пул реплики, её последнее измеренное отставание (Long.MAX_VALUE - реплика недоступна)
+     * и момент, до которого реплика проиграла журнал: время проверки минус отставание.
+     */
+    static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile long lagMillis = Long.MAX_VALUE;
+        volatile long replayedUpTo = Long.MIN_VALUE;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    // Время (мс) последней записи, которую должны видеть чтения этого потока
+    private final ThreadLocal<Long> writtenAt = new ThreadLocal<>();
+    // Теги target не пересекаются: fallback - чтения, ушедшие в основную БД без подходящей реплики, в primary они не входят
+    private final Counter toPrimary;
+    private final Counter toReplica;
+    private final Counter fallbacks;
+    private volatile LongConsumer writeListener = t -> { };
+
+    ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long maxLagMillis, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.maxLagMillis = maxLagMillis;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : replicas) {
+            targets.put(replica.name, replica.dataSource);
+            Gauge.builder("library.datasource.replica.lag", replica, r -> r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis)
+                    .tag("replica", replica.name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        toPrimary = meterRegistry.counter("library.datasource.routed", "target", "primary");
+        toReplica = meterRegistry.counter("library.datasource.routed", "target", "replica");
+        fallbacks = meterRegistry.counter("library.datasource.routed", "target", "fallback");
+    }
+
+    /**
+     * Вызывается после коммита каждой пишущей транзакции с её временем; через него ReadYourWritesFilter отдаёт время клиенту.
+     */
+    void setWriteListener(LongConsumer writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * Чтения в этом потоке должны видеть записи, зафиксированные до writtenAtMillis.
+     */
+    public void requireWrittenAt(long writtenAtMillis) {
+        Long current = writtenAt.get();
+        if (current == null || current < writtenAtMillis) {
+            writtenAt.set(writtenAtMillis);
+        }
+    }
+
+    public Long writtenAt() {
+        return writtenAt.get();
+    }
+
+    public void reset() {
+        writtenAt.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PrimaryReads.active()) {
+            Replica replica = pick(writtenAt.get());
+            if (replica != null) {
+                toReplica.increment();
+                return replica.name;
+            }
+            fallbacks.increment();
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && TransactionSynchronizationManager.isActualTransactionActive() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    long now = System.currentTimeMillis();
+                    requireWrittenAt(now);
+                    writeListener.accept(now);
+                }
+            });
+        }
+        toPrimary.increment();
+        return PRIMARY;
+    }
+
+    // По кругу среди реплик с допустимым отставанием, уже проигравших записи этого потока
+    private Replica pick(Long written) {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.lagMillis <= maxLagMillis && (written == null || replica.replayedUpTo > written)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Измеряет отставание всех реплик; недоступная реплика исключается до следующей успешной проверки.
+     */
+    @Scheduled(fixedDelayString = "${library.datasource.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            long previous = replica.lagMillis;
+            long checkedAt = System.currentTimeMillis();
+            try {
+                Long lag = new JdbcTemplate(replica.dataSource).queryForObject(LAG_QUERY, Long.class);
+                replica.lagMillis = lag != null ? lag : 0;
+                replica.replayedUpTo = checkedAt - replica.lagMillis;
+            } catch (RuntimeException e) {
+                replica.lagMillis = Long.MAX_VALUE;
+                if (previous != Long.MAX_VALUE) {
+                    log.warn("Реплика {} недоступна, чтение идёт в основную БД: {}", replica.name, e.getMessage());
+                }
+                continue;
+            }
+            if (previous <= maxLagMillis && replica.lagMillis > maxLagMillis) {
+                log.warn("Реплика {} отстаёт на {} мс, чтение идёт в другие реплики или основную БД", replica.name, replica.lagMillis);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.musiclibrary.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Состояние индекса автодополнения: объём, оценка занимаемой памяти и длительность последней перестройки.
+ */
+public record AutocompleteStats(int documents, int terms, int pendingChanges, long memoryBytes,
+                                long lastRebuildMillis, LocalDateTime builtAt) {
+}
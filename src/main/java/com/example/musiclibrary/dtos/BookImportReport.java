@@ -0,0 +1,12 @@
+package com.example.musiclibrary.dtos;
+
+import java.util.List;
+
+/**
+ * Ход и итог загрузки каталога: rows — прочитано записей, из них imported добавлено,
+ * duplicates пропущено из-за уже существующего названия, invalid не прошло проверку
+ * (первые ошибки с номерами записей — в errors).
+ */
+public record BookImportReport(long rows, long imported, long duplicates, long invalid, List<String> errors,
+                               long elapsedMillis, long rowsPerSecond) {
+}
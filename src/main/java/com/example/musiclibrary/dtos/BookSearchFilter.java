@@ -0,0 +1,7 @@
+package com.example.musiclibrary.dtos;
+
+/**
+ * Фильтры поиска по каталогу; пустые поля не применяются, годы включительно.
+ */
+public record BookSearchFilter(String genre, String publisher, String author, Integer yearFrom, Integer yearTo) {
+}
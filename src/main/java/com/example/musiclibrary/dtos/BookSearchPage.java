@@ -0,0 +1,69 @@
+package com.example.musiclibrary.dtos;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.repositories.projections.FacetCount;
+import java.util.List;
+public class BookSearchPage {
+    private List<BookShow> items;
+    private long total;
+    private int page;
+    private int size;
+    private List<FacetCount> genres;
+    private List<FacetCount> publishers;
+    private List<FacetCount> years;
+    public BookSearchPage(List<BookShow> items, long total, int page, int size, List<FacetCount> genres, List<FacetCount> publishers, List<FacetCount> years) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.genres = genres;
+        this.publishers = publishers;
+        this.years = years;
+    }
+    public BookSearchPage() {
+    }
+    public List<BookShow> getItems() {
+        return items;
+    }
+    public void setItems(List<BookShow> items) {
+        this.items = items;
+    }
+    public long getTotal() {
+        return total;
+    }
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    public int getPage() {
+        return page;
+    }
+    public void setPage(int page) {
+        this.page = page;
+    }
+    public int getSize() {
+        return size;
+    }
+    public void setSize(int size) {
+        this.size = size;
+    }
+    public List<FacetCount> getGenres() {
+        return genres;
+    }
+    public void setGenres(List<FacetCount> genres) {
+        this.genres = genres;
+    }
+    public List<FacetCount> getPublishers() {
+        return publishers;
+    }
+    public void setPublishers(List<FacetCount> publishers) {
+        this.publishers = publishers;
+    }
+    public List<FacetCount> getYears() {
+        return years;
+    }
+    public void setYears(List<FacetCount> years) {
+        this.years = years;
+    }
+    public boolean isHasNext() {
+        return (long) (page + 1) * size < total;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.musiclibrary.dtos;
+
+public record BookSuggestion(String title, String author) {
+}
@@ -0,0 +1,66 @@
+package com.example.musiclibrary.dtos;
+import com.example.musiclibrary.models.BaseEntity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 1000;
+    private List<T> items;
+    private UUID nextCursor;
+    private List<UUID> cursors;
+    public CursorPage(List<T> items, UUID nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    public CursorPage() {
+    }
+    /**
+     * Собирает страницу из строк, выбранных с запасом в одну запись (limit + 1):
+     * лишняя запись означает, что следующая страница существует.
+     */
+    public static <E extends BaseEntity, T> CursorPage<T> of(List<E> rows, int limit, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > limit;
+        List<E> page = hasNext ? rows.subList(0, limit) : rows;
+        UUID next = hasNext ? page.get(page.size() - 1).getId() : null;
+        CursorPage<T> result = new CursorPage<>(page.stream().map(mapper).collect(Collectors.toList()), next);
+        result.cursors = page.stream().map(BaseEntity::getId).collect(Collectors.toList());
+        return result;
+    }
+    public static int limit(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+    public List<T> getItems() {
+        return items;
+    }
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+    public UUID getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(UUID nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    /**
+     * Курсоры (id) каждой записи страницы, если страница собрана через {@link #of}; нужны для рёбер Relay.
+     */
+    @JsonIgnore
+    public List<UUID> getCursors() {
+        return cursors;
+    }
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+    @Override
+    public String toString() {
+        return "Page {" +
+                "items: " + items + ", " +
+                "next_cursor: " + nextCursor + "}";
+    }
+}
@@ -13,6 +13,7 @@ public class RentalDto extends RepresentationModel<RentalDto> {
     private LocalDate return_date;
     private Integer extended_times;
     private Boolean is_returned;
+    private Boolean is_overdue;
     private LocalDateTime created;
     private LocalDateTime modified;
     public RentalDto(UserDto user, BookDto book, LocalDate rental_date, LocalDate due_date, LocalDate return_date, Integer extended_times, Boolean is_returned) {
@@ -75,6 +76,12 @@ public class RentalDto extends RepresentationModel<RentalDto> {
     public void setIs_returned(Boolean is_returned) {
         this.is_returned = is_returned;
     }
+    public Boolean getIs_overdue() {
+        return is_overdue;
+    }
+    public void setIs_overdue(Boolean is_overdue) {
+        this.is_overdue = is_overdue;
+    }
     public LocalDateTime getCreated() {
         return created;
     }
@@ -98,6 +105,7 @@ public class RentalDto extends RepresentationModel<RentalDto> {
                 "return_date: " + return_date + ",\n" +
                 "extended_times: " + extended_times + ",\n" +
                 "is_returned: " + is_returned + ",\n" +
+                "is_overdue: " + is_overdue + ",\n" +
                 "created: " + created + ",\n" +
                 "modified: " + modified + ",\n}";
     }
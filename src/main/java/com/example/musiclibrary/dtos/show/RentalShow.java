@@ -15,16 +15,18 @@ public class RentalShow extends RepresentationModel<RentalShow> {
     private LocalDate return_date;
     private Integer extended_times;
     private Boolean is_returned;
+    private Boolean is_overdue;
     private List<ActionDto> actions;
     private UserShow user;
     private BookShow book;
-    public RentalShow(UUID id, LocalDate rental_date, LocalDate due_date, LocalDate return_date, Integer extended_times, Boolean is_returned, UserShow user, BookShow book) {
+    public RentalShow(UUID id, LocalDate rental_date, LocalDate due_date, LocalDate return_date, Integer extended_times, Boolean is_returned, Boolean is_overdue, UserShow user, BookShow book) {
         this.id = id;
         this.rental_date = rental_date;
         this.due_date = due_date;
         this.return_date = return_date;
         this.extended_times = extended_times;
         this.is_returned = is_returned;
+        this.is_overdue = is_overdue;
         this.user = user;
         this.book = book;
     }
@@ -71,6 +73,12 @@ public class RentalShow extends RepresentationModel<RentalShow> {
     public void setIs_returned(Boolean is_returned) {
         this.is_returned = is_returned;
     }
+    public Boolean getIs_overdue() {
+        return is_overdue;
+    }
+    public void setIs_overdue(Boolean is_overdue) {
+        this.is_overdue = is_overdue;
+    }
     @Override
     public String toString() {
         return "Rental {\n" +
@@ -80,7 +88,8 @@ public class RentalShow extends RepresentationModel<RentalShow> {
                 "due_date: " + due_date + ",\n" +
                 "return_date: " + return_date + ",\n" +
                 "extended_times: " + extended_times + ",\n" +
-                "is_returned: " + is_returned + ",\n}";
+                "is_returned: " + is_returned + ",\n" +
+                "is_overdue: " + is_overdue + ",\n}";
     }
 
     public UUID getId() {
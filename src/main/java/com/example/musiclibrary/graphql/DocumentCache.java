@@ -0,0 +1,80 @@
+package com.example.musiclibrary.graphql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Кэш разобранных и провалидированных документов. Повторный запрос не проходит parse и validate.
+ * Поддерживает automatic persisted queries (протокол Apollo): клиент присылает sha256Hash в
+ * extensions.persistedQuery, текст запроса нужен только при первом обращении.
+ */
+class DocumentCache implements PreparsedDocumentProvider {
+    private final Cache<String, PreparsedDocumentEntry> byQuery;
+    private final Cache<String, PreparsedDocumentEntry> byHash;
+
+    DocumentCache(long maxSize, MeterRegistry meterRegistry) {
+        this.byQuery = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.byHash = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byQuery, "graphql.documents");
+        CaffeineCacheMetrics.monitor(meterRegistry, byHash, "graphql.persisted-queries");
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+                                                                      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        String hash = persistedQueryHash(executionInput);
+        if (hash == null) {
+            return CompletableFuture.completedFuture(byQuery.get(executionInput.getQuery(), q -> parseAndValidateFunction.apply(executionInput)));
+        }
+        String query = executionInput.getQuery();
+        if (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+            PreparsedDocumentEntry cached = byHash.getIfPresent(hash);
+            return CompletableFuture.completedFuture(cached != null ? cached : new PreparsedDocumentEntry(error("PersistedQueryNotFound", hash)));
+        }
+        if (!hash.equalsIgnoreCase(sha256(query))) {
+            return CompletableFuture.completedFuture(new PreparsedDocumentEntry(error("PersistedQueryIdInvalid", hash)));
+        }
+        return CompletableFuture.completedFuture(byHash.get(hash.toLowerCase(), h -> byQuery.get(query, q -> parseAndValidateFunction.apply(executionInput))));
+    }
+
+    private static String persistedQueryHash(ExecutionInput executionInput) {
+        Map<String, Object> extensions = executionInput.getExtensions();
+        if (extensions != null && extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get("sha256Hash") instanceof String hash && !hash.isBlank()) {
+            return hash.toLowerCase();
+        }
+        return null;
+    }
+
+    private static GraphQLError error(String message, String hash) {
+        return GraphqlErrorBuilder.newError()
+                .message(message)
+                .extensions(Map.of("persistedQueryId", hash))
+                .build();
+    }
+
+    private static String sha256(String query) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.musiclibrary.graphql;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Ограничения и кэш документов для DGS: все Instrumentation-бины DGS собирает в цепочку сам.
+ */
+@Configuration
+public class GraphQLConfig {
+    @Value("${library.graphql.max-depth:10}")
+    private int maxDepth;
+    @Value("${library.graphql.max-complexity:20000}")
+    private int maxComplexity;
+    @Value("${library.graphql.list-size:100}")
+    private int listSize;
+    @Value("${library.graphql.document-cache-size:1000}")
+    private long documentCacheSize;
+    @Value("${library.graphql.timed-operations:}")
+    private Set<String> timedOperations;
+
+    @Bean
+    Instrumentation maxQueryDepthInstrumentation() {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    @Bean
+    Instrumentation maxQueryComplexityInstrumentation() {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, new QueryCostCalculator(listSize, maxComplexity));
+    }
+
+    @Bean
+    Instrumentation operationTimingInstrumentation(MeterRegistry meterRegistry) {
+        return new OperationTimingInstrumentation(meterRegistry, timedOperations);
+    }
+
+    @Bean
+    PreparsedDocumentProvider preparsedDocumentProvider(MeterRegistry meterRegistry) {
+        return new DocumentCache(documentCacheSize, meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.musiclibrary.graphql;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.validation.ValidationError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Время фаз parse/validate/execute в метрике graphql.operation с тегами phase и operation.
+ * Для документов из DocumentCache фаз parse и validate нет, поэтому они и не замеряются.
+ * Имя операции задаёт клиент, поэтому в тег попадает только имя выполненной операции из
+ * library.graphql.timed-operations, остальные — как other; у parse и validate тег всегда all.
+ */
+class OperationTimingInstrumentation extends SimplePerformantInstrumentation {
+    static final String ANONYMOUS = "anonymous";
+    static final String OTHER = "other";
+    static final String ALL = "all";
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> timedOperations;
+
+    OperationTimingInstrumentation(MeterRegistry meterRegistry, Set<String> timedOperations) {
+        this.meterRegistry = meterRegistry;
+        this.timedOperations = Set.copyOf(timedOperations);
+    }
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters, InstrumentationState state) {
+        return timed("parse", ALL);
+    }
+
+    @Override
+    public InstrumentationContext<List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters, InstrumentationState state) {
+        return timed("validate", ALL);
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        return timed("execute", operationTag(parameters.getExecutionContext().getOperationDefinition().getName()));
+    }
+
+    private String operationTag(String operation) {
+        if (operation == null) {
+            return ANONYMOUS;
+        }
+        return timedOperations.contains(operation) ? operation : OTHER;
+    }
+
+    private <T> InstrumentationContext<T> timed(String phase, String operation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return SimpleInstrumentationContext.whenCompleted((result, error) -> sample.stop(Timer.builder("graphql.operation")
+                .tag("phase", phase)
+                .tag("operation", operation)
+                .tag("outcome", error == null ? "success" : "error")
+                .register(meterRegistry)));
+    }
+}
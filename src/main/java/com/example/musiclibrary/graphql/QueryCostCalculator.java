@@ -0,0 +1,48 @@
+package com.example.musiclibrary.graphql;
+
+import com.example.musiclibrary.dtos.CursorPage;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+
+/**
+ * Стоимость поля: 1 плюс стоимость вложенных полей, умноженная на число элементов.
+ * Для соединений и страниц число элементов берётся из аргумента first (с теми же пределами, что у CursorPage),
+ * для списков без аргументов — из library.graphql.list-size.
+ * Стоимость считается в long и обрезается сверху значением maxComplexity + 1: graphql-java складывает стоимости
+ * соседних полей в int, и без потолка вложенные first переполняли сумму до отрицательной, проходящей лимит.
+ */
+class QueryCostCalculator implements FieldComplexityCalculator {
+    private final int listSize;
+    private final int ceiling;
+
+    QueryCostCalculator(int listSize, int maxComplexity) {
+        this.listSize = listSize;
+        this.ceiling = (int) Math.min((long) maxComplexity + 1, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int calculate(FieldComplexityEnvironment environment, int childComplexity) {
+        // Отрицательная сумма вложенных полей — уже переполнение в graphql-java
+        if (childComplexity < 0) {
+            return ceiling;
+        }
+        long cost = 1 + (long) size(environment) * childComplexity;
+        return (int) Math.min(cost, ceiling);
+    }
+
+    private int size(FieldComplexityEnvironment environment) {
+        if (environment.getFieldDefinition().getArgument("first") != null) {
+            return CursorPage.limit((Integer) environment.getArguments().get("first"));
+        }
+        // Рёбра соединения и элементы страницы уже учтены через first у поля-владельца
+        if (environment.getParentType() instanceof GraphQLNamedType parent
+                && (parent.getName().endsWith("Connection") || parent.getName().endsWith("Page"))) {
+            return 1;
+        }
+        GraphQLType type = GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType());
+        return GraphQLTypeUtil.isList(type) ? listSize : 1;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.musiclibrary.grpc;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.InventoryService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пачка заявок «пользователь — книга» для аренды и бронирования.
+ * Пользователи и книги загружаются одним запросом на пачку, копии списываются одной операцией на книгу;
+ * заявки одной книги получают копии в порядке поступления.
+ */
+final class BatchCheckout {
+    /**
+     * Заявка после распределения: user или book null, если не найдены; granted — копия списана.
+     */
+    record Line(String userName, String bookTitle, User user, Book book, boolean granted) {
+        String message() {
+            if (user == null) {
+                return "Пользователь не найден";
+            }
+            if (book == null) {
+                return "Книга не найдена";
+            }
+            return granted ? null : "Нет доступных копий";
+        }
+    }
+
+    private BatchCheckout() {
+    }
+
+    /**
+     * Вызывается в транзакции: если сохранение пачки не удастся, списанные копии откатятся вместе с ней.
+     */
+    static <Q> List<Line> allocate(List<Q> requests, Function<Q, String> userName, Function<Q, String> bookTitle,
+                                   UserRepository userRepository, BookRepository bookRepository, InventoryService inventoryService) {
+        Set<String> names = requests.stream().map(userName).collect(Collectors.toSet());
+        Set<String> titles = requests.stream().map(bookTitle).collect(Collectors.toSet());
+        Map<String, User> users = userRepository.findByNameIn(names).stream().collect(Collectors.toMap(User::getName, u -> u));
+        Map<String, Book> books = bookRepository.findByTitleIn(titles).stream().collect(Collectors.toMap(Book::getTitle, b -> b));
+
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        for (Q request : requests) {
+            if (users.containsKey(userName.apply(request)) && books.containsKey(bookTitle.apply(request))) {
+                wanted.merge(bookTitle.apply(request), 1, Integer::sum);
+            }
+        }
+        Map<String, Integer> granted = new HashMap<>();
+        wanted.forEach((title, count) -> granted.put(title, inventoryService.acquireCopies(books.get(title), count)));
+
+        List<Line> lines = new ArrayList<>(requests.size());
+        for (Q request : requests) {
+            String name = userName.apply(request);
+            String title = bookTitle.apply(request);
+            User user = users.get(name);
+            Book book = books.get(title);
+            boolean copy = false;
+            if (user != null && book != null) {
+                int left = granted.get(title);
+                copy = left > 0;
+                granted.put(title, left - 1);
+            }
+            lines.add(new Line(name, title, user, book, copy));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.musiclibrary.grpc;
+
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Приём потока заявок пачками: каждые batchSize заявок (и остаток в конце потока) обрабатываются одним вызовом,
+ * ответы отправляются клиенту в порядке заявок сразу после обработки пачки.
+ * Если клиент оборвал поток, уже обработанные пачки остаются, необработанный остаток отбрасывается.
+ */
+final class BatchingObserver<Q, R> implements StreamObserver<Q> {
+    private final int batchSize;
+    private final Function<List<Q>, List<R>> handler;
+    private final StreamObserver<R> responseObserver;
+    private List<Q> buffer;
+
+    BatchingObserver(int batchSize, Function<List<Q>, List<R>> handler, StreamObserver<R> responseObserver) {
+        this.batchSize = batchSize;
+        this.handler = handler;
+        this.responseObserver = responseObserver;
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void onNext(Q request) {
+        buffer.add(request);
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        buffer.clear();
+    }
+
+    @Override
+    public void onCompleted() {
+        if (!buffer.isEmpty()) {
+            flush();
+        }
+        responseObserver.onCompleted();
+    }
+
+    private void flush() {
+        List<Q> batch = buffer;
+        buffer = new ArrayList<>(batchSize);
+        handler.apply(batch).forEach(responseObserver::onNext);
+    }
+}
@@ -1,13 +1,25 @@
 package com.example.musiclibrary.grpc;
 
 import com.example.musiclibrary.*;
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.models.Book;
 import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.projections.BookSearchHits;
+import com.example.musiclibrary.repositories.projections.FacetCount;
+import com.example.musiclibrary.repositories.specifications.BookSpecifications;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service("bookServiceImplGrpc")
@@ -22,17 +34,7 @@ public class BookServiceImpl extends BookServiceGrpc.BookServiceImplBase {
     public void findBook(BookTitleRequest request, StreamObserver<BookResponse> responseObserver) {
         Optional<Book> bookOptional = bookRepository.findByTitle(request.getTitle());
         if (bookOptional.isPresent()) {
-            var book = bookOptional.get();
-            BookResponse response = BookResponse.newBuilder()
-                    .setTitle(book.getTitle() != null ? book.getTitle() : "null")
-                    .setAuthor(book.getAuthor() != null ? book.getAuthor() : "null")
-                    .setPublisher(book.getPublisher() != null ? book.getPublisher() : "null")
-                    .setPublicationYear(book.getPublication_year() != null ? book.getPublication_year() : null)
-                    .setGenre(book.getGenre() != null ? book.getGenre() : "null")
-                    .setDescription(book.getDescription() != null ? book.getDescription() : "null")
-                    .setAvailableCopies(Optional.ofNullable(book.getAvailable_copies()).orElse(0))
-                    .build();
-            responseObserver.onNext(response);
+            responseObserver.onNext(toResponse(bookOptional.get()));
         } else {
             responseObserver.onError(Status.NOT_FOUND
                     .withDescription("Книга под названием " + request.getTitle() + " не найдена")
@@ -45,15 +47,7 @@ public class BookServiceImpl extends BookServiceGrpc.BookServiceImplBase {
     public void getAllBooks(EmptyRequest request, StreamObserver<BookListResponse> responseObserver) {
         List<Book> books = bookRepository.findAll();
         List<BookResponse> bookResponses = books.stream()
-                .map(book -> BookResponse.newBuilder()
-                        .setTitle(book.getTitle() != null ? book.getTitle() : "null")
-                        .setAuthor(book.getAuthor() != null ? book.getAuthor() : "null")
-                        .setPublisher(book.getPublisher() != null ? book.getPublisher() : "null")
-                        .setPublicationYear(book.getPublication_year() != null ? book.getPublication_year() : null)
-                        .setGenre(book.getGenre() != null ? book.getGenre() : "null")
-                        .setDescription(book.getDescription() != null ? book.getDescription() : "null")
-                        .setAvailableCopies(Optional.ofNullable(book.getAvailable_copies()).orElse(0))
-                        .build())
+                .map(BookServiceImpl::toResponse)
                 .collect(Collectors.toList());
 
         BookListResponse response = BookListResponse.newBuilder()
@@ -63,4 +57,85 @@ public class BookServiceImpl extends BookServiceGrpc.BookServiceImplBase {
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void getBooksPage(PageRequest request, StreamObserver<BookListResponse> responseObserver) {
+        UUID after;
+        try {
+            after = PageRequests.after(request);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Некорректный формат курсора (UUID): " + request.getAfter())
+                    .asRuntimeException());
+            return;
+        }
+        int limit = CursorPage.limit(request.getPageSize());
+        List<Book> books = after == null
+                ? bookRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : bookRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        CursorPage<BookResponse> page = CursorPage.of(books, limit, BookServiceImpl::toResponse);
+
+        BookListResponse response = BookListResponse.newBuilder()
+                .addAllBooks(page.getItems())
+                .setNextCursor(PageRequests.cursor(page))
+                .build();
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void streamBooks(BookStreamRequest request, StreamObserver<BookResponse> responseObserver) {
+        int pageSize = CursorPage.limit(request.getPageSize());
+        Specification<Book> filter = Specification.where(BookSpecifications.genre(request.getGenre()))
+                .and(BookSpecifications.author(request.getAuthor()));
+        KeysetStreamer.stream(responseObserver, pageSize,
+                after -> bookRepository.findBy(filter.and(EntitySpecifications.idAfter(after)),
+                        q -> q.sortBy(Sort.by("id")).limit(pageSize).all()),
+                BookServiceImpl::toResponse);
+    }
+
+    @Override
+    public void searchBooks(BookSearchRequest request, StreamObserver<BookSearchResponse> responseObserver) {
+        int pageSize = CursorPage.limit(request.getPageSize());
+        BookSearchFilter filter = new BookSearchFilter(request.getGenre(), request.getPublisher(), request.getAuthor(),
+                request.getYearFrom() != 0 ? request.getYearFrom() : null,
+                request.getYearTo() != 0 ? request.getYearTo() : null);
+        BookSearchHits hits = bookRepository.search(request.getQuery(), filter, (long) Math.max(request.getPage(), 0) * pageSize, pageSize);
+        Map<UUID, Book> books = hits.ids().isEmpty() ? Map.of() : bookRepository.findAllWithUserByIdIn(hits.ids()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        BookSearchResponse.Builder response = BookSearchResponse.newBuilder().setTotal(hits.total());
+        for (UUID id : hits.ids()) {
+            Book book = books.get(id);
+            if (book != null) {
+                response.addBooks(toResponse(book));
+            }
+        }
+        hits.genres().forEach(f -> response.addGenres(toFacet(f)));
+        hits.publishers().forEach(f -> response.addPublishers(toFacet(f)));
+        hits.years().forEach(f -> response.addYears(toFacet(f)));
+
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    private static SearchFacet toFacet(FacetCount facet) {
+        return SearchFacet.newBuilder()
+                .setValue(facet.value() != null ? facet.value() : "null")
+                .setCount(facet.count())
+                .build();
+    }
+
+    static BookResponse toResponse(Book book) {
+        return BookResponse.newBuilder()
+                .setTitle(book.getTitle() != null ? book.getTitle() : "null")
+                .setAuthor(book.getAuthor() != null ? book.getAuthor() : "null")
+                .setPublisher(book.getPublisher() != null ? book.getPublisher() : "null")
+                .setPublicationYear(book.getPublication_year() != null ? book.getPublication_year() : 0)
+                .setGenre(book.getGenre() != null ? book.getGenre() : "null")
+                .setDescription(book.getDescription() != null ? book.getDescription() : "null")
+                .setAvailableCopies(Optional.ofNullable(book.getAvailable_copies()).orElse(0))
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.musiclibrary.grpc;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничение одновременных вызовов на весь сервер (library.grpc.max-concurrent-calls), в отличие от
+ * max-concurrent-calls-per-connection, которое действует на одно соединение. Вызов сверх лимита сразу
+ * закрывается с RESOURCE_EXHAUSTED и считается в grpc.server.rejected; разрешение возвращается при завершении или отмене.
+ */
+class GrpcConcurrencyLimitInterceptor implements ServerInterceptor {
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    GrpcConcurrencyLimitInterceptor(int maxConcurrentCalls, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.rejected = meterRegistry.counter("grpc.server.rejected");
+        Gauge.builder("grpc.server.permits.available", permits, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    @Override
+    public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers, ServerCallHandler<Q, R> next) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("сервер перегружен, повторите запрос позже"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        ServerCall.Listener<Q> listener;
+        try {
+            listener = next.startCall(call, headers);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    release.run();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+    }
+}
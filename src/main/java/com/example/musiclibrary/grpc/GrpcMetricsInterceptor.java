@@ -0,0 +1,90 @@
+package com.example.musiclibrary.grpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики вызовов gRPC по методам: grpc.server.calls — гистограмма длительности с тегами method и status,
+ * grpc.server.in.flight — число начатых и ещё не завершённых вызовов.
+ * Вызов завершается при close или при отмене клиентом (тогда status CANCELLED).
+ */
+class GrpcMetricsInterceptor implements ServerInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    GrpcMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers, ServerCallHandler<Q, R> next) {
+        String method = call.getMethodDescriptor().getFullMethodName();
+        AtomicInteger running = inFlight.computeIfAbsent(method, m -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("grpc.server.in.flight", counter, AtomicInteger::get)
+                    .tag("method", m)
+                    .register(meterRegistry);
+            return counter;
+        });
+        MeasuredCall<Q, R> measured = new MeasuredCall<>(call, method, running);
+        ServerCall.Listener<Q> listener;
+        try {
+            listener = next.startCall(measured, headers);
+        } catch (RuntimeException e) {
+            measured.finish(Status.Code.UNKNOWN);
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                measured.finish(Status.Code.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+
+    private final class MeasuredCall<Q, R> extends ForwardingServerCall.SimpleForwardingServerCall<Q, R> {
+        private final String method;
+        private final AtomicInteger running;
+        private final Timer.Sample sample;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        MeasuredCall(ServerCall<Q, R> call, String method, AtomicInteger running) {
+            super(call);
+            this.method = method;
+            this.running = running;
+            running.incrementAndGet();
+            this.sample = Timer.start(meterRegistry);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            finish(status.getCode());
+            super.close(status, trailers);
+        }
+
+        void finish(Status.Code code) {
+            if (finished.compareAndSet(false, true)) {
+                running.decrementAndGet();
+                sample.stop(Timer.builder("grpc.server.calls")
+                        .tag("method", method)
+                        .tag("status", code.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        }
+    }
+}
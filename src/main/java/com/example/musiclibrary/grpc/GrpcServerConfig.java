@@ -1,12 +1,26 @@
 package com.example.musiclibrary.grpc;
 
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.context.annotation.Configuration;
-import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * gRPC-сервер на Netty, настройки в library.grpc.*.
+ */
 @Configuration
 public class GrpcServerConfig {
     @Autowired
@@ -17,15 +31,77 @@ public class GrpcServerConfig {
     private RentalServiceImpl rentalService;
     @Autowired
     private ReservationServiceImpl reservationService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    @Value("${library.grpc.port:9090}")
+    private int port;
+    @Value("${library.grpc.executor-threads:64}")
+    private int executorThreads;
+    @Value("${library.grpc.max-concurrent-calls:512}")
+    private int maxConcurrentCalls;
+    @Value("${library.grpc.max-concurrent-calls-per-connection:256}")
+    private int maxConcurrentCallsPerConnection;
+    @Value("${library.grpc.max-inbound-message-size:4194304}")
+    private int maxInboundMessageSize;
+    @Value("${library.grpc.flow-control-window:0}")
+    private int flowControlWindow;
+    @Value("${library.grpc.keepalive-time-seconds:60}")
+    private long keepAliveTimeSeconds;
+    @Value("${library.grpc.keepalive-timeout-seconds:20}")
+    private long keepAliveTimeoutSeconds;
+    @Value("${library.grpc.permit-keepalive-time-seconds:30}")
+    private long permitKeepAliveTimeSeconds;
+    @Value("${library.grpc.max-connection-idle-seconds:600}")
+    private long maxConnectionIdleSeconds;
+    @Value("${library.grpc.shutdown-drain-seconds:20}")
+    private long shutdownDrainSeconds;
+
+    /**
+     * Потоки для вызовов: виртуальный поток на вызов или фиксированный пул.
+     * Принятых вызовов не больше max-concurrent-calls на весь сервер (GrpcConcurrencyLimitInterceptor), и у каждого
+     * в очереди пула не больше одной задачи; остальные вызовы ждут в очереди только проверки лимита и получают RESOURCE_EXHAUSTED.
+     */
+    @Bean(destroyMethod = "")
+    public ExecutorService grpcExecutor() {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(executorThreads, executorThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "grpc-call-" + counter.incrementAndGet()));
+        return ExecutorServiceMetrics.monitor(meterRegistry, pool, "grpc");
+    }
+
+    @Bean(destroyMethod = "")
+    public Server grpcServer() {
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port)
+                .executor(grpcExecutor())
+                .maxConcurrentCallsPerConnection(maxConcurrentCallsPerConnection)
+                .maxInboundMessageSize(maxInboundMessageSize)
+                .keepAliveTime(keepAliveTimeSeconds, TimeUnit.SECONDS)
+                .keepAliveTimeout(keepAliveTimeoutSeconds, TimeUnit.SECONDS)
+                .permitKeepAliveTime(permitKeepAliveTimeSeconds, TimeUnit.SECONDS)
+                .maxConnectionIdle(maxConnectionIdleSeconds, TimeUnit.SECONDS);
+        // 0 — окно подстраивается под пропускную способность соединения (BDP), иначе фиксированное
+        if (flowControlWindow > 0) {
+            builder.flowControlWindow(flowControlWindow);
+        }
+        GrpcMetricsInterceptor metrics = new GrpcMetricsInterceptor(meterRegistry);
+        // Перехватчики вызываются с конца: метрики видят и отклонённые лимитом вызовы
+        GrpcConcurrencyLimitInterceptor limit = new GrpcConcurrencyLimitInterceptor(maxConcurrentCalls, meterRegistry);
+        return builder
+                .addService(ServerInterceptors.intercept(userService, limit, metrics))
+                .addService(ServerInterceptors.intercept(bookService, limit, metrics))
+                .addService(ServerInterceptors.intercept(rentalService, limit, metrics))
+                .addService(ServerInterceptors.intercept(reservationService, limit, metrics))
+                .build();
+    }
+
     @Bean
-    public Server grpcServer() throws IOException {
-        return ServerBuilder
-                .forPort(9090)
-                .addService(userService)
-                .addService(bookService)
-                .addService(rentalService)
-                .addService(reservationService)
-                .build()
-                .start();
+    public SmartLifecycle grpcServerLifecycle() {
+        return new GrpcServerLifecycle(grpcServer(), grpcExecutor(), Duration.ofSeconds(shutdownDrainSeconds));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.example.musiclibrary.grpc;
+
+import io.grpc.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запуск gRPC-сервера вместе с контекстом и остановка с дренажом: новые вызовы больше не принимаются,
+ * начатые получают до drainTimeout на завершение, оставшиеся отменяются.
+ * Останавливается раньше уничтожения бинов, поэтому дорабатывающие вызовы ещё видят репозитории и пул соединений.
+ */
+class GrpcServerLifecycle implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(GrpcServerLifecycle.class);
+
+    private final Server server;
+    private final ExecutorService executor;
+    private final Duration drainTimeout;
+    private volatile boolean running;
+
+    GrpcServerLifecycle(Server server, ExecutorService executor, Duration drainTimeout) {
+        this.server = server;
+        this.executor = executor;
+        this.drainTimeout = drainTimeout;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось запустить gRPC-сервер", e);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("gRPC-вызовы не завершились за {}, отменяются", drainTimeout);
+                server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.musiclibrary.grpc;
+
+import com.example.musiclibrary.models.BaseEntity;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Server-streaming выдача записей с учётом flow control клиента.
+ * Записи читаются страницами по курсору id только тогда, когда транспорт готов
+ * принять следующие сообщения (isReady), поэтому в памяти держится не больше одной страницы.
+ * Блокировка — ReentrantLock, а не synchronized: страница читается из БД под ней, и виртуальный поток
+ * не должен держать несущий поток на время запроса.
+ */
+final class KeysetStreamer<E extends BaseEntity, R> implements Runnable {
+    private final ServerCallStreamObserver<R> observer;
+    private final Function<UUID, List<E>> pageLoader;
+    private final Function<E, R> mapper;
+    private final int pageSize;
+    private final Deque<E> buffer = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private UUID after;
+    private boolean exhausted;
+    private boolean done;
+
+    private KeysetStreamer(ServerCallStreamObserver<R> observer, int pageSize, Function<UUID, List<E>> pageLoader, Function<E, R> mapper) {
+        this.observer = observer;
+        this.pageSize = pageSize;
+        this.pageLoader = pageLoader;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param pageLoader загружает не более pageSize записей после указанного id (null - с начала)
+     */
+    static <E extends BaseEntity, R> void stream(StreamObserver<R> responseObserver, int pageSize,
+                                                 Function<UUID, List<E>> pageLoader, Function<E, R> mapper) {
+        ServerCallStreamObserver<R> observer = (ServerCallStreamObserver<R>) responseObserver;
+        KeysetStreamer<E, R> streamer = new KeysetStreamer<>(observer, pageSize, pageLoader, mapper);
+        observer.setOnCancelHandler(streamer::cancel);
+        observer.setOnReadyHandler(streamer);
+        streamer.run();
+    }
+
+    @Override
+    public void run() {
+        lock.lock();
+        try {
+            if (done) {
+                return;
+            }
+            drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (observer.isReady()) {
+                if (buffer.isEmpty()) {
+                    if (exhausted) {
+                        done = true;
+                        observer.onCompleted();
+                        return;
+                    }
+                    List<E> page = pageLoader.apply(after);
+                    exhausted = page.size() < pageSize;
+                    if (page.isEmpty()) {
+                        continue;
+                    }
+                    after = page.get(page.size() - 1).getId();
+                    buffer.addAll(page);
+                }
+                observer.onNext(mapper.apply(buffer.poll()));
+            }
+        } catch (RuntimeException e) {
+            done = true;
+            buffer.clear();
+            observer.onError(Status.INTERNAL.withDescription("Ошибка на сервере").withCause(e).asRuntimeException());
+        }
+    }
+
+    private void cancel() {
+        lock.lock();
+        try {
+            done = true;
+            buffer.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.musiclibrary.grpc;
+
+import com.example.musiclibrary.PageRequest;
+import com.example.musiclibrary.dtos.CursorPage;
+
+import java.util.UUID;
+
+/**
+ * Разбор курсора из {@link PageRequest} и формирование next_cursor для ответа.
+ */
+final class PageRequests {
+    private PageRequests() {
+    }
+
+    static UUID after(PageRequest request) {
+        return request.getAfter().isEmpty() ? null : UUID.fromString(request.getAfter());
+    }
+
+    static String cursor(CursorPage<?> page) {
+        return page.getNextCursor() != null ? page.getNextCursor().toString() : "";
+    }
+}
@@ -1,21 +1,37 @@
 package com.example.musiclibrary.grpc;
 
 import com.example.musiclibrary.*;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.models.Book;
 import com.example.musiclibrary.models.Rental;
 import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.rabbitmq.EventOutbox;
+import com.example.musiclibrary.rabbitmq.LibraryEvents;
+import com.example.musiclibrary.rabbitmq.RabbitMQConfig;
 import com.example.musiclibrary.repositories.BookRepository;
 import com.example.musiclibrary.repositories.RentalRepository;
 import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.RentalSpecifications;
+import com.example.musiclibrary.services.InventoryService;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -32,27 +48,28 @@ public class RentalServiceImpl extends RentalServiceGrpc.RentalServiceImplBase {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private InventoryService inventoryService;
+
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EventOutbox eventOutbox;
+
+    @Value("${library.grpc.batch-size:500}")
+    private int batchSize;
+
     @Override
     public void getRental(RentalRequest request, StreamObserver<RentalResponse> responseObserver) {
         try {
             UUID rentalId = UUID.fromString(request.getId());
             Optional<Rental> rental = rentalRepository.findById(rentalId);
             if (rental.isPresent()) {
-                var rent = rental.get();
-                RentalResponse response = RentalResponse.newBuilder()
-                        .setId(rent.getId() != null ? rent.getId().toString() : "")
-                        .setRentalDate(rent.getRental_date() != null ? rent.getRental_date().toString() : "")
-                        .setDueDate(rent.getDue_date() != null ? rent.getDue_date().toString() : "")
-                        .setReturnDate(rent.getReturn_date() != null ? rent.getReturn_date().toString() : "")
-                        .setExtendedTimes(Optional.ofNullable(rent.getExtended_times()).orElse(0))
-                        .setIsReturned(Optional.ofNullable(rent.getIs_returned()).orElse(false))
-                        .setUser(rent.getUser().getName())
-                        .setBook(rent.getBook().getTitle())
-                        .build();
-                responseObserver.onNext(response);
+                responseObserver.onNext(toResponse(rental.get()));
             } else {
                 responseObserver.onError(Status.NOT_FOUND
                         .withDescription("Запись аренды " + request.getId() + " не найдена")
@@ -70,16 +87,7 @@ public class RentalServiceImpl extends RentalServiceGrpc.RentalServiceImplBase {
     public void getAllRentals(EmptyRequest request, StreamObserver<RentalListResponse> responseObserver) {
         List<Rental> rentals = rentalRepository.findAll();
         List<RentalResponse> rentalResponses = rentals.stream()
-                .map(rent -> RentalResponse.newBuilder()
-                        .setId(rent.getId() != null ? rent.getId().toString() : "")
-                        .setRentalDate(rent.getRental_date() != null ? rent.getRental_date().toString() : "")
-                        .setDueDate(rent.getDue_date() != null ? rent.getDue_date().toString() : "")
-                        .setReturnDate(rent.getReturn_date() != null ? rent.getReturn_date().toString() : "")
-                        .setExtendedTimes(Optional.ofNullable(rent.getExtended_times()).orElse(0))
-                        .setIsReturned(Optional.ofNullable(rent.getIs_returned()).orElse(false))
-                        .setUser(rent.getUser().getName())
-                        .setBook(rent.getBook().getTitle())
-                        .build())
+                .map(RentalServiceImpl::toResponse)
                 .collect(Collectors.toList());
 
         RentalListResponse response = RentalListResponse.newBuilder()
@@ -90,6 +98,46 @@ public class RentalServiceImpl extends RentalServiceGrpc.RentalServiceImplBase {
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void getRentalsPage(PageRequest request, StreamObserver<RentalListResponse> responseObserver) {
+        UUID after;
+        try {
+            after = PageRequests.after(request);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Некорректный формат курсора (UUID): " + request.getAfter())
+                    .asRuntimeException());
+            return;
+        }
+        int limit = CursorPage.limit(request.getPageSize());
+        List<Rental> rows = after == null
+                ? rentalRepository.findFirstPageWithBookAndUser(Limit.of(limit + 1))
+                : rentalRepository.findPageWithBookAndUser(after, Limit.of(limit + 1));
+        CursorPage<RentalResponse> page = CursorPage.of(rows, limit, RentalServiceImpl::toResponse);
+
+        RentalListResponse response = RentalListResponse.newBuilder()
+                .addAllRentals(page.getItems())
+                .setNextCursor(PageRequests.cursor(page))
+                .build();
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void streamRentals(RentalStreamRequest request, StreamObserver<RentalResponse> responseObserver) {
+        int pageSize = CursorPage.limit(request.getPageSize());
+        Specification<Rental> filter = Specification.where(RentalSpecifications.fetchUserAndBook())
+                .and(RentalSpecifications.user(request.getUser()))
+                .and(RentalSpecifications.book(request.getBook()))
+                .and(RentalSpecifications.returned(request.hasIsReturned() ? request.getIsReturned() : null))
+                .and(RentalSpecifications.overdue(request.hasIsOverdue() ? request.getIsOverdue() : null));
+        KeysetStreamer.stream(responseObserver, pageSize,
+                after -> rentalRepository.findBy(filter.and(EntitySpecifications.idAfter(after)),
+                        q -> q.sortBy(Sort.by("id")).limit(pageSize).all()),
+                RentalServiceImpl::toResponse);
+    }
+
     @Override
     public void addRental(RentalCheckRequest request, StreamObserver<RentalCheckResponse> responseObserver) {
         try {
@@ -107,49 +155,182 @@ public class RentalServiceImpl extends RentalServiceGrpc.RentalServiceImplBase {
             User user = userOpt.get();
             Book book = bookOpt.get();
 
-            if (book.getAvailable_copies() == 0) {
-                String receipt = generateReceipt(user, book, false, "Нет доступных копий");
-                RentalCheckResponse response = RentalCheckResponse.newBuilder()
-                        .setReceipt(receipt)
-                        .setSuccess(false)
-                        .build();
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
-                return;
-            }
+            // Списание копии, аренда и событие в одной транзакции: при сбое копия возвращается вместе с откатом
+            boolean granted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!inventoryService.acquireCopy(book)) {
+                    return false;
+                }
+                Rental saved = rentalRepository.save(newRental(user, book));
+                eventOutbox.add(RabbitMQConfig.rentalOpened, LibraryEvents.rentalOpened(saved));
+                return true;
+            }));
 
-            // Уменьшить количество доступных копий
-            book.setAvailable_copies(book.getAvailable_copies() - 1);
-            bookRepository.save(book);
-
-            // Создать запись аренды
-            Rental rental = new Rental();
-            rental.setBook(book);
-            rental.setUser(user);
-            rental.setRental_date(LocalDate.now());
-            rentalRepository.save(rental);
-
-            String receipt = generateReceipt(user, book, true, "Аренда успешно оформлена");
-            RentalCheckResponse response = RentalCheckResponse.newBuilder()
-                    .setReceipt(receipt)
-                    .setSuccess(true)
-                    .build();
-            responseObserver.onNext(response);
+            responseObserver.onNext(granted
+                    ? checkResponse(user.getName(), book.getTitle(), true, "Аренда успешно оформлена")
+                    : checkResponse(user.getName(), book.getTitle(), false, "Нет доступных копий"));
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(Status.INTERNAL.withDescription("Ошибка на сервере").asRuntimeException());
         }
     }
 
+    @Override
+    public StreamObserver<RentalCheckRequest> addRentals(StreamObserver<RentalCheckResponse> responseObserver) {
+        return new BatchingObserver<>(batchSize, this::addRentalBatch, responseObserver);
+    }
+
+    // Одна транзакция на пачку: аренды вставляются JDBC-батчами (hibernate.jdbc.batch_size)
+    private List<RentalCheckResponse> addRentalBatch(List<RentalCheckRequest> requests) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BatchCheckout.Line> lines = BatchCheckout.allocate(requests, RentalCheckRequest::getUser, RentalCheckRequest::getBook,
+                        userRepository, bookRepository, inventoryService);
+                List<Rental> saved = rentalRepository.saveAll(lines.stream()
+                        .filter(BatchCheckout.Line::granted)
+                        .map(line -> newRental(line.user(), line.book()))
+                        .collect(Collectors.toList()));
+                saved.forEach(rental -> eventOutbox.add(RabbitMQConfig.rentalOpened, LibraryEvents.rentalOpened(rental)));
+                return lines.stream()
+                        .map(line -> checkResponse(line.userName(), line.bookTitle(), line.granted(),
+                                line.granted() ? "Аренда успешно оформлена" : line.message()))
+                        .collect(Collectors.toList());
+            });
+        } catch (RuntimeException e) {
+            // Пачка откатилась целиком, копии вернулись вместе с ней
+            return requests.stream()
+                    .map(r -> checkResponse(r.getUser(), r.getBook(), false, "Ошибка на сервере"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public void getRentalsByIds(RentalIdsRequest request, StreamObserver<RentalListResponse> responseObserver) {
+        if (request.getIdsCount() > CursorPage.MAX_LIMIT) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Не больше " + CursorPage.MAX_LIMIT + " id за запрос")
+                    .asRuntimeException());
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(request.getIdsCount());
+        for (String id : request.getIdsList()) {
+            try {
+                ids.add(UUID.fromString(id));
+            } catch (IllegalArgumentException e) {
+                responseObserver.onError(Status.INVALID_ARGUMENT
+                        .withDescription("Некорректный формат id (UUID): " + id)
+                        .asRuntimeException());
+                return;
+            }
+        }
+        Map<UUID, Rental> found = ids.isEmpty() ? Map.of() : rentalRepository.findAllWithBookAndUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Rental::getId, r -> r));
+        // В порядке запроса; ненайденные id пропускаются
+        RentalListResponse.Builder response = RentalListResponse.newBuilder();
+        ids.stream().map(found::get).filter(r -> r != null).map(RentalServiceImpl::toResponse).forEach(response::addRentals);
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void returnRentals(RentalIdsRequest request, StreamObserver<RentalBatchResponse> responseObserver) {
+        if (request.getIdsCount() > CursorPage.MAX_LIMIT) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Не больше " + CursorPage.MAX_LIMIT + " id за запрос")
+                    .asRuntimeException());
+            return;
+        }
+        RentalBatchResponse.Builder response = RentalBatchResponse.newBuilder();
+        List<String> ids = request.getIdsList();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            response.addAllResults(returnRentalBatch(ids.subList(from, Math.min(ids.size(), from + batchSize))));
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    // Закрытые аренды обновляются JDBC-батчем при коммите, копии возвращаются одной операцией на книгу
+    private List<RentalCheckResponse> returnRentalBatch(List<String> ids) {
+        Map<String, UUID> parsed = new HashMap<>();
+        for (String id : ids) {
+            try {
+                parsed.put(id, UUID.fromString(id));
+            } catch (IllegalArgumentException ignored) {
+                // чек с отказом формируется ниже
+            }
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                Map<UUID, Rental> rentals = parsed.isEmpty() ? Map.of() : rentalRepository.findAllWithBookAndUserByIdIn(parsed.values()).stream()
+                        .collect(Collectors.toMap(Rental::getId, r -> r));
+                Map<UUID, Integer> returnedCopies = new LinkedHashMap<>();
+                Map<UUID, Book> books = new HashMap<>();
+                List<RentalCheckResponse> results = new ArrayList<>(ids.size());
+                for (String id : ids) {
+                    UUID rentalId = parsed.get(id);
+                    Rental r = rentalId != null ? rentals.get(rentalId) : null;
+                    if (r == null) {
+                        String message = rentalId == null ? "Некорректный формат id (UUID): " + id : "Аренда " + id + " не найдена";
+                        results.add(checkResponse("-", "-", false, message));
+                    } else if (Boolean.TRUE.equals(r.getIs_returned())) {
+                        results.add(checkResponse(r.getUser().getName(), r.getBook().getTitle(), false, "Аренда уже закрыта"));
+                    } else {
+                        r.setIs_returned(true);
+                        r.setReturn_date(LocalDate.now());
+                        eventOutbox.add(RabbitMQConfig.rentalReturned, LibraryEvents.rentalReturned(r));
+                        returnedCopies.merge(r.getBook().getId(), 1, Integer::sum);
+                        books.put(r.getBook().getId(), r.getBook());
+                        results.add(checkResponse(r.getUser().getName(), r.getBook().getTitle(), true, "Книга возвращена"));
+                    }
+                }
+                returnedCopies.forEach((bookId, count) -> inventoryService.releaseCopies(books.get(bookId), count));
+                return results;
+            });
+        } catch (RuntimeException e) {
+            return ids.stream().map(id -> checkResponse("-", "-", false, "Ошибка на сервере")).collect(Collectors.toList());
+        }
+    }
+
+    private static Rental newRental(User user, Book book) {
+        Rental rental = new Rental();
+        rental.setBook(book);
+        rental.setUser(user);
+        rental.setRental_date(LocalDate.now());
+        rental.setExtended_times(0);
+        // Явно активная аренда: иначе она не попадёт в частичный индекс по невозвращённым
+        rental.setIs_returned(false);
+        return rental;
+    }
+
+    private RentalCheckResponse checkResponse(String userName, String bookTitle, boolean success, String message) {
+        return RentalCheckResponse.newBuilder()
+                .setReceipt(generateReceipt(userName, bookTitle, success, message))
+                .setSuccess(success)
+                .build();
+    }
+
+    static RentalResponse toResponse(Rental rent) {
+        return RentalResponse.newBuilder()
+                .setId(rent.getId() != null ? rent.getId().toString() : "")
+                .setRentalDate(rent.getRental_date() != null ? rent.getRental_date().toString() : "")
+                .setDueDate(rent.getDue_date() != null ? rent.getDue_date().toString() : "")
+                .setReturnDate(rent.getReturn_date() != null ? rent.getReturn_date().toString() : "")
+                .setExtendedTimes(Optional.ofNullable(rent.getExtended_times()).orElse(0))
+                .setIsReturned(Optional.ofNullable(rent.getIs_returned()).orElse(false))
+                .setIsOverdue(Optional.ofNullable(rent.getIs_overdue()).orElse(false))
+                .setUser(rent.getUser().getName())
+                .setBook(rent.getBook().getTitle())
+                .build();
+    }
+
     /**
      * Генерация документа-чека
      */
-    private String generateReceipt(User user, Book book, boolean success, String message) {
+    private String generateReceipt(String userName, String bookTitle, boolean success, String message) {
         StringBuilder receiptBuilder = new StringBuilder();
         receiptBuilder.append("==== ЧЕК ОБ АРЕНДЕ ====\n");
         receiptBuilder.append("Время: ").append(LocalDateTime.now()).append("\n");
-        receiptBuilder.append("Пользователь: ").append(user.getName()).append("\n");
-        receiptBuilder.append("Книга: ").append(book.getTitle()).append("\n");
+        receiptBuilder.append("Пользователь: ").append(userName).append("\n");
+        receiptBuilder.append("Книга: ").append(bookTitle).append("\n");
         receiptBuilder.append("Статус: ").append(success ? "Успешно" : "Отказано").append("\n");
         receiptBuilder.append("Сообщение: ").append(message).append("\n");
         receiptBuilder.append("================\n");
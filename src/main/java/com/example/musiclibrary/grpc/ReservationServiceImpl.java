@@ -1,17 +1,26 @@
 package com.example.musiclibrary.grpc;
 
 import com.example.musiclibrary.*;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.models.Book;
 import com.example.musiclibrary.models.Reservation;
 import com.example.musiclibrary.models.User;
 import com.example.musiclibrary.repositories.BookRepository;
 import com.example.musiclibrary.repositories.ReservationRepository;
 import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.ReservationSpecifications;
+import com.example.musiclibrary.services.InventoryService;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -29,25 +38,25 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private InventoryService inventoryService;
+
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${library.grpc.batch-size:500}")
+    private int batchSize;
+
     @Override
     public void getReservation(ReservationRequest request, StreamObserver<ReservationResponse> responseObserver) {
         try {
             UUID reservationId = UUID.fromString(request.getId());
             Optional<Reservation> reservationOptional = reservationRepository.findById(reservationId);
             if (reservationOptional.isPresent()) {
-                var reservation = reservationOptional.get();
-                ReservationResponse response = ReservationResponse.newBuilder()
-                        .setId(reservation.getId() != null ? reservation.getId().toString() : "")
-                        .setReservationDate(reservation.getReservation_date() != null ? reservation.getReservation_date().toString() : "")
-                        .setExpiryDate(reservation.getExpiry_date() != null ? reservation.getExpiry_date().toString() : "")
-                        .setIsActive(Optional.ofNullable(reservation.getIs_active()).orElse(false))
-                        .setUser(reservation.getUser().getName())
-                        .setBook(reservation.getBook().getTitle())
-                        .build();
-                responseObserver.onNext(response);
+                responseObserver.onNext(toResponse(reservationOptional.get()));
             } else {
                 responseObserver.onError(Status.NOT_FOUND
                         .withDescription("Запись бронирования " + request.getId() + " не найдена")
@@ -65,14 +74,7 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
     public void getAllReservations(EmptyRequest request, StreamObserver<ReservationListResponse> responseObserver) {
         List<Reservation> reservations = reservationRepository.findAll();
         List<ReservationResponse> reservationResponses = reservations.stream()
-                .map(reserv -> ReservationResponse.newBuilder()
-                        .setId(reserv.getId() != null ? reserv.getId().toString() : "")
-                        .setReservationDate(reserv.getReservation_date() != null ? reserv.getReservation_date().toString() : "")
-                        .setExpiryDate(reserv.getExpiry_date() != null ? reserv.getExpiry_date().toString() : "")
-                        .setIsActive(Optional.ofNullable(reserv.getIs_active()).orElse(false))
-                        .setUser(reserv.getUser().getName())
-                        .setBook(reserv.getBook().getTitle())
-                        .build())
+                .map(ReservationServiceImpl::toResponse)
                 .collect(Collectors.toList());
 
         ReservationListResponse response = ReservationListResponse.newBuilder()
@@ -83,6 +85,45 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void getReservationsPage(PageRequest request, StreamObserver<ReservationListResponse> responseObserver) {
+        UUID after;
+        try {
+            after = PageRequests.after(request);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Некорректный формат курсора (UUID): " + request.getAfter())
+                    .asRuntimeException());
+            return;
+        }
+        int limit = CursorPage.limit(request.getPageSize());
+        List<Reservation> rows = after == null
+                ? reservationRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : reservationRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        CursorPage<ReservationResponse> page = CursorPage.of(rows, limit, ReservationServiceImpl::toResponse);
+
+        ReservationListResponse response = ReservationListResponse.newBuilder()
+                .addAllReservations(page.getItems())
+                .setNextCursor(PageRequests.cursor(page))
+                .build();
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void streamReservations(ReservationStreamRequest request, StreamObserver<ReservationResponse> responseObserver) {
+        int pageSize = CursorPage.limit(request.getPageSize());
+        Specification<Reservation> filter = Specification.where(ReservationSpecifications.fetchUserAndBook())
+                .and(ReservationSpecifications.user(request.getUser()))
+                .and(ReservationSpecifications.book(request.getBook()))
+                .and(ReservationSpecifications.active(request.hasIsActive() ? request.getIsActive() : null));
+        KeysetStreamer.stream(responseObserver, pageSize,
+                after -> reservationRepository.findBy(filter.and(EntitySpecifications.idAfter(after)),
+                        q -> q.sortBy(Sort.by("id")).limit(pageSize).all()),
+                ReservationServiceImpl::toResponse);
+    }
+
     @Override
     public void addReservation(ReservationCheckRequest request, StreamObserver<ReservationCheckResponse> responseObserver) {
         try {
@@ -100,43 +141,85 @@ public class ReservationServiceImpl extends ReservationServiceGrpc.ReservationSe
             User user = userOpt.get();
             Book book = bookOpt.get();
 
-            if (book.getAvailable_copies() == 0) {
-                String receipt = generateReceipt(user, book, false, "Нет доступных копий");
-                ReservationCheckResponse response = ReservationCheckResponse.newBuilder()
-                        .setReceipt(receipt)
-                        .setSuccess(false)
-                        .build();
-                responseObserver.onNext(response);
+            // Копия списывается атомарно; при нехватке ответ формируется без изменения данных
+            if (!inventoryService.acquireCopy(book)) {
+                responseObserver.onNext(checkResponse(user.getName(), book.getTitle(), false, "Нет доступных копий"));
                 responseObserver.onCompleted();
                 return;
             }
 
-            book.setAvailable_copies(book.getAvailable_copies() - 1);
-            bookRepository.save(book);
-
-            Reservation reserv = new Reservation();
-            reserv.setBook(book);
-            reserv.setUser(user);
-            reservationRepository.save(reserv);
+            try {
+                reservationRepository.save(newReservation(user, book));
+            } catch (RuntimeException e) {
+                inventoryService.releaseCopy(book);
+                throw e;
+            }
 
-            String receipt = generateReceipt(user, book, true, "Бронирование успешно оформлено");
-            ReservationCheckResponse response = ReservationCheckResponse.newBuilder()
-                    .setReceipt(receipt)
-                    .setSuccess(true)
-                    .build();
-            responseObserver.onNext(response);
+            responseObserver.onNext(checkResponse(user.getName(), book.getTitle(), true, "Бронирование успешно оформлено"));
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(Status.INTERNAL.withDescription("Ошибка на сервере").asRuntimeException());
         }
     }
 
-    private String generateReceipt(User user, Book book, boolean success, String message) {
+    @Override
+    public StreamObserver<ReservationCheckRequest> addReservations(StreamObserver<ReservationCheckResponse> responseObserver) {
+        return new BatchingObserver<>(batchSize, this::addReservationBatch, responseObserver);
+    }
+
+    // Одна транзакция на пачку, брони вставляются JDBC-батчами
+    private List<ReservationCheckResponse> addReservationBatch(List<ReservationCheckRequest> requests) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BatchCheckout.Line> lines = BatchCheckout.allocate(requests, ReservationCheckRequest::getUser, ReservationCheckRequest::getBook,
+                        userRepository, bookRepository, inventoryService);
+                reservationRepository.saveAll(lines.stream()
+                        .filter(BatchCheckout.Line::granted)
+                        .map(line -> newReservation(line.user(), line.book()))
+                        .collect(Collectors.toList()));
+                return lines.stream()
+                        .map(line -> checkResponse(line.userName(), line.bookTitle(), line.granted(),
+                                line.granted() ? "Бронирование успешно оформлено" : line.message()))
+                        .collect(Collectors.toList());
+            });
+        } catch (RuntimeException e) {
+            return requests.stream()
+                    .map(r -> checkResponse(r.getUser(), r.getBook(), false, "Ошибка на сервере"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Reservation newReservation(User user, Book book) {
+        Reservation reserv = new Reservation();
+        reserv.setBook(book);
+        reserv.setUser(user);
+        return reserv;
+    }
+
+    private ReservationCheckResponse checkResponse(String userName, String bookTitle, boolean success, String message) {
+        return ReservationCheckResponse.newBuilder()
+                .setReceipt(generateReceipt(userName, bookTitle, success, message))
+                .setSuccess(success)
+                .build();
+    }
+
+    static ReservationResponse toResponse(Reservation reserv) {
+        return ReservationResponse.newBuilder()
+                .setId(reserv.getId() != null ? reserv.getId().toString() : "")
+                .setReservationDate(reserv.getReservation_date() != null ? reserv.getReservation_date().toString() : "")
+                .setExpiryDate(reserv.getExpiry_date() != null ? reserv.getExpiry_date().toString() : "")
+                .setIsActive(Optional.ofNullable(reserv.getIs_active()).orElse(false))
+                .setUser(reserv.getUser().getName())
+                .setBook(reserv.getBook().getTitle())
+                .build();
+    }
+
+    private String generateReceipt(String userName, String bookTitle, boolean success, String message) {
         StringBuilder receiptBuilder = new StringBuilder();
         receiptBuilder.append("==== ЧЕК О БРОНИРОВАНИИ ====\n");
         receiptBuilder.append("Время: ").append(LocalDateTime.now()).append("\n");
-        receiptBuilder.append("Пользователь: ").append(user.getName()).append("\n");
-        receiptBuilder.append("Книга: ").append(book.getTitle()).append("\n");
+        receiptBuilder.append("Пользователь: ").append(userName).append("\n");
+        receiptBuilder.append("Книга: ").append(bookTitle).append("\n");
         receiptBuilder.append("Статус: ").append(success ? "Успешно" : "Отказано").append("\n");
         receiptBuilder.append("Сообщение: ").append(message).append("\n");
         receiptBuilder.append("================\n");
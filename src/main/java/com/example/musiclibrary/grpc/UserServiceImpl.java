@@ -1,13 +1,20 @@
 package com.example.musiclibrary.grpc;
 
 import com.example.musiclibrary.*;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.models.User;
 import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.UserSpecifications;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service("userServiceImplGrpc")
@@ -22,17 +29,7 @@ public class UserServiceImpl extends UserServiceGrpc.UserServiceImplBase {
     public void findUser(UserNameRequest request, StreamObserver<UserResponse> responseObserver) {
         Optional<User> userOpt = userRepository.findByName(request.getName());
         if (userOpt.isPresent()) {
-            User user = userOpt.get();
-
-            UserResponse response = UserResponse.newBuilder()
-                    .setName(user.getName() != null ? user.getName() : "null")
-                    .setEmail(user.getEmail() != null ? user.getEmail() : "null")
-                    .setPhoneNumber(user.getPhone_number() != null ? user.getPhone_number() : "null")
-                    .setAddress(user.getAddress() != null ? user.getAddress() : "null")
-                    .setRole(user.getRole().name() != null ? user.getRole().name() : "null")
-                    .build();
-
-            responseObserver.onNext(response);
+            responseObserver.onNext(toResponse(userOpt.get()));
         } else {
             responseObserver.onError(Status.NOT_FOUND
                     .withDescription("Пользователь с именем " + request.getName() + " не найден")
@@ -46,13 +43,7 @@ public class UserServiceImpl extends UserServiceGrpc.UserServiceImplBase {
         List<User> users = userRepository.findAll();
 
         List<UserResponse> userResponses = users.stream()
-                .map(user -> UserResponse.newBuilder()
-                        .setName(user.getName() != null ? user.getName() : "null")
-                        .setEmail(user.getEmail() != null ? user.getEmail() : "null")
-                        .setPhoneNumber(user.getPhone_number() != null ? user.getPhone_number() : "null")
-                        .setAddress(user.getAddress() != null ? user.getAddress() : "null")
-                        .setRole(user.getRole().name() != null ? user.getRole().name() : "null")
-                        .build())
+                .map(UserServiceImpl::toResponse)
                 .collect(Collectors.toList());
 
         UserListResponse response = UserListResponse.newBuilder()
@@ -62,4 +53,59 @@ public class UserServiceImpl extends UserServiceGrpc.UserServiceImplBase {
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    @Override
+    public void getUsersPage(PageRequest request, StreamObserver<UserListResponse> responseObserver) {
+        UUID after;
+        try {
+            after = PageRequests.after(request);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Некорректный формат курсора (UUID): " + request.getAfter())
+                    .asRuntimeException());
+            return;
+        }
+        int limit = CursorPage.limit(request.getPageSize());
+        List<User> rows = after == null
+                ? userRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        CursorPage<UserResponse> page = CursorPage.of(rows, limit, UserServiceImpl::toResponse);
+
+        UserListResponse response = UserListResponse.newBuilder()
+                .addAllUsers(page.getItems())
+                .setNextCursor(PageRequests.cursor(page))
+                .build();
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void streamUsers(UserStreamRequest request, StreamObserver<UserResponse> responseObserver) {
+        User.Role role;
+        try {
+            role = request.getRole().isEmpty() ? null : User.Role.valueOf(request.getRole());
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Неизвестная роль: " + request.getRole())
+                    .asRuntimeException());
+            return;
+        }
+        int pageSize = CursorPage.limit(request.getPageSize());
+        Specification<User> filter = Specification.where(UserSpecifications.role(role));
+        KeysetStreamer.stream(responseObserver, pageSize,
+                after -> userRepository.findBy(filter.and(EntitySpecifications.idAfter(after)),
+                        q -> q.sortBy(Sort.by("id")).limit(pageSize).all()),
+                UserServiceImpl::toResponse);
+    }
+
+    static UserResponse toResponse(User user) {
+        return UserResponse.newBuilder()
+                .setName(user.getName() != null ? user.getName() : "null")
+                .setEmail(user.getEmail() != null ? user.getEmail() : "null")
+                .setPhoneNumber(user.getPhone_number() != null ? user.getPhone_number() : "null")
+                .setAddress(user.getAddress() != null ? user.getAddress() : "null")
+                .setRole(user.getRole() != null ? user.getRole().name() : "null")
+                .build();
+    }
 }
\ No newline at end of file
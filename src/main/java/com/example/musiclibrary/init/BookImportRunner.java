@@ -0,0 +1,49 @@
+package com.example.musiclibrary.init;
+import com.example.musiclibrary.dtos.BookImportReport;
+import com.example.musiclibrary.services.BookImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Загрузка каталога из файла при запуске:
+ * --import-books=books.csv [--import-format=csv|ndjson] [--import-user=Anna Librarian].
+ * Ход загрузки и итог пишет в лог BookImportServiceImpl. После загрузки MusiclibraryApplication завершает приложение
+ * с кодом отсюда: 1, если в файле были записи с ошибками.
+ */
+@Component
+public class BookImportRunner implements ApplicationRunner, ExitCodeGenerator {
+    public static final String OPTION = "import-books";
+    private static final Logger log = LoggerFactory.getLogger(BookImportRunner.class);
+    @Autowired
+    private BookImportService bookImportService;
+    private int exitCode;
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        Path file = Path.of(args.getOptionValues(OPTION).get(0));
+        BookImportService.Format format = args.containsOption("import-format")
+                ? BookImportService.Format.valueOf(args.getOptionValues("import-format").get(0).toUpperCase())
+                : file.toString().endsWith(".ndjson") ? BookImportService.Format.NDJSON : BookImportService.Format.CSV;
+        String user = args.containsOption("import-user") ? args.getOptionValues("import-user").get(0) : "Anna Librarian";
+        BookImportReport report;
+        try (InputStream in = Files.newInputStream(file)) {
+            report = bookImportService.importBooks(in, format, user, r -> { });
+        }
+        report.errors().forEach(error -> log.warn("Загрузка каталога из {}: {}", file, error));
+        exitCode = report.invalid() > 0 ? 1 : 0;
+    }
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
@@ -34,6 +34,10 @@ public class CommandLineRunnerImpl implements CommandLineRunner {
         seedData();
     }
     private void seedData() throws IOException, InterruptedException {
+        // Схема больше не пересоздаётся при старте, поэтому демо-данные добавляются только в пустую базу
+        if (userService.findUser("Anna Librarian").isPresent()) {
+            return;
+        }
         UserDto librarian = userService.register(new UserDto("Anna Librarian", "anna@library.com", "LIBRARIAN", UserDto.Role.Librarian, LocalDate.of(2024, 1, 1), "8(800)555-35-35", null));
         UserDto user = userService.register(new UserDto("John Doe", "johndoe@example.com", "USER_JD", UserDto.Role.User, LocalDate.of(2003, 8, 19), "8(999)696-96-96", "Obraztsova street, 9"));
         BookDto book1 = bookService.addBook(new BookDto(librarian, "Effective Java", "Joshua Bloch", "Addison-Wesley", 2018, "Programming", 2, 5, "A must-read for Java developers"), librarian.getName());
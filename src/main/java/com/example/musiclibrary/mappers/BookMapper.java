@@ -0,0 +1,67 @@
+package com.example.musiclibrary.mappers;
+
+import com.example.musiclibrary.dtos.BookDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookMapper {
+    @Autowired
+    private UserMapper userMapper;
+
+    public BookDto toDto(Book b) {
+        if (b == null) {
+            return null;
+        }
+        BookDto dto = new BookDto();
+        dto.setId(b.getId());
+        dto.setUser(userMapper.toDto(b.getUser()));
+        dto.setTitle(b.getTitle());
+        dto.setAuthor(b.getAuthor());
+        dto.setPublisher(b.getPublisher());
+        dto.setPublication_year(b.getPublication_year());
+        dto.setGenre(b.getGenre());
+        dto.setAvailable_copies(b.getAvailable_copies());
+        dto.setTotal_copies(b.getTotal_copies());
+        dto.setDescription(b.getDescription());
+        dto.setCreated(b.getCreated());
+        dto.setModified(b.getModified());
+        return dto;
+    }
+
+    public BookShow toShow(Book b) {
+        return b != null ? toShow(b, userMapper.toShow(b.getUser())) : null;
+    }
+
+    /**
+     * @param owner уже собранный владелец книги (используется при сборке списков, где владельцы повторяются)
+     */
+    public BookShow toShow(Book b, UserShow owner) {
+        return new BookShow(b.getTitle(), b.getAuthor(), b.getPublisher(), b.getPublication_year(), b.getGenre(),
+                b.getAvailable_copies(), b.getTotal_copies(), b.getDescription(), owner);
+    }
+
+    /**
+     * Ссылка на книгу: заполнено только название.
+     */
+    public BookShow toRef(String title) {
+        BookShow b = new BookShow();
+        b.setTitle(title);
+        return b;
+    }
+
+    /**
+     * Владелец книги не переносится: его устанавливает вызывающий.
+     */
+    public Book toEntity(BookDto dto) {
+        Book b = new Book(dto.getTitle(), dto.getAuthor(), dto.getPublisher(), dto.getPublication_year(), dto.getGenre(),
+                dto.getAvailable_copies(), dto.getTotal_copies(), dto.getDescription());
+        b.setId(dto.getId());
+        b.setCreated(dto.getCreated());
+        b.setModified(dto.getModified());
+        return b;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.musiclibrary.mappers;
+
+import com.example.musiclibrary.dtos.RentalDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.repositories.projections.RentalRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RentalMapper {
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private BookMapper bookMapper;
+
+    public RentalDto toDto(Rental r) {
+        if (r == null) {
+            return null;
+        }
+        RentalDto dto = new RentalDto();
+        dto.setId(r.getId());
+        dto.setUser(userMapper.toDto(r.getUser()));
+        dto.setBook(bookMapper.toDto(r.getBook()));
+        dto.setRental_date(r.getRental_date());
+        dto.setDue_date(r.getDue_date());
+        dto.setReturn_date(r.getReturn_date());
+        dto.setExtended_times(r.getExtended_times());
+        dto.setIs_returned(r.getIs_returned());
+        dto.setIs_overdue(r.getIs_overdue());
+        dto.setCreated(r.getCreated());
+        dto.setModified(r.getModified());
+        return dto;
+    }
+
+    public RentalShow toShow(Rental r) {
+        return r != null ? toShow(r, userMapper.toShow(r.getUser()), bookMapper.toShow(r.getBook())) : null;
+    }
+
+    public RentalShow toShow(Rental r, UserShow user, BookShow book) {
+        return new RentalShow(r.getId(), r.getRental_date(), r.getDue_date(), r.getReturn_date(),
+                r.getExtended_times(), r.getIs_returned(), r.getIs_overdue(), user, book);
+    }
+
+    /**
+     * Пользователь и книга заполняются только ключами, остальное догружается отдельно.
+     */
+    public RentalShow toShow(RentalRef r) {
+        return new RentalShow(r.id(), r.rental_date(), r.due_date(), r.return_date(), r.extended_times(), r.is_returned(), r.is_overdue(),
+                userMapper.toRef(r.user()), bookMapper.toRef(r.book()));
+    }
+
+    /**
+     * Пользователь и книга не переносятся: их устанавливает вызывающий.
+     * Не заданные клиентом is_returned и extended_times становятся false и 0, как у аренд из gRPC:
+     * явный NULL перекрыл бы default столбца, и аренда выпала бы из частичного индекса по невозвращённым.
+     */
+    public Rental toEntity(RentalDto dto) {
+        Rental r = new Rental(dto.getRental_date(), dto.getDue_date(), dto.getReturn_date(),
+                dto.getExtended_times() != null ? dto.getExtended_times() : 0, Boolean.TRUE.equals(dto.getIs_returned()));
+        r.setId(dto.getId());
+        r.setCreated(dto.getCreated());
+        r.setModified(dto.getModified());
+        return r;
+    }
+}
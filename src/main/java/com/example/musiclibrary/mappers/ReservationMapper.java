@@ -0,0 +1,59 @@
+package com.example.musiclibrary.mappers;
+
+import com.example.musiclibrary.dtos.ReservationDto;
+import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.repositories.projections.ReservationRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReservationMapper {
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private BookMapper bookMapper;
+
+    public ReservationDto toDto(Reservation r) {
+        if (r == null) {
+            return null;
+        }
+        ReservationDto dto = new ReservationDto();
+        dto.setId(r.getId());
+        dto.setUser(userMapper.toDto(r.getUser()));
+        dto.setBook(bookMapper.toDto(r.getBook()));
+        dto.setReservation_date(r.getReservation_date());
+        dto.setExpiry_date(r.getExpiry_date());
+        dto.setIs_active(r.getIs_active());
+        dto.setCreated(r.getCreated());
+        dto.setModified(r.getModified());
+        return dto;
+    }
+
+    public ReservationShow toShow(Reservation r) {
+        if (r == null) {
+            return null;
+        }
+        return new ReservationShow(r.getId(), r.getReservation_date(), r.getExpiry_date(), r.getIs_active(),
+                userMapper.toShow(r.getUser()), bookMapper.toShow(r.getBook()));
+    }
+
+    /**
+     * Пользователь и книга заполняются только ключами, остальное догружается отдельно.
+     */
+    public ReservationShow toShow(ReservationRef r) {
+        return new ReservationShow(r.id(), r.reservation_date(), r.expiry_date(), r.is_active(),
+                userMapper.toRef(r.user()), bookMapper.toRef(r.book()));
+    }
+
+    /**
+     * Пользователь и книга не переносятся: их устанавливает вызывающий.
+     */
+    public Reservation toEntity(ReservationDto dto) {
+        Reservation r = new Reservation(dto.getReservation_date(), dto.getExpiry_date(), dto.getIs_active());
+        r.setId(dto.getId());
+        r.setCreated(dto.getCreated());
+        r.setModified(dto.getModified());
+        return r;
+    }
+}
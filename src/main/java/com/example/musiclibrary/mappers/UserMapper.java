@@ -0,0 +1,59 @@
+package com.example.musiclibrary.mappers;
+
+import com.example.musiclibrary.dtos.UserDto;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * Преобразование пользователя без рефлексии. Коллекции аренд и бронирований не копируются,
+ * чтобы не инициализировать ленивые связи.
+ */
+@Component
+public class UserMapper {
+    public UserDto toDto(User u) {
+        if (u == null) {
+            return null;
+        }
+        UserDto dto = new UserDto(u.getName(), u.getEmail(), u.getPassword(), toDtoRole(u.getRole()),
+                u.getMembership_date(), u.getPhone_number(), u.getAddress());
+        dto.setId(u.getId());
+        dto.setCreated(u.getCreated());
+        dto.setModified(u.getModified());
+        return dto;
+    }
+
+    public UserShow toShow(User u) {
+        if (u == null) {
+            return null;
+        }
+        return new UserShow(u.getName(), u.getEmail(), u.getPassword(), toDtoRole(u.getRole()),
+                u.getMembership_date(), u.getPhone_number(), u.getAddress());
+    }
+
+    /**
+     * Ссылка на пользователя: заполнено только имя.
+     */
+    public UserShow toRef(String name) {
+        UserShow u = new UserShow();
+        u.setName(name);
+        return u;
+    }
+
+    public User toEntity(UserDto dto) {
+        User u = new User(dto.getName(), dto.getEmail(), dto.getPassword(), toEntityRole(dto.getRole()),
+                dto.getMembership_date(), dto.getPhone_number(), dto.getAddress());
+        u.setId(dto.getId());
+        u.setCreated(dto.getCreated());
+        u.setModified(dto.getModified());
+        return u;
+    }
+
+    static UserDto.Role toDtoRole(User.Role role) {
+        return role != null ? UserDto.Role.valueOf(role.name()) : null;
+    }
+
+    static User.Role toEntityRole(UserDto.Role role) {
+        return role != null ? User.Role.valueOf(role.name()) : null;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.musiclibrary.models;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Cascade;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.*;
 @Entity
 @Table(name = "books")
+// UPDATE пишет только изменённые столбцы: правка карточки не затирает available_copies, который меняют takeCopies/returnCopies
+@DynamicUpdate
 public class Book extends BaseEntity {
     private String title;
     private String author;
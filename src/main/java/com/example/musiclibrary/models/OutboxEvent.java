@@ -0,0 +1,45 @@
+package com.example.musiclibrary.models;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_sent_at", columnList = "sent_at"))
+public class OutboxEvent extends BaseEntity {
+    @Column(nullable = false)
+    private String routing_key;
+    @Column(nullable = false)
+    private String event_type;
+    @Column(nullable = false)
+    private byte[] payload;
+    private LocalDateTime sent_at;
+    public OutboxEvent(String routing_key, String event_type, byte[] payload) {
+        this.routing_key = routing_key;
+        this.event_type = event_type;
+        this.payload = payload;
+    }
+    public OutboxEvent() {
+    }
+    public String getRouting_key() {
+        return routing_key;
+    }
+    public void setRouting_key(String routing_key) {
+        this.routing_key = routing_key;
+    }
+    public String getEvent_type() {
+        return event_type;
+    }
+    public void setEvent_type(String event_type) {
+        this.event_type = event_type;
+    }
+    public byte[] getPayload() {
+        return payload;
+    }
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+    public LocalDateTime getSent_at() {
+        return sent_at;
+    }
+    public void setSent_at(LocalDateTime sent_at) {
+        this.sent_at = sent_at;
+    }
+}
@@ -10,6 +10,9 @@ public class Rental extends BaseEntity {
     private LocalDate return_date;
     private Integer extended_times;
     private Boolean is_returned;
+    // Ставит OverdueSweeper, когда срок прошёл, а книга не возвращена
+    @Column(nullable = false)
+    private Boolean is_overdue = false;
     @ManyToOne(optional = false)
     @JoinColumn(name = "user_id", referencedColumnName = "id", nullable=false)
     @Cascade(org.hibernate.annotations.CascadeType.MERGE)
@@ -62,6 +65,12 @@ public class Rental extends BaseEntity {
     public void setIs_returned(Boolean is_returned) {
         this.is_returned = is_returned;
     }
+    public Boolean getIs_overdue() {
+        return is_overdue;
+    }
+    public void setIs_overdue(Boolean is_overdue) {
+        this.is_overdue = is_overdue;
+    }
     public User getUser() {
         return user;
     }
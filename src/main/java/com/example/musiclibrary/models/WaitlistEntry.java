@@ -0,0 +1,47 @@
+package com.example.musiclibrary.models;
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+/**
+ * Место читателя в очереди ожидания книги. Запись удаляется, когда читателю достаётся копия.
+ */
+@Entity
+@Table(name = "waitlist_entries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_book_user", columnNames = {"book_id", "user_id"}))
+public class WaitlistEntry extends BaseEntity {
+    @Column(nullable = false)
+    private Integer priority;
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", referencedColumnName = "id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Book book;
+    public WaitlistEntry(User user, Book book, Integer priority) {
+        this.user = user;
+        this.book = book;
+        this.priority = priority;
+    }
+    public WaitlistEntry() {
+    }
+    public Integer getPriority() {
+        return priority;
+    }
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+    public User getUser() {
+        return user;
+    }
+    public void setUser(User user) {
+        this.user = user;
+    }
+    public Book getBook() {
+        return book;
+    }
+    public void setBook(Book book) {
+        this.book = book;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.musiclibrary.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Следит через JFR за виртуальными потоками, закреплёнными за несущим потоком (synchronized или native-кадр
+ * при блокировке), дольше library.threads.pinned-threshold-ms.
+ * Каждое место закрепления считается в library.threads.pinned с тегом site, стек пишется в лог при первом появлении.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.example.musiclibrary.";
+    private static final int LOGGED_FRAMES = 20;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.threads.pinned-threshold-ms:20}")
+    private long thresholdMs;
+
+    private final Map<String, Counter> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED, this::pinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+
+    private void pinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = site(frames);
+        sites.computeIfAbsent(site, s -> {
+            log.warn("Виртуальный поток закреплён за несущим на {} мс в {}:\n\t{}", event.getDuration().toMillis(), s,
+                    frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::format).collect(Collectors.joining("\n\t")));
+            return Counter.builder("library.threads.pinned")
+                    .description("Закрепления виртуальных потоков дольше порога")
+                    .tag("site", s)
+                    .register(meterRegistry);
+        }).increment();
+    }
+
+    // Первый кадр кода приложения, иначе верхний кадр (закрепление внутри драйвера или клиента брокера)
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return format(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : format(frames.get(0));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
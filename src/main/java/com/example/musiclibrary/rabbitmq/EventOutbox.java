@@ -0,0 +1,24 @@
+package com.example.musiclibrary.rabbitmq;
+
+import com.example.musiclibrary.models.OutboxEvent;
+import com.example.musiclibrary.repositories.OutboxEventRepository;
+import com.google.protobuf.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Запись событий в таблицу outbox в той же транзакции, что и изменение сущности.
+ * Событие уйдёт в брокер только после коммита, его отправляет {@link OutboxRelay}.
+ */
+@Service
+public class EventOutbox {
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(String routingKey, Message event) {
+        outboxEventRepository.save(new OutboxEvent(routingKey, event.getDescriptorForType().getFullName(), event.toByteArray()));
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.musiclibrary.rabbitmq;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная публикация событий в RabbitMQ.
+ * Потоки запросов только кладут событие в кольцевой буфер; отдельный поток забирает
+ * события пачками и отправляет их по одному каналу, дожидаясь publisher confirms на всю пачку.
+ * События передаются в бинарном виде protobuf (events.proto), тип события - в заголовке x-event-type.
+ */
+@Service
+public class EventPublisher {
+    private static final Logger log = LoggerFactory.getLogger(EventPublisher.class);
+
+    static final String CONTENT_TYPE = "application/x-protobuf";
+    static final String TYPE_HEADER = "x-event-type";
+
+    private record Event(String routingKey, com.google.protobuf.Message payload) {
+    }
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.events.buffer-capacity:8192}")
+    private int bufferCapacity;
+    @Value("${library.events.batch-size:256}")
+    private int batchSize;
+    @Value("${library.events.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+    @Value("${library.events.block-timeout-ms:1000}")
+    private long blockTimeoutMs;
+    @Value("${library.events.overflow.read:DROP}")
+    private OverflowPolicy readPolicy;
+    @Value("${library.events.overflow.write:BLOCK}")
+    private OverflowPolicy writePolicy;
+
+    private EventRingBuffer<Event> buffer;
+    private Thread drainer;
+    private volatile boolean running;
+
+    private Counter droppedReads;
+    private Counter droppedWrites;
+    private Counter failed;
+    private DistributionSummary batchSizes;
+    private Timer publishLatency;
+
+    @PostConstruct
+    void start() {
+        buffer = new EventRingBuffer<>(bufferCapacity);
+        Gauge.builder("library.events.queue.depth", buffer, EventRingBuffer::size)
+                .description("Событий в буфере в ожидании отправки")
+                .register(meterRegistry);
+        droppedReads = Counter.builder("library.events.dropped").tag("kind", "read").register(meterRegistry);
+        droppedWrites = Counter.builder("library.events.dropped").tag("kind", "write").register(meterRegistry);
+        failed = Counter.builder("library.events.failed").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("library.events.batch.size").register(meterRegistry);
+        publishLatency = Timer.builder("library.events.publish.latency")
+                .description("Отправка пачки вместе с ожиданием подтверждений брокера")
+                .register(meterRegistry);
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "event-publisher");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(confirmTimeoutMs * 2);
+    }
+
+    /**
+     * Событие о чтении данных: при переполнении по умолчанию отбрасывается.
+     */
+    public void publishRead(String routingKey, com.google.protobuf.Message event) {
+        enqueue(new Event(routingKey, event), readPolicy, droppedReads);
+    }
+
+    /**
+     * Событие об изменении данных: при переполнении по умолчанию ждёт места в буфере.
+     */
+    public void publishWrite(String routingKey, com.google.protobuf.Message event) {
+        enqueue(new Event(routingKey, event), writePolicy, droppedWrites);
+    }
+
+    private void enqueue(Event event, OverflowPolicy policy, Counter dropped) {
+        if (buffer.offer(event)) {
+            LockSupport.unpark(drainer);
+            return;
+        }
+        if (policy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                LockSupport.unpark(drainer);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                if (buffer.offer(event)) {
+                    return;
+                }
+            }
+            log.warn("Буфер событий переполнен, событие {} отброшено после ожидания", event.routingKey());
+        }
+        dropped.increment();
+    }
+
+    private void drainLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                continue;
+            }
+            publish(batch);
+            batch.clear();
+        }
+    }
+
+    private void publish(List<Event> batch) {
+        batchSizes.record(batch.size());
+        long start = System.nanoTime();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (Event event : batch) {
+                    operations.send(RabbitMQConfig.topicExchangeName, event.routingKey(), toMessage(event));
+                }
+                operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("Не удалось отправить пачку из {} событий", batch.size(), e);
+        } finally {
+            publishLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Сериализация выполняется в потоке отправки, а не в потоке запроса
+    private static Message toMessage(Event event) {
+        return toMessage(event.payload().toByteArray(), event.payload().getDescriptorForType().getFullName());
+    }
+
+    static Message toMessage(byte[] body, String eventType) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(CONTENT_TYPE);
+        properties.setHeader(TYPE_HEADER, eventType);
+        return new Message(body, properties);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.musiclibrary.rabbitmq;
+
+import com.example.musiclibrary.events.*;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.models.WaitlistEntry;
+import com.google.protobuf.Timestamp;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Сборка protobuf-событий из сущностей. Пустые значения передаются как значения по умолчанию protobuf.
+ */
+public final class LibraryEvents {
+    private LibraryEvents() {
+    }
+
+    public static UserRegistered userRegistered(User u) {
+        return UserRegistered.newBuilder()
+                .setUserId(id(u.getId()))
+                .setName(text(u.getName()))
+                .setRole(u.getRole() != null ? u.getRole().ordinal() : 0)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static UserUpdated userUpdated(UUID id, String name) {
+        return UserUpdated.newBuilder().setUserId(id(id)).setName(text(name)).setOccurredAt(now()).build();
+    }
+
+    public static UserDeleted userDeleted(UUID id, String name) {
+        return UserDeleted.newBuilder().setUserId(id(id)).setName(text(name)).setOccurredAt(now()).build();
+    }
+
+    public static BookRegistered bookRegistered(Book b) {
+        return BookRegistered.newBuilder()
+                .setBookId(id(b.getId()))
+                .setTitle(text(b.getTitle()))
+                .setAuthor(text(b.getAuthor()))
+                .setAddedBy(b.getUser() != null ? id(b.getUser().getId()) : "")
+                .setTotalCopies(number(b.getTotal_copies()))
+                .setAvailableCopies(number(b.getAvailable_copies()))
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static BookUpdated bookUpdated(UUID id, String title, Integer totalCopies, Integer availableCopies) {
+        return BookUpdated.newBuilder()
+                .setBookId(id(id))
+                .setTitle(text(title))
+                .setTotalCopies(number(totalCopies))
+                .setAvailableCopies(number(availableCopies))
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static BookDeleted bookDeleted(UUID id, String title) {
+        return BookDeleted.newBuilder().setBookId(id(id)).setTitle(text(title)).setOccurredAt(now()).build();
+    }
+
+    public static RentalOpened rentalOpened(Rental r) {
+        return RentalOpened.newBuilder()
+                .setRentalId(id(r.getId()))
+                .setUserId(id(r.getUser().getId()))
+                .setBookId(id(r.getBook().getId()))
+                .setRentalEpochDay(epochDay(r.getRental_date()))
+                .setDueEpochDay(epochDay(r.getDue_date()))
+                .setAvailableCopiesDelta(-1)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static RentalRejected rentalRejected(String user, Book b, String reason) {
+        return RentalRejected.newBuilder()
+                .setUserName(text(user))
+                .setBookId(id(b.getId()))
+                .setReason(reason)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static RentalReturned rentalReturned(Rental r) {
+        return RentalReturned.newBuilder()
+                .setRentalId(id(r.getId()))
+                .setUserId(id(r.getUser().getId()))
+                .setBookId(id(r.getBook().getId()))
+                .setReturnEpochDay(epochDay(r.getReturn_date()))
+                .setAvailableCopiesDelta(1)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static RentalUpdated rentalUpdated(Rental r) {
+        return RentalUpdated.newBuilder()
+                .setRentalId(id(r.getId()))
+                .setDueEpochDay(epochDay(r.getDue_date()))
+                .setExtendedTimes(number(r.getExtended_times()))
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static RentalsOverdue rentalsOverdue(Collection<UUID> ids) {
+        RentalsOverdue.Builder event = RentalsOverdue.newBuilder().setOccurredAt(now());
+        ids.forEach(id -> event.addRentalIds(id(id)));
+        return event.build();
+    }
+
+    public static RentalDeleted rentalDeleted(UUID id) {
+        return RentalDeleted.newBuilder().setRentalId(id(id)).setOccurredAt(now()).build();
+    }
+
+    public static ReservationPlaced reservationPlaced(Reservation r) {
+        return ReservationPlaced.newBuilder()
+                .setReservationId(id(r.getId()))
+                .setUserId(id(r.getUser().getId()))
+                .setBookId(id(r.getBook().getId()))
+                .setExpiryEpochDay(epochDay(r.getExpiry_date()))
+                .setAvailableCopiesDelta(-1)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static ReservationRejected reservationRejected(String user, Book b, String reason) {
+        return ReservationRejected.newBuilder()
+                .setUserName(text(user))
+                .setBookId(id(b.getId()))
+                .setReason(reason)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static ReservationExpired reservationExpired(Reservation r) {
+        return ReservationExpired.newBuilder()
+                .setReservationId(id(r.getId()))
+                .setUserId(id(r.getUser().getId()))
+                .setBookId(id(r.getBook().getId()))
+                .setAvailableCopiesDelta(1)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static ReservationWaitlisted reservationWaitlisted(WaitlistEntry w, long position) {
+        return ReservationWaitlisted.newBuilder()
+                .setUserId(id(w.getUser().getId()))
+                .setBookId(id(w.getBook().getId()))
+                .setPosition(position)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static ReservationAssigned reservationAssigned(Reservation r, Duration waited) {
+        return ReservationAssigned.newBuilder()
+                .setReservationId(id(r.getId()))
+                .setUserId(id(r.getUser().getId()))
+                .setBookId(id(r.getBook().getId()))
+                .setExpiryEpochDay(epochDay(r.getExpiry_date()))
+                .setWaitedSeconds(waited.toSeconds())
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static ReservationsExpired reservationsExpired(Collection<UUID> ids, Map<UUID, Integer> releasedCopies) {
+        ReservationsExpired.Builder event = ReservationsExpired.newBuilder().setOccurredAt(now());
+        ids.forEach(id -> event.addReservationIds(id(id)));
+        releasedCopies.forEach((book, copies) -> event.putReleasedCopies(id(book), copies));
+        return event.build();
+    }
+
+    public static ReservationUpdated reservationUpdated(Reservation r) {
+        return ReservationUpdated.newBuilder()
+                .setReservationId(id(r.getId()))
+                .setExpiryEpochDay(epochDay(r.getExpiry_date()))
+                .setOccurredAt(now())
+                .build();
+    }
+
+    public static ReservationDeleted reservationDeleted(UUID id) {
+        return ReservationDeleted.newBuilder().setReservationId(id(id)).setOccurredAt(now()).build();
+    }
+
+    public static RecordsRead read(String entity, String operation, Object key, int count) {
+        return RecordsRead.newBuilder()
+                .setEntity(entity)
+                .setOperation(operation)
+                .setKey(key != null ? key.toString() : "")
+                .setCount(count)
+                .setOccurredAt(now())
+                .build();
+    }
+
+    private static Timestamp now() {
+        Instant now = Instant.now();
+        return Timestamp.newBuilder().setSeconds(now.getEpochSecond()).setNanos(now.getNano()).build();
+    }
+
+    private static String id(UUID id) {
+        return id != null ? id.toString() : "";
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+
+    private static int number(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static long epochDay(LocalDate date) {
+        return date != null ? date.toEpochDay() : 0;
+    }
+}
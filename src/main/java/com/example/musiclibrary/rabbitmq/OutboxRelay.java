@@ -0,0 +1,95 @@
+package com.example.musiclibrary.rabbitmq;
+
+import com.example.musiclibrary.models.OutboxEvent;
+import com.example.musiclibrary.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая отправка событий из outbox.
+ * Пачка неотправленных строк блокируется через SKIP LOCKED, публикуется с ожиданием подтверждений брокера
+ * и помечается отправленной в той же транзакции; при ошибке транзакция откатывается и пачка будет отправлена повторно.
+ */
+@Component
+public class OutboxRelay {
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.outbox.batch-size:200}")
+    private int batchSize;
+    @Value("${library.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+    @Value("${library.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    // возраст самого старого неотправленного события на момент последнего опроса
+    private final AtomicLong lagMillis = new AtomicLong();
+    private Counter published;
+    private DistributionSummary batchSizes;
+    private Timer deliveryDelay;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("library.outbox.lag", lagMillis, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        published = Counter.builder("library.outbox.published").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("library.outbox.batch.size").register(meterRegistry);
+        deliveryDelay = Timer.builder("library.outbox.delivery.delay")
+                .description("Время от записи события в outbox до подтверждения брокером")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.poll-interval-ms:200}")
+    @Transactional
+    public void relay() {
+        List<OutboxEvent> batch = outboxEventRepository.lockUnsent(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            lagMillis.set(0);
+            return;
+        }
+        LocalDateTime polledAt = LocalDateTime.now();
+        lagMillis.set(Duration.between(batch.get(0).getCreated(), polledAt).toMillis());
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxEvent event : batch) {
+                operations.send(RabbitMQConfig.topicExchangeName, event.getRouting_key(),
+                        EventPublisher.toMessage(event.getPayload(), event.getEvent_type()));
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+        LocalDateTime sentAt = LocalDateTime.now();
+        for (OutboxEvent event : batch) {
+            event.setSent_at(sentAt);
+            deliveryDelay.record(Duration.between(event.getCreated(), sentAt));
+        }
+        published.increment(batch.size());
+        batchSizes.record(batch.size());
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        outboxEventRepository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+}
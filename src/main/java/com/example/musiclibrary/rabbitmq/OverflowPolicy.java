@@ -0,0 +1,11 @@
+package com.example.musiclibrary.rabbitmq;
+
+/**
+ * Поведение публикатора при заполненном буфере событий.
+ */
+public enum OverflowPolicy {
+    // событие отбрасывается, вызывающий поток не ждёт
+    DROP,
+    // вызывающий поток ждёт освобождения места (не дольше block-timeout)
+    BLOCK
+}
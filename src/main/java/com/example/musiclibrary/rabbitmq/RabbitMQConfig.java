@@ -14,6 +14,31 @@ public class RabbitMQConfig {
     public static final String queueBook = "book-queue";
     public static final String queueRental = "rental-queue";
     public static final String queueReservation = "reservation-queue";
+    // Ключи маршрутизации событий: library.<сущность>.<событие>
+    public static final String userRegistered = "library.user.registered";
+    public static final String userUpdated = "library.user.updated";
+    public static final String userDeleted = "library.user.deleted";
+    public static final String userRead = "library.user.read";
+    public static final String bookRegistered = "library.book.registered";
+    public static final String bookUpdated = "library.book.updated";
+    public static final String bookDeleted = "library.book.deleted";
+    public static final String bookRead = "library.book.read";
+    public static final String rentalOpened = "library.rental.opened";
+    public static final String rentalRejected = "library.rental.rejected";
+    public static final String rentalReturned = "library.rental.returned";
+    public static final String rentalUpdated = "library.rental.updated";
+    public static final String rentalsOverdue = "library.rental.overdue";
+    public static final String rentalDeleted = "library.rental.deleted";
+    public static final String rentalRead = "library.rental.read";
+    public static final String reservationPlaced = "library.reservation.placed";
+    public static final String reservationRejected = "library.reservation.rejected";
+    public static final String reservationExpired = "library.reservation.expired";
+    public static final String reservationsExpired = "library.reservation.expired.batch";
+    public static final String reservationWaitlisted = "library.reservation.waitlisted";
+    public static final String reservationAssigned = "library.reservation.assigned";
+    public static final String reservationUpdated = "library.reservation.updated";
+    public static final String reservationDeleted = "library.reservation.deleted";
+    public static final String reservationRead = "library.reservation.read";
     @Bean
     TopicExchange exchange() {
         return new TopicExchange(topicExchangeName);
@@ -1,19 +1,54 @@
 package com.example.musiclibrary.repositories;
 
 import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.repositories.projections.BookTitleRef;
+import jakarta.persistence.QueryHint;
+import com.example.musiclibrary.repositories.projections.BookRef;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, UUID> {
+public interface BookRepository extends JpaRepository<Book, UUID>, JpaSpecificationExecutor<Book>, BookSearchRepository {
     boolean existsByTitle(String title);
     Optional<Book> findByTitle(String title);
+    @Query(value = "select b from Book b join fetch b.user")
+    List<Book> findAllWithUser();
+    @Query(value = "select b from Book b join fetch b.user where b.title in :titles")
+    List<Book> findByTitleIn(@Param(value = "titles") Collection<String> titles);
+    @Query(value = "select b from Book b join fetch b.user where b.id in :ids")
+    List<Book> findAllWithUserByIdIn(@Param(value = "ids") Collection<UUID> ids);
     @Query(value = "select b from Book b join b.user u where u.name = :name")
     List<Book> findByUser(@Param(value = "name") String name);
+    @Query(value = "select b.title from Book b where b.user.id = :id")
+    List<String> findTitlesByUserId(@Param(value = "id") UUID id);
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.BookTitleRef(b.id, b.title, b.author) from Book b")
+    List<BookTitleRef> findAllTitleRefs();
+    // Выгрузка курсором: строки читаются порциями по fetch size и не попадают в контекст персистентности
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.BookRef(b.id, b.title, b.author, b.publisher, b.publication_year, b.genre, b.available_copies, b.total_copies, b.description, u.name) from Book b join b.user u")
+    Stream<BookRef> streamAllRefs();
     Optional<Book> findById(UUID uuid);
+    List<Book> findAllByOrderByIdAsc(Limit limit);
+    List<Book> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+    // Условное списание: строка обновляется, только если копий хватает, поэтому счётчик не уходит в минус
+    @Modifying
+    @Query(value = "update Book b set b.available_copies = b.available_copies - :count where b.id = :id and b.available_copies >= :count")
+    int takeCopies(@Param(value = "id") UUID id, @Param(value = "count") int count);
+    @Modifying
+    @Query(value = "update Book b set b.available_copies = b.available_copies + :count where b.id = :id and b.available_copies + :count <= b.total_copies")
+    int returnCopies(@Param(value = "id") UUID id, @Param(value = "count") int count);
 }
@@ -0,0 +1,14 @@
+package com.example.musiclibrary.repositories;
+
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.repositories.projections.BookSearchHits;
+
+public interface BookSearchRepository {
+    /**
+     * Ранжированный поиск по названию, автору, жанру и описанию (tsvector + pg_trgm, только PostgreSQL).
+     * Последнее слово запроса ищется по префиксу; если полнотекстовый поиск ничего не нашёл,
+     * название и автор сравниваются по триграммам, чтобы находить запросы с опечатками.
+     * Пустой запрос возвращает книги по фильтрам в порядке названия.
+     */
+    BookSearchHits search(String query, BookSearchFilter filter, long offset, int limit);
+}
@@ -0,0 +1,136 @@
+package com.example.musiclibrary.repositories;
+
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.repositories.projections.BookSearchHits;
+import com.example.musiclibrary.repositories.projections.FacetCount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Поиск по каталогу на нативном SQL: страница id по релевантности и один проход GROUPING SETS,
+ * который даёт и фасеты, и общее число совпадений.
+ */
+public class BookSearchRepositoryImpl implements BookSearchRepository {
+    private static final int FACET_SIZE = 10;
+
+    // Биты grouping(genre, publisher, publication_year): 1 — столбец не входит в набор группировки
+    private static final int BY_GENRE = 0b011;
+    private static final int BY_PUBLISHER = 0b101;
+    private static final int BY_YEAR = 0b110;
+    private static final int TOTAL = 0b111;
+
+    private static final String FULL_TEXT = "b.search_vector @@ to_tsquery('simple', :tsquery)";
+    private static final String FULL_TEXT_RANK = "ts_rank_cd(b.search_vector, to_tsquery('simple', :tsquery))";
+    private static final String FUZZY = "(:text <% b.title or :text <% b.author)";
+    private static final String FUZZY_RANK = "greatest(word_similarity(:text, b.title), word_similarity(:text, b.author))";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public BookSearchHits search(String query, BookSearchFilter filter, long offset, int limit) {
+        String tsquery = tsquery(query);
+        if (tsquery == null) {
+            return search(null, "b.title, b.id", new MapSqlParameterSource(), filter, offset, limit);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tsquery", tsquery)
+                .addValue("text", query.trim());
+        BookSearchHits hits = search(FULL_TEXT, FULL_TEXT_RANK + " desc, b.id", params, filter, offset, limit);
+        // Триграммы только когда полнотекстовый поиск ничего не нашёл: по частым триграммам индекс почти не отсекает строк
+        if (hits.total() == 0) {
+            hits = search(FUZZY, FUZZY_RANK + " desc, b.id", params, filter, offset, limit);
+        }
+        return hits;
+    }
+
+    private BookSearchHits search(String match, String order, MapSqlParameterSource params, BookSearchFilter filter, long offset, int limit) {
+        String where = where(match, filter, params);
+        params.addValue("limit", limit).addValue("offset", offset);
+        List<UUID> ids = jdbc.queryForList("select b.id from books b where " + where
+                + " order by " + order + " limit :limit offset :offset", params, UUID.class);
+
+        List<FacetCount> genres = new ArrayList<>();
+        List<FacetCount> publishers = new ArrayList<>();
+        List<FacetCount> years = new ArrayList<>();
+        long[] total = new long[1];
+        jdbc.query("select grouping(b.genre, b.publisher, b.publication_year) as g, b.genre, b.publisher, b.publication_year, count(*) as n "
+                + "from books b where " + where
+                + " group by grouping sets ((b.genre), (b.publisher), (b.publication_year), ())", params, rs -> {
+            long n = rs.getLong("n");
+            switch (rs.getInt("g")) {
+                case BY_GENRE -> genres.add(new FacetCount(rs.getString("genre"), n));
+                case BY_PUBLISHER -> publishers.add(new FacetCount(rs.getString("publisher"), n));
+                case BY_YEAR -> years.add(new FacetCount(rs.getString("publication_year"), n));
+                case TOTAL -> total[0] = n;
+                default -> {
+                }
+            }
+        });
+        return new BookSearchHits(ids, total[0], top(genres), top(publishers), top(years));
+    }
+
+    private static String where(String match, BookSearchFilter filter, MapSqlParameterSource params) {
+        List<String> conditions = new ArrayList<>();
+        if (match != null) {
+            conditions.add(match);
+        }
+        if (filter != null) {
+            if (StringUtils.hasText(filter.genre())) {
+                params.addValue("genre", filter.genre());
+                conditions.add("b.genre = :genre");
+            }
+            if (StringUtils.hasText(filter.publisher())) {
+                params.addValue("publisher", filter.publisher());
+                conditions.add("b.publisher = :publisher");
+            }
+            if (StringUtils.hasText(filter.author())) {
+                params.addValue("author", filter.author());
+                conditions.add("b.author = :author");
+            }
+            if (filter.yearFrom() != null) {
+                params.addValue("yearFrom", filter.yearFrom());
+                conditions.add("b.publication_year >= :yearFrom");
+            }
+            if (filter.yearTo() != null) {
+                params.addValue("yearTo", filter.yearTo());
+                conditions.add("b.publication_year <= :yearTo");
+            }
+        }
+        return conditions.isEmpty() ? "true" : String.join(" and ", conditions);
+    }
+
+    /**
+     * Слова запроса через "и", последнее — по префиксу: "война и ми" -> "война & и & ми:*".
+     * В tsquery попадают только буквы и цифры, поэтому операторы из пользовательского ввода не проходят.
+     */
+    static String tsquery(String query) {
+        if (!StringUtils.hasText(query)) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return String.join(" & ", terms) + ":*";
+    }
+
+    private static List<FacetCount> top(List<FacetCount> facets) {
+        facets.sort(Comparator.comparingLong(FacetCount::count).reversed()
+                .thenComparing(FacetCount::value, Comparator.nullsLast(Comparator.naturalOrder())));
+        return facets.size() > FACET_SIZE ? List.copyOf(facets.subList(0, FACET_SIZE)) : facets;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.musiclibrary.repositories;
+
+import com.example.musiclibrary.models.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+    // Таймаут блокировки -2 Hibernate переводит в SKIP LOCKED: строки, занятые другим экземпляром, пропускаются
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(value = "select o from OutboxEvent o where o.sent_at is null order by o.created")
+    List<OutboxEvent> lockUnsent(Limit limit);
+    @Modifying
+    @Query(value = "delete from OutboxEvent o where o.sent_at < :before")
+    int deleteSentBefore(@Param(value = "before") LocalDateTime before);
+}
@@ -1,19 +1,47 @@
 package com.example.musiclibrary.repositories;
 
 import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.repositories.projections.RentalRef;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface RentalRepository extends JpaRepository<Rental, UUID> {
+public interface RentalRepository extends JpaRepository<Rental, UUID>, JpaSpecificationExecutor<Rental> {
     @Query(value = "select r from Rental r join r.book b where b.title = :title")
     List<Rental> findByBook(@Param(value = "title") String title);
     @Query(value = "select r from Rental r join r.user u where u.name = :name")
     List<Rental> findByUser(@Param(value = "name") String name);
+    @Query(value = "select r from Rental r join fetch r.user join fetch r.book b join fetch b.user")
+    List<Rental> findAllWithBookAndUser();
+    @Query(value = "select r from Rental r join fetch r.user join fetch r.book b join fetch b.user order by r.id")
+    List<Rental> findFirstPageWithBookAndUser(Limit limit);
+    @Query(value = "select r from Rental r join fetch r.user join fetch r.book b join fetch b.user where r.id > :after order by r.id")
+    List<Rental> findPageWithBookAndUser(@Param(value = "after") UUID after, Limit limit);
+    @Query(value = "select r from Rental r join fetch r.user join fetch r.book where r.id in :ids")
+    List<Rental> findAllWithBookAndUserByIdIn(@Param(value = "ids") Collection<UUID> ids);
+    @Query(value = "select r from Rental r join fetch r.user u join fetch r.book b join fetch b.user where u.name in :names")
+    List<Rental> findByUserNames(@Param(value = "names") Collection<String> names);
+    // Без загрузки сущностей: пользователь и книга приходят только ключами
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.RentalRef(r.id, r.rental_date, r.due_date, r.return_date, r.extended_times, r.is_returned, r.is_overdue, u.name, b.title) from Rental r join r.user u join r.book b")
+    List<RentalRef> findAllRefs();
+    // Выгрузка курсором; from и to (не включая) ограничивают дату аренды, null — без границы
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.RentalRef(r.id, r.rental_date, r.due_date, r.return_date, r.extended_times, r.is_returned, r.is_overdue, u.name, b.title) from Rental r join r.user u join r.book b where (:from is null or r.rental_date >= :from) and (:to is null or r.rental_date < :to)")
+    Stream<RentalRef> streamRefs(@Param(value = "from") LocalDate from, @Param(value = "to") LocalDate to);
     Optional<Rental> findById(UUID uuid);
 }
\ No newline at end of file
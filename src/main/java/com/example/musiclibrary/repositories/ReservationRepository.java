@@ -1,19 +1,39 @@
 package com.example.musiclibrary.repositories;
 
 import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.repositories.projections.ReservationRef;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ReservationRepository extends JpaRepository<Reservation, UUID> {
+public interface ReservationRepository extends JpaRepository<Reservation, UUID>, JpaSpecificationExecutor<Reservation> {
     @Query(value = "select r from Reservation r join r.book b where b.title = :title")
     List<Reservation> findByBook(@Param(value = "title") String title);
     @Query(value = "select r from Reservation r join r.user u where u.name = :name")
     List<Reservation> findByUser(@Param(value = "name") String name);
+    @Query(value = "select r from Reservation r join fetch r.user join fetch r.book b join fetch b.user where b.title in :titles")
+    List<Reservation> findByBookTitles(@Param(value = "titles") Collection<String> titles);
+    // Без загрузки сущностей: пользователь и книга приходят только ключами
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.ReservationRef(r.id, r.reservation_date, r.expiry_date, r.is_active, u.name, b.title) from Reservation r join r.user u join r.book b")
+    List<ReservationRef> findAllRefs();
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.ReservationRef(r.id, r.reservation_date, r.expiry_date, r.is_active, u.name, b.title) from Reservation r join r.user u join r.book b")
+    Stream<ReservationRef> streamAllRefs();
     Optional<Reservation> findById(UUID uuid);
+    List<Reservation> findAllByOrderByIdAsc(Limit limit);
+    List<Reservation> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
 }
\ No newline at end of file
@@ -1,13 +1,20 @@
 package com.example.musiclibrary.repositories;
 import com.example.musiclibrary.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificationExecutor<User> {
     boolean existsByName(String name);
     Optional<User> findByName(String name);
+    List<User> findByNameIn(Collection<String> names);
     Optional<User> findById(UUID uuid);
+    List<User> findAllByOrderByIdAsc(Limit limit);
+    List<User> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.musiclibrary.repositories;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.WaitlistEntry;
+import com.example.musiclibrary.repositories.projections.BookWaitCount;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, UUID> {
+    // Голова очереди по idx_waitlist_head; записи, которые забирает параллельный возврат, пропускаются (SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(value = "select w from WaitlistEntry w where w.book.id = :bookId order by w.priority desc, w.created, w.id")
+    List<WaitlistEntry> lockHead(@Param(value = "bookId") UUID bookId, Limit limit);
+    @Query(value = "select count(w) from WaitlistEntry w where w.book.id = :bookId and (w.priority > :priority or (w.priority = :priority and w.created < (select o.created from WaitlistEntry o where o.id = :id)))")
+    long countAhead(@Param(value = "bookId") UUID bookId, @Param(value = "priority") int priority, @Param(value = "id") UUID id);
+    @Query(value = "select new com.example.musiclibrary.repositories.projections.BookWaitCount(w.book.id, count(w)) from WaitlistEntry w group by w.book.id")
+    List<BookWaitCount> countByBook();
+    // Книги с очередью, у которых в фонде есть копии: их вернули мимо очереди
+    @Query(value = "select distinct w.book from WaitlistEntry w where w.book.available_copies > 0")
+    List<Book> findWaitlistedBooksWithCopies();
+    boolean existsByBook_IdAndUser_Id(UUID bookId, UUID userId);
+    @Modifying
+    @Query(value = "delete from WaitlistEntry w where w.book.id = :bookId and w.user.id = :userId")
+    int deleteByBookAndUser(@Param(value = "bookId") UUID bookId, @Param(value = "userId") UUID userId);
+}
@@ -0,0 +1,10 @@
+package com.example.musiclibrary.repositories.projections;
+
+import java.util.UUID;
+
+/**
+ * Поля книги и имя добавившего её пользователя из одного запроса.
+ */
+public record BookRef(UUID id, String title, String author, String publisher, Integer publication_year, String genre,
+                      Integer available_copies, Integer total_copies, String description, String user) {
+}
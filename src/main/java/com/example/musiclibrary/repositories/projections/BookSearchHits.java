@@ -0,0 +1,11 @@
+package com.example.musiclibrary.repositories.projections;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Страница поиска: id книг в порядке релевантности, общее число совпадений и фасеты по всем совпадениям.
+ */
+public record BookSearchHits(List<UUID> ids, long total, List<FacetCount> genres, List<FacetCount> publishers,
+                             List<FacetCount> years) {
+}
@@ -0,0 +1,9 @@
+package com.example.musiclibrary.repositories.projections;
+
+import java.util.UUID;
+
+/**
+ * Id, название и автор книги без загрузки сущности (для индекса автодополнения).
+ */
+public record BookTitleRef(UUID id, String title, String author) {
+}
@@ -0,0 +1,9 @@
+package com.example.musiclibrary.repositories.projections;
+
+import java.util.UUID;
+
+/**
+ * Книга и число читателей в её очереди ожидания.
+ */
+public record BookWaitCount(UUID bookId, long count) {
+}
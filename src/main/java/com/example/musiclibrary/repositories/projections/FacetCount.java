@@ -0,0 +1,7 @@
+package com.example.musiclibrary.repositories.projections;
+
+/**
+ * Значение фасета и число найденных книг с этим значением.
+ */
+public record FacetCount(String value, long count) {
+}
@@ -0,0 +1,11 @@
+package com.example.musiclibrary.repositories.projections;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Поля аренды и ключи связанных сущностей (имя пользователя, название книги) из одного запроса.
+ */
+public record RentalRef(UUID id, LocalDate rental_date, LocalDate due_date, LocalDate return_date,
+                        Integer extended_times, Boolean is_returned, Boolean is_overdue, String user, String book) {
+}
@@ -0,0 +1,11 @@
+package com.example.musiclibrary.repositories.projections;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Поля бронирования и ключи связанных сущностей (имя пользователя, название книги) из одного запроса.
+ */
+public record ReservationRef(UUID id, LocalDate reservation_date, LocalDate expiry_date, Boolean is_active,
+                             String user, String book) {
+}
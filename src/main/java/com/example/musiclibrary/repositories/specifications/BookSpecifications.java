@@ -0,0 +1,31 @@
+package com.example.musiclibrary.repositories.specifications;
+
+import com.example.musiclibrary.models.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.example.musiclibrary.repositories.specifications.EntitySpecifications.isBlank;
+
+public final class BookSpecifications {
+    private BookSpecifications() {
+    }
+
+    /**
+     * Подгружает владельца книги тем же запросом.
+     */
+    public static Specification<Book> fetchUser() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                root.fetch("user");
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Book> genre(String genre) {
+        return isBlank(genre) ? null : (root, query, cb) -> cb.equal(root.get("genre"), genre);
+    }
+
+    public static Specification<Book> author(String author) {
+        return isBlank(author) ? null : (root, query, cb) -> cb.equal(root.get("author"), author);
+    }
+}
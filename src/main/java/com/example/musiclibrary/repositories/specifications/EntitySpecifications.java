@@ -0,0 +1,44 @@
+package com.example.musiclibrary.repositories.specifications;
+
+import com.example.musiclibrary.models.BaseEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public final class EntitySpecifications {
+    private EntitySpecifications() {
+    }
+
+    /**
+     * Условие курсорной пагинации: записи строго после id последней выданной записи.
+     */
+    public static <T extends BaseEntity> Specification<T> idAfter(UUID after) {
+        if (after == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThan(root.<UUID>get("id"), after);
+    }
+
+    /**
+     * Дата в диапазоне [from, to]; любая из границ может отсутствовать.
+     */
+    public static <T> Specification<T> dateBetween(String attribute, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (from == null) {
+                return cb.lessThanOrEqualTo(root.get(attribute), to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), from);
+            }
+            return cb.between(root.get(attribute), from, to);
+        };
+    }
+
+    static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
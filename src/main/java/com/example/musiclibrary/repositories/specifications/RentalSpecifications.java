@@ -0,0 +1,56 @@
+package com.example.musiclibrary.repositories.specifications;
+
+import com.example.musiclibrary.models.Rental;
+import jakarta.persistence.criteria.Fetch;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.example.musiclibrary.repositories.specifications.EntitySpecifications.isBlank;
+
+public final class RentalSpecifications {
+    private RentalSpecifications() {
+    }
+
+    /**
+     * Подгружает пользователя и книгу тем же запросом, чтобы при выдаче не было запроса на каждую строку.
+     */
+    public static Specification<Rental> fetchUserAndBook() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                root.fetch("user");
+                Fetch<?, ?> book = root.fetch("book");
+                book.fetch("user");
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Rental> user(String name) {
+        return isBlank(name) ? null : (root, query, cb) -> cb.equal(root.join("user").get("name"), name);
+    }
+
+    public static Specification<Rental> book(String title) {
+        return isBlank(title) ? null : (root, query, cb) -> cb.equal(root.join("book").get("title"), title);
+    }
+
+    public static Specification<Rental> returned(Boolean returned) {
+        if (returned == null) {
+            return null;
+        }
+        return returned
+                ? (root, query, cb) -> cb.isTrue(root.get("is_returned"))
+                : (root, query, cb) -> cb.or(cb.isNull(root.get("is_returned")), cb.isFalse(root.get("is_returned")));
+    }
+
+    /**
+     * Флаг просрочки ставит OverdueSweeper, после возврата книги он сохраняется:
+     * текущие задолженности — overdue(true) вместе с returned(false).
+     */
+    public static Specification<Rental> overdue(Boolean overdue) {
+        if (overdue == null) {
+            return null;
+        }
+        return overdue
+                ? (root, query, cb) -> cb.isTrue(root.get("is_overdue"))
+                : (root, query, cb) -> cb.isFalse(root.get("is_overdue"));
+    }
+}
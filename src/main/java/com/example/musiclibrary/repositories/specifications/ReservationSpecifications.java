@@ -0,0 +1,43 @@
+package com.example.musiclibrary.repositories.specifications;
+
+import com.example.musiclibrary.models.Reservation;
+import jakarta.persistence.criteria.Fetch;
+import org.springframework.data.jpa.domain.Specification;
+
+import static com.example.musiclibrary.repositories.specifications.EntitySpecifications.isBlank;
+
+public final class ReservationSpecifications {
+    private ReservationSpecifications() {
+    }
+
+    /**
+     * Подгружает пользователя и книгу тем же запросом, чтобы при выдаче не было запроса на каждую строку.
+     */
+    public static Specification<Reservation> fetchUserAndBook() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                root.fetch("user");
+                Fetch<?, ?> book = root.fetch("book");
+                book.fetch("user");
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Reservation> user(String name) {
+        return isBlank(name) ? null : (root, query, cb) -> cb.equal(root.join("user").get("name"), name);
+    }
+
+    public static Specification<Reservation> book(String title) {
+        return isBlank(title) ? null : (root, query, cb) -> cb.equal(root.join("book").get("title"), title);
+    }
+
+    public static Specification<Reservation> active(Boolean active) {
+        if (active == null) {
+            return null;
+        }
+        return active
+                ? (root, query, cb) -> cb.isTrue(root.get("is_active"))
+                : (root, query, cb) -> cb.or(cb.isNull(root.get("is_active")), cb.isFalse(root.get("is_active")));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.musiclibrary.repositories.specifications;
+
+import com.example.musiclibrary.models.User;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class UserSpecifications {
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> role(User.Role role) {
+        return role == null ? null : (root, query, cb) -> cb.equal(root.get("role"), role);
+    }
+}
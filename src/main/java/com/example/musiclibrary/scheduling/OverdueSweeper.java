@@ -0,0 +1,163 @@
+package com.example.musiclibrary.scheduling;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.rabbitmq.EventOutbox;
+import com.example.musiclibrary.rabbitmq.LibraryEvents;
+import com.example.musiclibrary.rabbitmq.RabbitMQConfig;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.services.InventoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Фоновое закрытие истёкших бронирований и пометка просроченных аренд.
+ * Работа идёт пачками по library.sweeper.batch-size строк: каждая пачка — одна транзакция из выборки ключей
+ * (SKIP LOCKED), одного UPDATE по ним, возврата копий в фонд и одного сводного события в outbox.
+ * В PostgreSQL пачка начинается с pg_try_advisory_xact_lock, поэтому в каждый момент проход делает только один экземпляр;
+ * остальные, не получив блокировку, пропускают запуск.
+ */
+@Component
+public class OverdueSweeper {
+    private static final Logger log = LoggerFactory.getLogger(OverdueSweeper.class);
+    // Ключ advisory-блокировки, общий для всех экземпляров приложения
+    private static final long LOCK_KEY = "library.overdue-sweeper".hashCode();
+    private static final int LOCKED_ELSEWHERE = -1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private EventOutbox eventOutbox;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.sweeper.batch-size:500}")
+    private int batchSize;
+    @Value("${library.sweeper.max-batches:100}")
+    private int maxBatches;
+
+    private boolean advisoryLocks;
+
+    private record Row(UUID id, UUID bookId) {
+    }
+
+    @PostConstruct
+    void init() {
+        advisoryLocks = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) c -> c.isWrapperFor(PGConnection.class)));
+    }
+
+    @Scheduled(initialDelayString = "${library.sweeper.interval-ms:60000}", fixedDelayString = "${library.sweeper.interval-ms:60000}")
+    public void sweep() {
+        LocalDate today = LocalDate.now();
+        expireReservations(today);
+        flagOverdueRentals(today);
+    }
+
+    /**
+     * Закрывает активные бронирования с expiry_date раньше today и возвращает их копии в фонд.
+     * @return число закрытых бронирований
+     */
+    public long expireReservations(LocalDate today) {
+        return run("reservations", batch -> {
+            List<Row> rows = jdbcTemplate.query("select id, book_id from reservations where is_active = true and expiry_date < ? "
+                            + "order by expiry_date limit ? for update skip locked",
+                    (rs, n) -> new Row(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), Date.valueOf(today), batch);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<UUID> ids = rows.stream().map(Row::id).collect(Collectors.toList());
+            namedJdbcTemplate.update("update reservations set is_active = false, \"modified on\" = :now where id in (:ids)",
+                    Map.of("ids", ids, "now", Timestamp.valueOf(LocalDateTime.now())));
+            Map<UUID, Integer> copies = rows.stream().collect(Collectors.groupingBy(Row::bookId, Collectors.summingInt(r -> 1)));
+            for (Book book : bookRepository.findAllById(copies.keySet())) {
+                inventoryService.releaseCopies(book, copies.get(book.getId()));
+            }
+            eventOutbox.add(RabbitMQConfig.reservationsExpired, LibraryEvents.reservationsExpired(ids, copies));
+            return rows.size();
+        });
+    }
+
+    /**
+     * Помечает невозвращённые аренды с due_date раньше today. Копии остаются у читателей.
+     * @return число помеченных аренд
+     */
+    public long flagOverdueRentals(LocalDate today) {
+        return run("rentals", batch -> {
+            List<UUID> ids = jdbcTemplate.queryForList("select id from rentals where is_returned = false and is_overdue = false "
+                    + "and due_date < ? order by due_date limit ? for update skip locked", UUID.class, Date.valueOf(today), batch);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            namedJdbcTemplate.update("update rentals set is_overdue = true, \"modified on\" = :now where id in (:ids)",
+                    Map.of("ids", ids, "now", Timestamp.valueOf(LocalDateTime.now())));
+            eventOutbox.add(RabbitMQConfig.rentalsOverdue, LibraryEvents.rentalsOverdue(ids));
+            return ids.size();
+        });
+    }
+
+    // Пачки до пустой (или неполной) выборки, но не больше maxBatches за запуск
+    private long run(String task, IntUnaryOperator batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter rows = meterRegistry.counter("library.sweeper.rows", "task", task);
+        long total = 0;
+        String outcome = "done";
+        for (int i = 0; i < maxBatches; i++) {
+            Integer updated = transactionTemplate.execute(status -> {
+                if (advisoryLocks && !Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY))) {
+                    return LOCKED_ELSEWHERE;
+                }
+                return batch.applyAsInt(batchSize);
+            });
+            if (updated == null || updated == LOCKED_ELSEWHERE) {
+                outcome = "locked";
+                break;
+            }
+            total += updated;
+            rows.increment(updated);
+            if (updated < batchSize) {
+                break;
+            }
+            if (i == maxBatches - 1) {
+                outcome = "limited";
+            }
+        }
+        sample.stop(Timer.builder("library.sweeper.run")
+                .tag("task", task)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        if (total > 0) {
+            log.info("Фоновая очистка {}: изменено {} записей", task, total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.musiclibrary.services;
+
+import com.example.musiclibrary.dtos.AutocompleteStats;
+import com.example.musiclibrary.dtos.BookSuggestion;
+import com.example.musiclibrary.models.Book;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface AutocompleteService {
+    /**
+     * Книги, у которых название начинается с текста, затем книги, где каждое слово текста — начало слова
+     * названия или автора. Без обращения к БД.
+     */
+    List<BookSuggestion> suggest(String text, int limit);
+    /**
+     * Добавляет или обновляет книгу в индексе; внутри транзакции — после коммита.
+     */
+    void bookSaved(Book book);
+    void bookDeleted(UUID id);
+    /**
+     * Полная перестройка из БД, например после массовой загрузки мимо BookService.
+     */
+    void rebuild();
+    AutocompleteStats stats();
+}
@@ -0,0 +1,19 @@
+package com.example.musiclibrary.services;
+
+import com.example.musiclibrary.dtos.BookImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface BookImportService {
+    enum Format {
+        CSV, NDJSON
+    }
+    /**
+     * Потоковая загрузка книг из CSV с заголовком или NDJSON (поля как у BookDto) от имени пользователя addedBy.
+     * Записи пишутся пачками в отдельных транзакциях; книги с уже существующим названием пропускаются.
+     * @param progress получает промежуточный отчёт после каждой пачки
+     */
+    BookImportReport importBooks(InputStream in, Format format, String addedBy, Consumer<BookImportReport> progress) throws IOException;
+}
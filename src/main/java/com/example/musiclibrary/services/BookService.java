@@ -1,15 +1,36 @@
 package com.example.musiclibrary.services;
 
 import com.example.musiclibrary.dtos.BookDto;
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.dtos.BookSearchPage;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.models.Book;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface BookService {
     BookDto addBook(BookDto book, String user) throws InterruptedException;
     Optional<BookShow> findBook(String title) throws InterruptedException;
     Optional<BookDto> findBookDto(String title) throws InterruptedException;
     List<BookShow> getAllBooks() throws InterruptedException;
+    /**
+     * Книги с владельцами по названиям одним запросом (для DataLoader'ов GraphQL).
+     */
+    Map<String, BookShow> findBooks(Collection<String> titles) throws InterruptedException;
+    CursorPage<BookShow> getBooksPage(UUID after, int limit) throws InterruptedException;
+    /**
+     * Страница после курсора с фильтром, который выполняется в БД.
+     */
+    CursorPage<BookShow> getBooksPage(Specification<Book> filter, UUID after, int limit) throws InterruptedException;
+    /**
+     * Поиск по каталогу с ранжированием, префиксом последнего слова, опечатками и фасетами; page с нуля.
+     */
+    BookSearchPage searchBooks(String query, BookSearchFilter filter, int page, int size) throws InterruptedException;
     Optional <BookDto> editBook(String title, BookDto book) throws InterruptedException;
     void deleteBook(String title) throws InterruptedException;
 }
@@ -0,0 +1,22 @@
+package com.example.musiclibrary.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Полная выгрузка таблиц плоскими строками: записи читаются курсором и сразу пишутся в out,
+ * поэтому память не зависит от числа строк. Возвращается число выгруженных строк.
+ */
+public interface ExportService {
+    enum Format {
+        CSV, NDJSON
+    }
+    long exportBooks(OutputStream out, Format format) throws IOException;
+    /**
+     * @param from первая дата аренды или null
+     * @param to дата аренды, с которой выгрузка заканчивается (не включая), или null
+     */
+    long exportRentals(OutputStream out, Format format, LocalDate from, LocalDate to) throws IOException;
+    long exportReservations(OutputStream out, Format format) throws IOException;
+}
@@ -0,0 +1,24 @@
+package com.example.musiclibrary.services;
+
+import com.example.musiclibrary.models.Book;
+
+public interface InventoryService {
+    /**
+     * Атомарно забирает одну доступную копию книги.
+     * @return false, если свободных копий нет
+     */
+    boolean acquireCopy(Book book);
+    /**
+     * Возвращает одну копию книги в фонд (не больше общего числа копий).
+     */
+    void releaseCopy(Book book);
+    /**
+     * Забирает до count копий одной книги: одним условным UPDATE, если хватает на все, иначе по одной.
+     * @return сколько копий выдано
+     */
+    int acquireCopies(Book book, int count);
+    /**
+     * Возвращает count копий книги в фонд.
+     */
+    void releaseCopies(Book book, int count);
+}
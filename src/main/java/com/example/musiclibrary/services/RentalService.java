@@ -1,8 +1,13 @@
 package com.example.musiclibrary.services;
 
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.RentalDto;
 import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.models.Rental;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,6 +16,20 @@ public interface RentalService {
     Optional<RentalShow> findRental(UUID id) throws InterruptedException;
     Optional<RentalDto> findRentalDto(UUID id) throws InterruptedException;
     List<RentalShow> getAllRentals() throws InterruptedException;
+    List<RentalShow> getAllRentalsWithDetails() throws InterruptedException;
+    /**
+     * Все аренды одним запросом; у пользователя и книги заполнены только имя и название.
+     */
+    List<RentalShow> getAllRentalRefs() throws InterruptedException;
+    /**
+     * Аренды, сгруппированные по имени пользователя.
+     */
+    Map<String, List<RentalShow>> findRentalsByUsers(Collection<String> names) throws InterruptedException;
+    CursorPage<RentalShow> getRentalsPage(UUID after, int limit) throws InterruptedException;
+    /**
+     * Страница после курсора с фильтром, который выполняется в БД.
+     */
+    CursorPage<RentalShow> getRentalsPage(Specification<Rental> filter, UUID after, int limit) throws InterruptedException;
     Optional <RentalDto> editRental(UUID id, RentalDto rental) throws InterruptedException;
     void deleteRental(UUID id) throws InterruptedException;
 }
\ No newline at end of file
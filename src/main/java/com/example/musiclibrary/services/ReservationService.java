@@ -1,8 +1,13 @@
 package com.example.musiclibrary.services;
 
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.ReservationDto;
 import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.models.Reservation;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,6 +16,19 @@ public interface ReservationService {
     Optional<ReservationShow> findReservation(UUID id) throws InterruptedException;
     Optional<ReservationDto> findReservationDto(UUID id) throws InterruptedException;
     List<ReservationShow> getAllReservations() throws InterruptedException;
+    /**
+     * Все бронирования одним запросом; у пользователя и книги заполнены только имя и название.
+     */
+    List<ReservationShow> getAllReservationRefs() throws InterruptedException;
+    /**
+     * Бронирования, сгруппированные по названию книги.
+     */
+    Map<String, List<ReservationShow>> findReservationsByBooks(Collection<String> titles) throws InterruptedException;
+    CursorPage<ReservationShow> getReservationsPage(UUID after, int limit) throws InterruptedException;
+    /**
+     * Страница после курсора с фильтром, который выполняется в БД.
+     */
+    CursorPage<ReservationShow> getReservationsPage(Specification<Reservation> filter, UUID after, int limit) throws InterruptedException;
     Optional <ReservationDto> editReservation(UUID id, ReservationDto rental) throws InterruptedException;
     void deleteReservation(UUID id) throws InterruptedException;
 }
\ No newline at end of file
@@ -1,13 +1,28 @@
 package com.example.musiclibrary.services;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.UserDto;
 import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.models.User;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 public interface UserService {
     UserDto register(UserDto user) throws InterruptedException;
     Optional <UserDto> findUserDto(String name) throws InterruptedException;
     Optional <UserShow> findUser(String name) throws InterruptedException;
     List<UserShow> getAllUsers() throws InterruptedException;
+    /**
+     * Пользователи по именам одним запросом (для DataLoader'ов GraphQL).
+     */
+    Map<String, UserShow> findUsers(Collection<String> names) throws InterruptedException;
+    CursorPage<UserShow> getUsersPage(UUID after, int limit) throws InterruptedException;
+    /**
+     * Страница после курсора с фильтром, который выполняется в БД.
+     */
+    CursorPage<UserShow> getUsersPage(Specification<User> filter, UUID after, int limit) throws InterruptedException;
     Optional <UserDto> editUser(String name, UserDto user) throws InterruptedException;
     void delete(String username) throws InterruptedException;
 }
\ No newline at end of file
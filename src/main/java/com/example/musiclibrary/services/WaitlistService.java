@@ -0,0 +1,28 @@
+package com.example.musiclibrary.services;
+
+import com.example.musiclibrary.models.Book;
+
+import java.util.UUID;
+
+public interface WaitlistService {
+    /**
+     * Ставит читателя в очередь ожидания книги, у которой нет свободных копий.
+     * @param priority учитывается только при library.waitlist.ordering=priority, больший — раньше
+     * @return место в очереди, с 1
+     */
+    long join(String user, String book, int priority);
+    /**
+     * @return false, если читателя не было в очереди
+     */
+    boolean leave(String user, String book);
+    /**
+     * Есть ли у книги очередь, по индексу в памяти без обращения к БД.
+     */
+    boolean hasWaiting(UUID bookId);
+    /**
+     * Отдаёт до count возвращённых копий первым в очереди: каждому создаётся активное бронирование
+     * и отправляется событие. Вызывается в транзакции возврата.
+     * @return сколько копий отдано, остальные возвращаются в фонд вызывающим
+     */
+    int handOff(Book book, int count);
+}
@@ -0,0 +1,75 @@
+package com.example.musiclibrary.services.impl;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Книга в индексе автодополнения: key — нормализованное название, tokens — различные слова названия и автора.
+ */
+record AutocompleteDoc(UUID id, String title, String author, String key, String[] tokens) {
+    static final int NO_MATCH = -1;
+    static final int TITLE_PREFIX = 0;
+    static final int WORD_PREFIX = 1;
+
+    static AutocompleteDoc of(UUID id, String title, String author) {
+        String key = normalize(title);
+        String words = (key + " " + normalize(author)).trim();
+        String[] tokens = words.isEmpty() ? new String[0] : Arrays.stream(words.split(" ")).distinct().toArray(String[]::new);
+        return new AutocompleteDoc(id, title, author, key, tokens);
+    }
+
+    /**
+     * Нижний регистр, ё как е, всё кроме букв и цифр — одиночный пробел.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                sb.append(c == 'ё' ? 'е' : c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param query нормализованный запрос
+     * @param terms слова запроса
+     */
+    int match(String query, String[] terms) {
+        if (key.startsWith(query)) {
+            return TITLE_PREFIX;
+        }
+        return matchesWords(tokens, terms) ? WORD_PREFIX : NO_MATCH;
+    }
+
+    // Каждое слово запроса — начало хотя бы одного слова книги
+    static boolean matchesWords(String[] tokens, String[] terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
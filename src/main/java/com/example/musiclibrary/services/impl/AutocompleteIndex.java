@@ -0,0 +1,113 @@
+package com.example.musiclibrary.services.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Индекс автодополнения: неизменяемый сегмент плюс небольшая дельта последних изменений.
+ * Чтение без блокировок по volatile-снимку; запись копирует дельту (она ограничена порогом перестройки).
+ * Перестройка собирает новый сегмент вне блокировки и переносит в него только то, что изменилось, пока он строился.
+ */
+final class AutocompleteIndex {
+    /**
+     * Снимок: книга видна, если она есть в delta, или есть в base и её id нет в changes
+     * (changes — id, удалённые или записанные заново после построения base, с номером последнего изменения).
+     */
+    record State(AutocompleteSegment base, Map<UUID, AutocompleteDoc> delta, Map<UUID, Long> changes) {
+        int pending() {
+            return changes.size();
+        }
+
+        List<AutocompleteDoc> visibleDocs() {
+            List<AutocompleteDoc> docs = new ArrayList<>(base.size() + delta.size());
+            for (int doc = 0; doc < base.size(); doc++) {
+                if (!changes.containsKey(base.id(doc))) {
+                    docs.add(base.doc(doc));
+                }
+            }
+            docs.addAll(delta.values());
+            return docs;
+        }
+    }
+
+    private volatile State state = new State(AutocompleteSegment.EMPTY, Map.of(), Map.of());
+    private long sequence;
+
+    State state() {
+        return state;
+    }
+
+    synchronized void put(UUID id, String title, String author) {
+        State s = state;
+        Map<UUID, AutocompleteDoc> delta = new HashMap<>(s.delta());
+        delta.put(id, AutocompleteDoc.of(id, title, author));
+        Map<UUID, Long> changes = new HashMap<>(s.changes());
+        changes.put(id, ++sequence);
+        state = new State(s.base(), Map.copyOf(delta), Map.copyOf(changes));
+    }
+
+    synchronized void remove(UUID id) {
+        State s = state;
+        Map<UUID, AutocompleteDoc> delta = new HashMap<>(s.delta());
+        delta.remove(id);
+        Map<UUID, Long> changes = new HashMap<>(s.changes());
+        changes.put(id, ++sequence);
+        state = new State(s.base(), Map.copyOf(delta), Map.copyOf(changes));
+    }
+
+    List<AutocompleteSegment.Hit> suggest(String text, int limit) {
+        String query = AutocompleteDoc.normalize(text);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String[] terms = query.split(" ");
+        State s = state;
+        List<AutocompleteSegment.Hit> hits = new ArrayList<>();
+        s.base().collect(query, terms, limit, s.changes()::containsKey, hits);
+        for (AutocompleteDoc doc : s.delta().values()) {
+            int tier = doc.match(query, terms);
+            if (tier != AutocompleteDoc.NO_MATCH) {
+                hits.add(new AutocompleteSegment.Hit(tier, doc.key(), doc.id(), doc.title(), doc.author()));
+            }
+        }
+        hits.sort(AutocompleteSegment.Hit.ORDER);
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * Сливает дельту в новый сегмент из видимых книг.
+     */
+    void compact() {
+        rebuild(State::visibleDocs);
+    }
+
+    /**
+     * Строит новый сегмент из source (видимые книги снимка или выгрузка из БД, начатая после снимка)
+     * и сохраняет поверх него изменения, сделанные во время построения.
+     */
+    void rebuild(Function<State, Collection<AutocompleteDoc>> source) {
+        State before = state;
+        AutocompleteSegment base = AutocompleteSegment.build(source.apply(before));
+        synchronized (this) {
+            State now = state;
+            Map<UUID, AutocompleteDoc> delta = new HashMap<>();
+            Map<UUID, Long> changes = new HashMap<>();
+            // Изменения до снимка уже в новом сегменте, остаются только сделанные после него
+            now.changes().forEach((id, seq) -> {
+                if (!seq.equals(before.changes().get(id))) {
+                    changes.put(id, seq);
+                    AutocompleteDoc doc = now.delta().get(id);
+                    if (doc != null) {
+                        delta.put(id, doc);
+                    }
+                }
+            });
+            state = new State(base, Map.copyOf(delta), Map.copyOf(changes));
+        }
+    }
+}
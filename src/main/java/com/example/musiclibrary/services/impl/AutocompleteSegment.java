@@ -0,0 +1,325 @@
+package com.example.musiclibrary.services.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Неизменяемая часть индекса автодополнения.
+ * Книги отсортированы по нормализованному названию и нумеруются по этому порядку: префикс названия —
+ * непрерывный диапазон номеров, а списки книг по словам сразу идут в порядке выдачи.
+ * Словарь слов лежит одним массивом символов со смещениями, списки книг — одним массивом int.
+ */
+final class AutocompleteSegment {
+    static final Comparator<AutocompleteDoc> ORDER = Comparator.comparing(AutocompleteDoc::key).thenComparing(AutocompleteDoc::id);
+    static final AutocompleteSegment EMPTY = build(List.of());
+
+    /**
+     * Найденная книга: tier 0 — название начинается с запроса, 1 — совпали начала слов.
+     */
+    record Hit(int tier, String key, UUID id, String title, String author) {
+        static final Comparator<Hit> ORDER = Comparator.comparingInt(Hit::tier).thenComparing(Hit::key).thenComparing(Hit::id);
+    }
+
+    private final long[] idHigh;
+    private final long[] idLow;
+    private final String[] keys;
+    private final String[] titles;
+    private final String[] authors;
+    // слово t — termChars[termStart[t], termStart[t + 1]), его книги — postings[postingStart[t], postingStart[t + 1])
+    private final char[] termChars;
+    private final int[] termStart;
+    private final int[] postingStart;
+    private final int[] postings;
+    private final long memoryBytes;
+
+    private AutocompleteSegment(long[] idHigh, long[] idLow, String[] keys, String[] titles, String[] authors,
+                                char[] termChars, int[] termStart, int[] postingStart, int[] postings) {
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+        this.keys = keys;
+        this.titles = titles;
+        this.authors = authors;
+        this.termChars = termChars;
+        this.termStart = termStart;
+        this.postingStart = postingStart;
+        this.postings = postings;
+        this.memoryBytes = estimateBytes();
+    }
+
+    static AutocompleteSegment build(Collection<AutocompleteDoc> docs) {
+        AutocompleteDoc[] sorted = docs.toArray(new AutocompleteDoc[0]);
+        Arrays.sort(sorted, ORDER);
+        int n = sorted.length;
+        long[] idHigh = new long[n];
+        long[] idLow = new long[n];
+        String[] keys = new String[n];
+        String[] titles = new String[n];
+        String[] authors = new String[n];
+        Map<String, IntList> byTerm = new HashMap<>();
+        for (int doc = 0; doc < n; doc++) {
+            AutocompleteDoc d = sorted[doc];
+            idHigh[doc] = d.id().getMostSignificantBits();
+            idLow[doc] = d.id().getLeastSignificantBits();
+            keys[doc] = d.key();
+            titles[doc] = d.title();
+            authors[doc] = d.author();
+            for (String token : d.tokens()) {
+                byTerm.computeIfAbsent(token, t -> new IntList()).add(doc);
+            }
+        }
+
+        String[] terms = byTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int chars = 0;
+        int total = 0;
+        for (String term : terms) {
+            chars += term.length();
+            total += byTerm.get(term).size;
+        }
+        char[] termChars = new char[chars];
+        int[] termStart = new int[terms.length + 1];
+        int[] postingStart = new int[terms.length + 1];
+        int[] postings = new int[total];
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            term.getChars(0, term.length(), termChars, termStart[t]);
+            termStart[t + 1] = termStart[t] + term.length();
+            IntList docsOfTerm = byTerm.get(term);
+            System.arraycopy(docsOfTerm.values, 0, postings, postingStart[t], docsOfTerm.size);
+            postingStart[t + 1] = postingStart[t] + docsOfTerm.size;
+        }
+        return new AutocompleteSegment(idHigh, idLow, keys, titles, authors, termChars, termStart, postingStart, postings);
+    }
+
+    int size() {
+        return titles.length;
+    }
+
+    int terms() {
+        return termStart.length - 1;
+    }
+
+    long memoryBytes() {
+        return memoryBytes;
+    }
+
+    UUID id(int doc) {
+        return new UUID(idHigh[doc], idLow[doc]);
+    }
+
+    AutocompleteDoc doc(int doc) {
+        return AutocompleteDoc.of(id(doc), titles[doc], authors[doc]);
+    }
+
+    /**
+     * Добавляет в out не больше limit книг первого уровня и, если их не хватило, книги второго уровня до limit.
+     *
+     * @param query  нормализованный запрос
+     * @param terms  слова запроса
+     * @param hidden книги, которые удалены или заменены более новой версией
+     */
+    void collect(String query, String[] terms, int limit, Predicate<UUID> hidden, List<Hit> out) {
+        int found = 0;
+        for (int doc = lowerBoundKey(query); doc < titles.length && found < limit; doc++) {
+            String key = keys[doc];
+            if (!key.startsWith(query)) {
+                break;
+            }
+            UUID id = id(doc);
+            if (!hidden.test(id)) {
+                out.add(new Hit(AutocompleteDoc.TITLE_PREFIX, key, id, titles[doc], authors[doc]));
+                found++;
+            }
+        }
+        if (found < limit) {
+            collectWords(query, terms, limit - found, hidden, out);
+        }
+    }
+
+    /**
+     * Слияние списков книг всех слов словаря, начинающихся с самого длинного слова запроса.
+     * Списки отсортированы, поэтому книги выходят в порядке выдачи и слияние останавливается на limit.
+     */
+    private void collectWords(String query, String[] terms, int limit, Predicate<UUID> hidden, List<Hit> out) {
+        String driver = terms[0];
+        for (String term : terms) {
+            if (term.length() > driver.length()) {
+                driver = term;
+            }
+        }
+        int lo = lowerBoundTerm(driver);
+        int hi = lowerBoundTerm(driver + Character.MAX_VALUE);
+        if (lo == hi) {
+            return;
+        }
+        int[] cursor = new int[hi - lo];
+        LongHeap heap = new LongHeap(hi - lo);
+        for (int t = lo; t < hi; t++) {
+            cursor[t - lo] = postingStart[t];
+            heap.push(((long) postings[postingStart[t]] << 32) | (t - lo));
+        }
+        int found = 0;
+        int last = -1;
+        while (!heap.isEmpty() && found < limit) {
+            long top = heap.pop();
+            int doc = (int) (top >>> 32);
+            int k = (int) top;
+            int next = ++cursor[k];
+            if (next < postingStart[lo + k + 1]) {
+                heap.push(((long) postings[next] << 32) | k);
+            }
+            if (doc == last) {
+                continue;
+            }
+            last = doc;
+            String key = keys[doc];
+            // книги с названием на запрос уже отданы первым уровнем
+            if (key.startsWith(query)) {
+                continue;
+            }
+            UUID id = id(doc);
+            if (hidden.test(id)) {
+                continue;
+            }
+            if (terms.length > 1 && !AutocompleteDoc.matchesWords(AutocompleteDoc.of(id, titles[doc], authors[doc]).tokens(), terms)) {
+                continue;
+            }
+            out.add(new Hit(AutocompleteDoc.WORD_PREFIX, key, id, titles[doc], authors[doc]));
+            found++;
+        }
+    }
+
+    private int lowerBoundKey(String query) {
+        int lo = 0;
+        int hi = titles.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(query) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int lowerBoundTerm(String s) {
+        int lo = 0;
+        int hi = terms();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareTerm(mid, s) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Как String.compareTo, но без создания строки из словаря
+    private int compareTerm(int t, String s) {
+        int from = termStart[t];
+        int length = termStart[t + 1] - from;
+        int common = Math.min(length, s.length());
+        for (int i = 0; i < common; i++) {
+            char c = termChars[from + i];
+            char d = s.charAt(i);
+            if (c != d) {
+                return c - d;
+            }
+        }
+        return length - s.length();
+    }
+
+    /**
+     * Приблизительный размер в куче: массивы плюс строки ключей, названий и авторов
+     * (заголовки объектов по 16 байт, сжатые ссылки по 4).
+     */
+    private long estimateBytes() {
+        long bytes = 16L * idHigh.length + 12L * titles.length
+                + 2L * termChars.length + 4L * (termStart.length + postingStart.length + postings.length);
+        for (int i = 0; i < titles.length; i++) {
+            bytes += stringBytes(keys[i]) + stringBytes(titles[i]) + stringBytes(authors[i]);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String s) {
+        if (s == null) {
+            return 0;
+        }
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) {
+            latin1 = s.charAt(i) < 256;
+        }
+        return 24 + 16 + (long) s.length() * (latin1 ? 1 : 2);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    // Двоичная куча на long без упаковки в объекты
+    private static final class LongHeap {
+        private final long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long value) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long value = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= value) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.dtos.AutocompleteStats;
+import com.example.musiclibrary.dtos.BookSuggestion;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.services.AutocompleteService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Автодополнение по названию и автору из памяти JVM.
+ * Индекс строится из БД при старте и дальше обновляется после коммита записей через BookService;
+ * когда изменений накапливается library.autocomplete.compact-threshold, дельта сливается в сегмент в фоне.
+ */
+@Service
+public class AutocompleteServiceImpl implements AutocompleteService {
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteServiceImpl.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.autocomplete.compact-threshold:1024}")
+    private int compactThreshold;
+    @Value("${library.autocomplete.max-results:20}")
+    private int maxResults;
+
+    private final AutocompleteIndex index = new AutocompleteIndex();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    // перестройки по очереди; не synchronized, так как rebuild читает БД и может идти в виртуальном потоке
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "autocomplete-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Timer rebuildTimer;
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime builtAt;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("library.autocomplete.documents", index, i -> i.state().base().size())
+                .register(meterRegistry);
+        Gauge.builder("library.autocomplete.terms", index, i -> i.state().base().terms())
+                .register(meterRegistry);
+        Gauge.builder("library.autocomplete.pending", index, i -> i.state().pending())
+                .register(meterRegistry);
+        Gauge.builder("library.autocomplete.memory", index, i -> i.state().base().memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        rebuildTimer = Timer.builder("library.autocomplete.rebuild")
+                .description("Построение сегмента индекса автодополнения")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+        AutocompleteStats stats = stats();
+        log.info("Индекс автодополнения: {} книг, {} слов, ~{} КБ, построен за {} мс",
+                stats.documents(), stats.terms(), stats.memoryBytes() / 1024, stats.lastRebuildMillis());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    @Override
+    public List<BookSuggestion> suggest(String text, int limit) {
+        return index.suggest(text, Math.min(limit, maxResults)).stream()
+                .map(hit -> new BookSuggestion(hit.title(), hit.author()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        UUID id = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        afterCommit(() -> index.put(id, title, author));
+    }
+
+    @Override
+    public void bookDeleted(UUID id) {
+        afterCommit(() -> index.remove(id));
+    }
+
+    @Override
+    public void rebuild() {
+        timed(state -> bookRepository.findAllTitleRefs().stream()
+                .map(ref -> AutocompleteDoc.of(ref.id(), ref.title(), ref.author()))
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public AutocompleteStats stats() {
+        AutocompleteIndex.State state = index.state();
+        return new AutocompleteStats(state.base().size(), state.base().terms(), state.pending(),
+                state.base().memoryBytes(), lastRebuildMillis, builtAt);
+    }
+
+    // Незакоммиченная запись не попадает в индекс, откаченная — тоже
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (index.state().pending() >= compactThreshold && compacting.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    timed(AutocompleteIndex.State::visibleDocs);
+                } catch (RuntimeException e) {
+                    log.warn("Не удалось перестроить индекс автодополнения", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    private void timed(Function<AutocompleteIndex.State, Collection<AutocompleteDoc>> source) {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            index.rebuild(source);
+            long elapsed = System.nanoTime() - start;
+            rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            lastRebuildMillis = elapsed / 1_000_000;
+            builtAt = LocalDateTime.now();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
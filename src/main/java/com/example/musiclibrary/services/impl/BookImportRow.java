@@ -0,0 +1,52 @@
+package com.example.musiclibrary.services.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Строка загружаемого каталога, поля как у BookDto.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+record BookImportRow(String title, String author, String publisher, Integer publication_year, String genre,
+                     Integer available_copies, Integer total_copies, String description) {
+    static final int MAX_LENGTH = 255;
+
+    /**
+     * @return причина отказа или null, если строку можно записать
+     */
+    String validate() {
+        if (title == null || title.isBlank()) {
+            return "нет названия";
+        }
+        if (author == null || author.isBlank()) {
+            return "нет автора";
+        }
+        for (String value : new String[]{title, author, publisher, genre, description}) {
+            if (value != null && value.length() > MAX_LENGTH) {
+                return "поле длиннее " + MAX_LENGTH + " символов";
+            }
+        }
+        if (total_copies == null || total_copies < 0) {
+            return "некорректное число копий";
+        }
+        if (available_copies != null && (available_copies < 0 || available_copies > total_copies)) {
+            return "некорректное число доступных копий";
+        }
+        return null;
+    }
+
+    /**
+     * Пробелы по краям убраны, пустые строки — null, без числа доступных копий доступны все.
+     */
+    BookImportRow normalized() {
+        return new BookImportRow(trim(title), trim(author), trim(publisher), publication_year, trim(genre),
+                available_copies != null ? available_copies : total_copies, total_copies, trim(description));
+    }
+
+    private static String trim(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.strip();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
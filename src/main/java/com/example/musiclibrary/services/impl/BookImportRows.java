@@ -0,0 +1,181 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.exceptions.InvalidArgumentException;
+import com.example.musiclibrary.services.BookImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение загружаемого каталога порциями, без загрузки файла целиком.
+ * Запись, которую не удалось разобрать, возвращается с ошибкой и не прерывает загрузку.
+ */
+final class BookImportRows {
+    /**
+     * Разобранная запись: row или error.
+     * @param number номер записи в файле, с 1 (заголовок CSV не считается)
+     */
+    record Parsed(long number, BookImportRow row, String error) {
+    }
+
+    interface Source {
+        /**
+         * @return до max записей, пустой список в конце файла
+         */
+        List<Parsed> next(int max) throws IOException;
+    }
+
+    private BookImportRows() {
+    }
+
+    static Source open(InputStream in, BookImportService.Format format, ObjectReader json) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        return format == BookImportService.Format.CSV ? new CsvSource(reader) : new NdjsonSource(reader, json);
+    }
+
+    private static final class NdjsonSource implements Source {
+        private final BufferedReader reader;
+        private final ObjectReader json;
+        private long number;
+
+        NdjsonSource(BufferedReader reader, ObjectReader json) {
+            this.reader = reader;
+            this.json = json;
+        }
+
+        @Override
+        public List<Parsed> next(int max) throws IOException {
+            List<Parsed> rows = new ArrayList<>(max);
+            String line;
+            while (rows.size() < max && (line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                number++;
+                try {
+                    rows.add(new Parsed(number, json.readValue(line), null));
+                } catch (JsonProcessingException e) {
+                    rows.add(new Parsed(number, null, "некорректный JSON"));
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * CSV по RFC 4180: первая строка — имена полей BookImportRow в любом порядке, значения в кавычках
+     * могут содержать запятые, переводы строк и удвоенные кавычки.
+     */
+    private static final class CsvSource implements Source {
+        private static final String[] COLUMNS = {"title", "author", "publisher", "publication_year", "genre",
+                "available_copies", "total_copies", "description"};
+
+        private final BufferedReader reader;
+        private final int[] index = new int[COLUMNS.length];
+        private long number;
+
+        CsvSource(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = record();
+            if (header == null) {
+                throw new InvalidArgumentException("пустой файл");
+            }
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                // BOM, который оставляют редакторы таблиц, — не часть имени поля
+                positions.put(header.get(i).replace("\uFEFF", "").strip().toLowerCase(), i);
+            }
+            for (int c = 0; c < COLUMNS.length; c++) {
+                index[c] = positions.getOrDefault(COLUMNS[c], -1);
+            }
+            if (index[0] < 0 || index[1] < 0 || index[6] < 0) {
+                throw new InvalidArgumentException("в заголовке CSV нужны поля title, author и total_copies");
+            }
+        }
+
+        @Override
+        public List<Parsed> next(int max) throws IOException {
+            List<Parsed> rows = new ArrayList<>(max);
+            List<String> fields;
+            while (rows.size() < max && (fields = record()) != null) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                number++;
+                try {
+                    rows.add(new Parsed(number, new BookImportRow(field(fields, 0), field(fields, 1), field(fields, 2),
+                            number(fields, 3), field(fields, 4), number(fields, 5), number(fields, 6), field(fields, 7)), null));
+                } catch (NumberFormatException e) {
+                    rows.add(new Parsed(number, null, "не число: " + e.getMessage()));
+                }
+            }
+            return rows;
+        }
+
+        private String field(List<String> fields, int column) {
+            int i = index[column];
+            return i >= 0 && i < fields.size() ? fields.get(i) : null;
+        }
+
+        private Integer number(List<String> fields, int column) {
+            String value = field(fields, column);
+            return value == null || value.isBlank() ? null : Integer.valueOf(value.strip());
+        }
+
+        // Одна запись CSV; null в конце файла
+        private List<String> record() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        break;
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c < 0 || c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                    break;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
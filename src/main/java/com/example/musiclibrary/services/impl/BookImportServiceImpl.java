@@ -0,0 +1,285 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.dtos.BookImportReport;
+import com.example.musiclibrary.exceptions.InvalidArgumentException;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.AutocompleteService;
+import com.example.musiclibrary.services.BookImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Массовая загрузка каталога мимо JPA.
+ * Файл читается порциями по library.import.chunk-size, порции проверяются параллельно на library.import.parallelism потоках,
+ * а записываются по порядку, каждая в своей транзакции. В PostgreSQL порция уходит через COPY во временную таблицу
+ * и переносится в books с ON CONFLICT (title) DO NOTHING, в других БД — пакетным INSERT после проверки названий.
+ * Событий о новых книгах нет (для этого есть BookService.addBook), индекс автодополнения перестраивается в конце.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportServiceImpl.class);
+    private static final int MAX_ERRORS = 100;
+    private static final String COLUMNS = "title, author, publisher, publication_year, genre, available_copies, total_copies, description";
+    private static final String CREATE_STAGING = "create temp table book_import (title varchar(255), author varchar(255), "
+            + "publisher varchar(255), publication_year integer, genre varchar(255), available_copies integer, "
+            + "total_copies integer, description varchar(255)) on commit drop";
+    private static final String COPY_STAGING = "copy book_import (" + COLUMNS + ") from stdin with (format csv)";
+    private static final String INSERT_FROM_STAGING = "insert into books (id, \"created on\", \"modified on\", " + COLUMNS + ", added_by) "
+            + "select gen_random_uuid(), now(), now(), " + COLUMNS + ", ? from book_import on conflict (title) do nothing";
+    private static final String INSERT = "insert into books (id, \"created on\", \"modified on\", " + COLUMNS + ", added_by) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AutocompleteService autocompleteService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${library.import.chunk-size:5000}")
+    private int chunkSize;
+    @Value("${library.import.parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService validators;
+    private ObjectReader rowReader;
+    private boolean copySupported;
+
+    @PostConstruct
+    void init() {
+        validators = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "book-import-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rowReader = objectMapper.readerFor(BookImportRow.class);
+        copySupported = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) c -> c.isWrapperFor(PGConnection.class)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        validators.shutdownNow();
+    }
+
+    @Override
+    public BookImportReport importBooks(InputStream in, Format format, String addedBy, Consumer<BookImportReport> progress) throws IOException {
+        UUID owner = userRepository.findByName(addedBy)
+                .orElseThrow(() -> new InvalidArgumentException("пользователь " + addedBy + " не найден"))
+                .getId();
+        Run run = new Run(owner, progress);
+        BookImportRows.Source source = BookImportRows.open(in, format, rowReader);
+        // Проверка следующих порций идёт, пока записывается текущая; в очереди не больше parallelism порций
+        Deque<Future<List<BookImportRows.Parsed>>> pending = new ArrayDeque<>();
+        try {
+            List<BookImportRows.Parsed> chunk;
+            while (!(chunk = source.next(chunkSize)).isEmpty()) {
+                List<BookImportRows.Parsed> rows = chunk;
+                pending.add(validators.submit(() -> validate(rows)));
+                if (pending.size() > parallelism) {
+                    run.write(pending.poll().get());
+                }
+            }
+            while (!pending.isEmpty()) {
+                run.write(pending.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Загрузка каталога прервана");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+            if (run.imported > 0) {
+                autocompleteService.rebuild();
+            }
+        }
+        BookImportReport report = run.report();
+        log.info("Загрузка каталога завершена: {} записей, добавлено {}, дубликатов {}, с ошибками {}, {} записей/с",
+                report.rows(), report.imported(), report.duplicates(), report.invalid(), report.rowsPerSecond());
+        return report;
+    }
+
+    private static List<BookImportRows.Parsed> validate(List<BookImportRows.Parsed> rows) {
+        List<BookImportRows.Parsed> result = new ArrayList<>(rows.size());
+        for (BookImportRows.Parsed parsed : rows) {
+            if (parsed.error() != null) {
+                result.add(parsed);
+                continue;
+            }
+            BookImportRow row = parsed.row().normalized();
+            String error = row.validate();
+            result.add(new BookImportRows.Parsed(parsed.number(), error == null ? row : null, error));
+        }
+        return result;
+    }
+
+    /**
+     * Одна загрузка: счётчики и названия, уже встреченные в файле.
+     */
+    private final class Run {
+        private final UUID owner;
+        private final Consumer<BookImportReport> progress;
+        private final long start = System.nanoTime();
+        private final Set<String> seenTitles = new HashSet<>();
+        private final List<String> errors = new ArrayList<>();
+        private final Counter importedCounter = meterRegistry.counter("library.import.rows", "outcome", "imported");
+        private final Counter skippedCounter = meterRegistry.counter("library.import.rows", "outcome", "skipped");
+        private long rows;
+        private long imported;
+        private long duplicates;
+        private long invalid;
+
+        Run(UUID owner, Consumer<BookImportReport> progress) {
+            this.owner = owner;
+            this.progress = progress;
+        }
+
+        void write(List<BookImportRows.Parsed> chunk) {
+            List<BookImportRow> batch = new ArrayList<>(chunk.size());
+            for (BookImportRows.Parsed parsed : chunk) {
+                if (parsed.error() != null) {
+                    invalid++;
+                    if (errors.size() < MAX_ERRORS) {
+                        errors.add("запись " + parsed.number() + ": " + parsed.error());
+                    }
+                } else if (!seenTitles.add(parsed.row().title())) {
+                    duplicates++;
+                } else {
+                    batch.add(parsed.row());
+                }
+            }
+            Integer inserted = batch.isEmpty() ? 0 : transactionTemplate.execute(status -> copySupported ? copy(batch) : insert(batch));
+            int added = inserted != null ? inserted : 0;
+            rows += chunk.size();
+            imported += added;
+            duplicates += batch.size() - added;
+            importedCounter.increment(added);
+            skippedCounter.increment(chunk.size() - added);
+            BookImportReport report = report();
+            log.info("Загрузка каталога: {} записей, добавлено {}, {} записей/с", report.rows(), report.imported(), report.rowsPerSecond());
+            progress.accept(report);
+        }
+
+        private int copy(List<BookImportRow> batch) {
+            Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_STAGING);
+                }
+                try {
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING, new StringReader(csv(batch)));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                try (var insert = connection.prepareStatement(INSERT_FROM_STAGING)) {
+                    insert.setObject(1, owner);
+                    return insert.executeUpdate();
+                }
+            });
+            return inserted != null ? inserted : 0;
+        }
+
+        // Без COPY: названия, уже занятые в БД, отсеиваются запросом, остальные пишутся пакетным INSERT
+        private int insert(List<BookImportRow> batch) {
+            Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList("select title from books where title in (:titles)",
+                    Map.of("titles", batch.stream().map(BookImportRow::title).collect(Collectors.toList())), String.class));
+            List<BookImportRow> fresh = batch.stream().filter(row -> !existing.contains(row.title())).collect(Collectors.toList());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT, fresh, fresh.size(), (ps, row) -> {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setTimestamp(2, now);
+                ps.setTimestamp(3, now);
+                ps.setString(4, row.title());
+                ps.setString(5, row.author());
+                ps.setString(6, row.publisher());
+                ps.setObject(7, row.publication_year(), Types.INTEGER);
+                ps.setString(8, row.genre());
+                ps.setObject(9, row.available_copies(), Types.INTEGER);
+                ps.setObject(10, row.total_copies(), Types.INTEGER);
+                ps.setString(11, row.description());
+                ps.setObject(12, owner);
+            });
+            return fresh.size();
+        }
+
+        BookImportReport report() {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            return new BookImportReport(rows, imported, duplicates, invalid, List.copyOf(errors), elapsedMillis,
+                    elapsedMillis > 0 ? rows * 1000 / elapsedMillis : rows);
+        }
+    }
+
+    private static String csv(List<BookImportRow> batch) {
+        StringBuilder sb = new StringBuilder(batch.size() * 128);
+        for (BookImportRow row : batch) {
+            appendText(sb, row.title()).append(',');
+            appendText(sb, row.author()).append(',');
+            appendText(sb, row.publisher()).append(',');
+            appendNumber(sb, row.publication_year()).append(',');
+            appendText(sb, row.genre()).append(',');
+            appendNumber(sb, row.available_copies()).append(',');
+            appendNumber(sb, row.total_copies()).append(',');
+            appendText(sb, row.description()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // В CSV для COPY пустое поле без кавычек — NULL, поэтому строки всегда в кавычках
+    private static StringBuilder appendText(StringBuilder sb, String value) {
+        if (value != null) {
+            sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        return sb;
+    }
+
+    private static StringBuilder appendNumber(StringBuilder sb, Integer value) {
+        if (value != null) {
+            sb.append(value);
+        }
+        return sb;
+    }
+}
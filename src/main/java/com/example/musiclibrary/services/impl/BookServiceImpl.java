@@ -1,21 +1,36 @@
 package com.example.musiclibrary.services.impl;
 
+import com.example.musiclibrary.cache.LibraryCaches;
 import com.example.musiclibrary.dtos.BookDto;
-import com.example.musiclibrary.dtos.UserDto;
+import com.example.musiclibrary.dtos.BookSearchFilter;
+import com.example.musiclibrary.dtos.BookSearchPage;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.mappers.BookMapper;
 import com.example.musiclibrary.models.Book;
 import com.example.musiclibrary.models.User;
 import com.example.musiclibrary.rabbitmq.*;
 import com.example.musiclibrary.repositories.BookRepository;
 import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.repositories.projections.BookSearchHits;
+import com.example.musiclibrary.services.AutocompleteService;
 import com.example.musiclibrary.services.BookService;
-import org.modelmapper.ModelMapper;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.BookSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 @Service
 public class BookServiceImpl implements BookService {
@@ -24,62 +39,116 @@ public class BookServiceImpl implements BookService {
     @Autowired
     private BookRepository bookRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private EventPublisher eventPublisher;
     @Autowired
-    private BookMessageSender bookSender;
+    private LibraryCaches libraryCaches;
+    @Autowired
+    private AutocompleteService autocompleteService;
     @Override
     public BookDto addBook(BookDto book, String user) throws InterruptedException {
         if (!bookRepository.existsByTitle(book.getTitle())) {
-            Book b = modelMapper.map(book, Book.class);
+            Book b = bookMapper.toEntity(book);
             User u = userRepository.findByName(user).get();
             b.setUser(u);
             b.setCreated(LocalDateTime.now());
             b.setModified(LocalDateTime.now());
-            bookSender.sendBookMessage("Книга " + b.getTitle() + " был зарегистрирована");
-            return modelMapper.map(bookRepository.save(b), BookDto.class);
+            Book saved = bookRepository.save(b);
+            autocompleteService.bookSaved(saved);
+            eventPublisher.publishWrite(RabbitMQConfig.bookRegistered, LibraryEvents.bookRegistered(saved));
+            return bookMapper.toDto(saved);
         } else return null;
     }
 
     @Override
     public Optional<BookShow> findBook(String title) throws InterruptedException {
-        bookSender.sendBookMessage("Поиск книги " + title + " (" + modelMapper.map(bookRepository.findByTitle(title), BookDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(bookRepository.findByTitle(title), BookShow.class));
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "find", title, 1));
+        return libraryCaches.bookShows().get(title, t -> bookRepository.findByTitle(t).map(bookMapper::toShow));
     }
 
     @Override
     public Optional<BookDto> findBookDto(String title) throws InterruptedException {
-        bookSender.sendBookMessage("Поиск DTO-объекта книги (" + modelMapper.map(bookRepository.findByTitle(title), BookDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(bookRepository.findByTitle(title), BookDto.class));
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "findDto", title, 1));
+        return libraryCaches.bookDtos().get(title, t -> bookRepository.findByTitle(t).map(bookMapper::toDto));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookShow> getAllBooks() throws InterruptedException {
-        bookSender.sendBookMessage("Вывод всех записей о книгах");
-        return bookRepository.findAll().stream().map((b) -> modelMapper.map(b, BookShow.class)).collect(Collectors.toList());
+        List<BookShow> books = bookRepository.findAllWithUser().stream().map(bookMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "all", null, books.size()));
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, BookShow> findBooks(Collection<String> titles) throws InterruptedException {
+        Map<String, BookShow> books = bookRepository.findByTitleIn(titles).stream()
+                .collect(Collectors.toMap(Book::getTitle, bookMapper::toShow));
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "batch", null, books.size()));
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookShow> getBooksPage(UUID after, int limit) throws InterruptedException {
+        List<Book> books = after == null
+                ? bookRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : bookRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        CursorPage<BookShow> page = CursorPage.of(books, limit, bookMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "page", after, page.getItems().size()));
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookShow> getBooksPage(Specification<Book> filter, UUID after, int limit) throws InterruptedException {
+        List<Book> books = bookRepository.findBy(Specification.where(BookSpecifications.fetchUser()).and(filter).and(EntitySpecifications.idAfter(after)),
+                q -> q.sortBy(Sort.by("id")).limit(limit + 1).all());
+        CursorPage<BookShow> page = CursorPage.of(books, limit, bookMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "filter", after, page.getItems().size()));
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSearchPage searchBooks(String query, BookSearchFilter filter, int page, int size) throws InterruptedException {
+        int p = Math.max(page, 0);
+        BookSearchHits hits = bookRepository.search(query, filter, (long) p * size, size);
+        // Книги догружаются одним запросом по id, порядок релевантности берётся из поиска
+        Map<UUID, Book> books = hits.ids().isEmpty() ? Map.of() : bookRepository.findAllWithUserByIdIn(hits.ids()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<BookShow> items = hits.ids().stream().map(books::get).filter(Objects::nonNull).map(bookMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.bookRead, LibraryEvents.read("book", "search", query, items.size()));
+        return new BookSearchPage(items, hits.total(), p, size, hits.genres(), hits.publishers(), hits.years());
     }
 
     @Override
+    @Transactional
     public Optional<BookDto> editBook(String title, BookDto book) throws InterruptedException {
-        BookDto b = modelMapper.map(bookRepository.findByTitle(title), BookDto.class);
+        Book b = bookRepository.findByTitle(title).orElseThrow(() -> new RuntimeException("Книга не найдена"));
         b.setTitle(book.getTitle());
         b.setAuthor(book.getAuthor());
         b.setDescription(book.getDescription());
-        b.setAvailable_copies(b.getAvailable_copies());
         b.setGenre(book.getGenre());
         b.setPublication_year(book.getPublication_year());
-        b.setPublisher(b.getPublisher());
         b.setTotal_copies(book.getTotal_copies());
         b.setModified(LocalDateTime.now());
-        bookRepository.save(modelMapper.map(b, Book.class));
-        bookSender.sendBookMessage("Редактирование записи книги (" + modelMapper.map(bookRepository.findByTitle(title), BookDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(bookRepository.findByTitle(b.getTitle()), BookDto.class));
+        Book saved = bookRepository.save(b);
+        libraryCaches.evictBook(title);
+        libraryCaches.evictBook(saved.getTitle());
+        autocompleteService.bookSaved(saved);
+        eventPublisher.publishWrite(RabbitMQConfig.bookUpdated, LibraryEvents.bookUpdated(saved.getId(), saved.getTitle(), saved.getTotal_copies(), saved.getAvailable_copies()));
+        return Optional.of(bookMapper.toDto(saved));
     }
 
     @Override
     public void deleteBook(String title) throws InterruptedException {
-        bookSender.sendBookMessage("Книга " + title + " (" + modelMapper.map(bookRepository.findByTitle(title), Book.class).getId() + " был удалена");
-        bookRepository.delete(modelMapper.map(bookRepository.findByTitle(title), Book.class));
+        Book b = bookRepository.findByTitle(title).orElseThrow(() -> new RuntimeException("Книга не найдена"));
+        bookRepository.delete(b);
+        libraryCaches.evictBook(title);
+        autocompleteService.bookDeleted(b.getId());
+        eventPublisher.publishWrite(RabbitMQConfig.bookDeleted, LibraryEvents.bookDeleted(b.getId(), title));
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.services.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Запись строк выгрузки (record-проекций) в CSV или NDJSON. Колонки CSV — компоненты record по порядку.
+ * Поток не закрывается, буфер сбрасывается каждые FLUSH_ROWS строк, чтобы клиент получал данные по мере чтения.
+ */
+abstract class ExportRowWriter<T extends Record> {
+    private static final int FLUSH_ROWS = 1000;
+
+    static <T extends Record> ExportRowWriter<T> open(OutputStream out, ExportService.Format format, Class<T> type,
+                                                      ObjectMapper objectMapper) throws IOException {
+        return format == ExportService.Format.CSV ? new Csv<>(out, type) : new Ndjson<>(out, type, objectMapper);
+    }
+
+    /**
+     * Пишет все строки и сбрасывает буфер; итератор читается ровно один раз.
+     */
+    long writeAll(Iterator<T> rows) throws IOException {
+        long count = 0;
+        while (rows.hasNext()) {
+            write(rows.next());
+            if (++count % FLUSH_ROWS == 0) {
+                flush();
+            }
+        }
+        flush();
+        return count;
+    }
+
+    abstract void write(T row) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    private static final class Ndjson<T extends Record> extends ExportRowWriter<T> {
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        Ndjson(OutputStream out, Class<T> type, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        void write(T row) throws IOException {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class Csv<T extends Record> extends ExportRowWriter<T> {
+        private final Writer writer;
+        private final Method[] accessors;
+
+        Csv(OutputStream out, Class<T> type) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            RecordComponent[] components = type.getRecordComponents();
+            this.accessors = new Method[components.length];
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = components[i].getAccessor();
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(components[i].getName());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void write(T row) throws IOException {
+            for (int i = 0; i < accessors.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value;
+                try {
+                    value = accessors[i].invoke(row);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // Поля с запятой, кавычкой или переводом строки — в кавычках, кавычки удваиваются (RFC 4180)
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
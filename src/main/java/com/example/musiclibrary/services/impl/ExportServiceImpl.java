@@ -0,0 +1,58 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.ReservationRepository;
+import com.example.musiclibrary.repositories.projections.BookRef;
+import com.example.musiclibrary.repositories.projections.RentalRef;
+import com.example.musiclibrary.repositories.projections.ReservationRef;
+import com.example.musiclibrary.services.ExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Курсор открыт на время всей выгрузки, поэтому метод держит транзакцию (а в PostgreSQL fetch size
+ * работает только вне autocommit) и одно соединение, пока клиент не дочитает ответ.
+ */
+@Service
+public class ExportServiceImpl implements ExportService {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream out, Format format) throws IOException {
+        try (Stream<BookRef> rows = bookRepository.streamAllRefs()) {
+            return ExportRowWriter.open(out, format, BookRef.class, objectMapper).writeAll(rows.iterator());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportRentals(OutputStream out, Format format, LocalDate from, LocalDate to) throws IOException {
+        try (Stream<RentalRef> rows = rentalRepository.streamRefs(from, to)) {
+            return ExportRowWriter.open(out, format, RentalRef.class, objectMapper).writeAll(rows.iterator());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportReservations(OutputStream out, Format format) throws IOException {
+        try (Stream<ReservationRef> rows = reservationRepository.streamAllRefs()) {
+            return ExportRowWriter.open(out, format, ReservationRef.class, objectMapper).writeAll(rows.iterator());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.cache.LibraryCaches;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.services.InventoryService;
+import com.example.musiclibrary.services.WaitlistService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Учёт доступных копий без гонок: каждая выдача - условный UPDATE, который не уводит счётчик ниже нуля.
+ * Для книг из library.inventory.hot-titles копии списываются из БД пачками и выдаются из памяти,
+ * неиспользованный остаток периодически возвращается в БД, поэтому БД никогда не показывает копий больше, чем есть.
+ */
+@Service
+public class InventoryServiceImpl implements InventoryService {
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private LibraryCaches libraryCaches;
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Value("${library.inventory.hot-titles:}")
+    private Set<String> hotTitles;
+    @Value("${library.inventory.lease-size:32}")
+    private int leaseSize;
+    @Value("${library.inventory.stripes:8}")
+    private int stripes;
+
+    private record HotBook(UUID id, String title) {
+    }
+
+    private final Map<HotBook, StripedCopyLease> leases = new ConcurrentHashMap<>();
+    private TransactionTemplate separateTransaction;
+
+    @PostConstruct
+    void init() {
+        separateTransaction = new TransactionTemplate(transactionManager);
+        separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean acquireCopy(Book book) {
+        if (!hotTitles.contains(book.getTitle())) {
+            boolean taken = inTransaction(() -> bookRepository.takeCopies(book.getId(), 1)) == 1;
+            if (taken) {
+                libraryCaches.evictBook(book.getTitle());
+            }
+            return taken;
+        }
+        StripedCopyLease lease = leases.computeIfAbsent(new HotBook(book.getId(), book.getTitle()), hot -> new StripedCopyLease(stripes));
+        if (!lease.tryTake()) {
+            lease.lock().lock();
+            try {
+                if (!lease.tryTake() && !refill(book, lease)) {
+                    return false;
+                }
+            } finally {
+                lease.lock().unlock();
+            }
+        }
+        // Если транзакция вызывающего откатится, копия возвращается в аренду, а не теряется
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        lease.add(1);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    @Override
+    public void releaseCopy(Book book) {
+        if (handOff(book, 1) == 0) {
+            returnCopy(book);
+        }
+    }
+
+    @Override
+    public int acquireCopies(Book book, int count) {
+        if (count > 1 && !hotTitles.contains(book.getTitle()) && inTransaction(() -> bookRepository.takeCopies(book.getId(), count)) == 1) {
+            libraryCaches.evictBook(book.getTitle());
+            return count;
+        }
+        // Копий меньше, чем заявок (или книга популярная и копии выдаются из памяти)
+        int taken = 0;
+        while (taken < count && acquireCopy(book)) {
+            taken++;
+        }
+        return taken;
+    }
+
+    @Override
+    public void releaseCopies(Book book, int count) {
+        int rest = count - handOff(book, count);
+        if (rest > 1 && inTransaction(() -> bookRepository.returnCopies(book.getId(), rest)) == 1) {
+            libraryCaches.evictBook(book.getTitle());
+            return;
+        }
+        for (int i = 0; i < rest; i++) {
+            returnCopy(book);
+        }
+    }
+
+    // Возвращённые копии сначала достаются очереди ожидания книги, в той же транзакции, что и возврат
+    private int handOff(Book book, int count) {
+        if (!waitlistService.hasWaiting(book.getId())) {
+            return 0;
+        }
+        return inTransaction(() -> waitlistService.handOff(book, count));
+    }
+
+    private void returnCopy(Book book) {
+        inTransaction(() -> bookRepository.returnCopies(book.getId(), 1));
+        libraryCaches.evictBook(book.getTitle());
+    }
+
+    // Списывает из БД пачку копий (или последние оставшиеся по одной) и сразу выдаёт одну из них
+    private boolean refill(Book book, StripedCopyLease lease) {
+        Boolean leased = separateTransaction.execute(status -> bookRepository.takeCopies(book.getId(), leaseSize) == 1);
+        if (Boolean.TRUE.equals(leased)) {
+            lease.add(leaseSize - 1);
+            libraryCaches.evictBook(book.getTitle());
+            return true;
+        }
+        boolean taken = Boolean.TRUE.equals(separateTransaction.execute(status -> bookRepository.takeCopies(book.getId(), 1) == 1));
+        if (taken) {
+            libraryCaches.evictBook(book.getTitle());
+        }
+        return taken;
+    }
+
+    // Изменения обычных книг идут в транзакции вызывающего, если она есть
+    private int inTransaction(IntSupplier update) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return update.getAsInt();
+        }
+        Integer updated = separateTransaction.execute(status -> update.getAsInt());
+        return updated != null ? updated : 0;
+    }
+
+    /**
+     * Возвращает в БД копии, списанные в аренду, но не выданные.
+     */
+    @Scheduled(fixedDelayString = "${library.inventory.reconcile-interval-ms:1000}")
+    @PreDestroy
+    public void reconcile() {
+        leases.forEach((book, lease) -> {
+            int unused;
+            lease.lock().lock();
+            try {
+                unused = lease.drain();
+            } finally {
+                lease.lock().unlock();
+            }
+            if (unused > 0) {
+                separateTransaction.executeWithoutResult(status -> bookRepository.returnCopies(book.id(), unused));
+                libraryCaches.evictBook(book.title());
+            }
+        });
+    }
+}
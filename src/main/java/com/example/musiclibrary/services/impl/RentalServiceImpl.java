@@ -1,7 +1,13 @@
 package com.example.musiclibrary.services.impl;
 
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.RentalDto;
+import com.example.musiclibrary.dtos.show.BookShow;
 import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.mappers.BookMapper;
+import com.example.musiclibrary.mappers.RentalMapper;
+import com.example.musiclibrary.mappers.UserMapper;
 import com.example.musiclibrary.models.Book;
 import com.example.musiclibrary.models.Rental;
 import com.example.musiclibrary.models.User;
@@ -9,16 +15,25 @@ import com.example.musiclibrary.rabbitmq.*;
 import com.example.musiclibrary.repositories.BookRepository;
 import com.example.musiclibrary.repositories.RentalRepository;
 import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.InventoryService;
 import com.example.musiclibrary.services.RentalService;
-import org.modelmapper.ModelMapper;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.RentalSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 @Service
 public class RentalServiceImpl implements RentalService {
@@ -29,52 +44,127 @@ public class RentalServiceImpl implements RentalService {
     @Autowired
     private RentalRepository rentalRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private RentalMapper rentalMapper;
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private BookMapper bookMapper;
     @Autowired
-    private RentalMessageSender rentalSender;
+    private UserMapper userMapper;
+    @Autowired
+    private EventPublisher eventPublisher;
+    @Autowired
+    private EventOutbox eventOutbox;
+    @Autowired
+    private InventoryService inventoryService;
     @Override
+    @Transactional
     public RentalDto addRental(RentalDto rental, String user, String book) throws InterruptedException {
         Book b = bookRepository.findByTitle(book).orElseThrow(() -> new RuntimeException("Книга не найдена"));
 
-        if (b.getAvailable_copies() == 0) {
-            rentalSender.sendRentalMessage("Аренда не оформлена: нет доступных копий книги " + b.getTitle());
+        // Копия списывается условным UPDATE, поэтому параллельные аренды не уводят счётчик в минус
+        if (!inventoryService.acquireCopy(b)) {
+            eventOutbox.add(RabbitMQConfig.rentalRejected, LibraryEvents.rentalRejected(user, b, "Нет доступных копий книги"));
             return null;
         }
 
-        // Уменьшаем количество доступных копий
-        b.setAvailable_copies(b.getAvailable_copies() - 1);
-        bookRepository.save(b);
-
-        Rental r = modelMapper.map(rental, Rental.class);
+        Rental r = rentalMapper.toEntity(rental);
         User u = userRepository.findByName(user).orElseThrow(() -> new RuntimeException("Пользователь не найден"));
         r.setUser(u);
         r.setBook(b);
 
-        rentalSender.sendRentalMessage("Аренда книги " + b.getTitle() + " для пользователя " + u.getName() + " была оформлена");
-        return modelMapper.map(rentalRepository.save(r), RentalDto.class);
+        Rental saved = rentalRepository.save(r);
+        eventOutbox.add(RabbitMQConfig.rentalOpened, LibraryEvents.rentalOpened(saved));
+        return rentalMapper.toDto(saved);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<RentalShow> findRental(UUID id) throws InterruptedException {
-        rentalSender.sendRentalMessage("Поиск аренды книги (" + modelMapper.map(rentalRepository.findById(id), RentalShow.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(rentalRepository.findById(id), RentalShow.class));
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "find", id, 1));
+        return rentalRepository.findById(id).map(rentalMapper::toShow);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<RentalDto> findRentalDto(UUID id) throws InterruptedException {
-        rentalSender.sendRentalMessage("Поиск DTO-объекта аренды книги (" + modelMapper.map(rentalRepository.findById(id), RentalDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(rentalRepository.findById(id), RentalDto.class));
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "findDto", id, 1));
+        return rentalRepository.findById(id).map(rentalMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RentalShow> getAllRentals() throws InterruptedException {
-        rentalSender.sendRentalMessage("Вывод всех записей об арендах книги");
-        return rentalRepository.findAll().stream().map((r) -> modelMapper.map(r, RentalShow.class)).collect(Collectors.toList());
+        List<RentalShow> rentals = rentalRepository.findAll().stream().map(rentalMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "all", null, rentals.size()));
+        return rentals;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RentalShow> getAllRentalsWithDetails() throws InterruptedException {
+        // Аренды, книги и пользователи загружаются одним запросом; общие книги и пользователи собираются один раз
+        List<RentalShow> rentals = assemble(rentalRepository.findAllWithBookAndUser());
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "all", null, rentals.size()));
+        return rentals;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RentalShow> getAllRentalRefs() throws InterruptedException {
+        List<RentalShow> rentals = rentalRepository.findAllRefs().stream().map(rentalMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "all", null, rentals.size()));
+        return rentals;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, List<RentalShow>> findRentalsByUsers(Collection<String> names) throws InterruptedException {
+        Map<String, List<RentalShow>> rentals = assemble(rentalRepository.findByUserNames(names)).stream()
+                .collect(Collectors.groupingBy(r -> r.getUser().getName()));
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "byUsers", null, rentals.size()));
+        return rentals;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RentalShow> getRentalsPage(UUID after, int limit) throws InterruptedException {
+        List<Rental> rentals = after == null
+                ? rentalRepository.findFirstPageWithBookAndUser(Limit.of(limit + 1))
+                : rentalRepository.findPageWithBookAndUser(after, Limit.of(limit + 1));
+        boolean hasNext = rentals.size() > limit;
+        List<Rental> page = hasNext ? rentals.subList(0, limit) : rentals;
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "page", after, page.size()));
+        return new CursorPage<>(assemble(page), hasNext ? page.get(limit - 1).getId() : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RentalShow> getRentalsPage(Specification<Rental> filter, UUID after, int limit) throws InterruptedException {
+        List<Rental> rentals = rentalRepository.findBy(Specification.where(RentalSpecifications.fetchUserAndBook()).and(filter).and(EntitySpecifications.idAfter(after)),
+                q -> q.sortBy(Sort.by("id")).limit(limit + 1).all());
+        CursorPage<RentalShow> page = CursorPage.of(rentals, limit, rentalMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.rentalRead, LibraryEvents.read("rental", "filter", after, page.getItems().size()));
+        return page;
+    }
+
+    private List<RentalShow> assemble(List<Rental> rentals) {
+        Map<UUID, UserShow> users = new HashMap<>();
+        Map<UUID, BookShow> books = new HashMap<>();
+        List<RentalShow> result = new ArrayList<>(rentals.size());
+        for (Rental r : rentals) {
+            UserShow u = users.computeIfAbsent(r.getUser().getId(), id -> userMapper.toShow(r.getUser()));
+            BookShow b = books.computeIfAbsent(r.getBook().getId(), id -> toBookShow(r.getBook(), users));
+            result.add(rentalMapper.toShow(r, u, b));
+        }
+        return result;
+    }
+
+    private BookShow toBookShow(Book b, Map<UUID, UserShow> users) {
+        UserShow owner = users.computeIfAbsent(b.getUser().getId(), id -> userMapper.toShow(b.getUser()));
+        return bookMapper.toShow(b, owner);
+    }
+
+    @Override
+    @Transactional
     public Optional<RentalDto> editRental(UUID id, RentalDto rental) throws InterruptedException {
         Rental r = rentalRepository.findById(id).orElseThrow(() -> new RuntimeException("Аренда не найдена"));
         boolean wasNotReturned = (r.getIs_returned() == null || !r.getIs_returned());
@@ -82,27 +172,30 @@ public class RentalServiceImpl implements RentalService {
         // Обновляем данные аренды
         r.setRental_date(rental.getRental_date());
         r.setDue_date(rental.getDue_date());
-        r.setExtended_times(rental.getExtended_times());
-        r.setIs_returned(rental.getIs_returned());
+        r.setExtended_times(rental.getExtended_times() != null ? rental.getExtended_times() : 0);
+        r.setIs_returned(Boolean.TRUE.equals(rental.getIs_returned()));
         r.setReturn_date(rental.getReturn_date());
         r.setModified(LocalDateTime.now());
+        // Срок продлён: аренда больше не просрочена
+        if (Boolean.TRUE.equals(r.getIs_overdue()) && r.getDue_date() != null && !r.getDue_date().isBefore(LocalDate.now())) {
+            r.setIs_overdue(false);
+        }
 
         // Если книга была не возвращена и теперь возвращена, увеличиваем количество доступных копий
         if (wasNotReturned && Boolean.TRUE.equals(rental.getIs_returned())) {
-            Book b = r.getBook();
-            b.setAvailable_copies(b.getAvailable_copies() + 1);
-            bookRepository.save(b);
-            rentalSender.sendRentalMessage("Книга " + b.getTitle() + " была возвращена; аренда " + r.getId() + " больше не активна");
+            inventoryService.releaseCopy(r.getBook());
+            eventOutbox.add(RabbitMQConfig.rentalReturned, LibraryEvents.rentalReturned(r));
         }
 
         rentalRepository.save(r);
-        rentalSender.sendRentalMessage("Редактирование записи аренды книги (" + r.getId() + ")");
-        return Optional.of(modelMapper.map(r, RentalDto.class));
+        eventOutbox.add(RabbitMQConfig.rentalUpdated, LibraryEvents.rentalUpdated(r));
+        return Optional.of(rentalMapper.toDto(r));
     }
 
     @Override
+    @Transactional
     public void deleteRental(UUID id) throws InterruptedException {
-        rentalSender.sendRentalMessage("Удаление записи аренды книги (" + modelMapper.map(rentalRepository.findById(id), RentalShow.class).getId() + ")");
-        rentalRepository.delete(modelMapper.map(rentalRepository.findById(id), Rental.class));
+        rentalRepository.delete(rentalRepository.findById(id).orElseThrow(() -> new RuntimeException("Аренда не найдена")));
+        eventOutbox.add(RabbitMQConfig.rentalDeleted, LibraryEvents.rentalDeleted(id));
     }
 }
\ No newline at end of file
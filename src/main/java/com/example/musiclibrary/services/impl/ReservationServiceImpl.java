@@ -1,8 +1,8 @@
 package com.example.musiclibrary.services.impl;
-import com.example.musiclibrary.dtos.RentalDto;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.ReservationDto;
-import com.example.musiclibrary.dtos.show.RentalShow;
 import com.example.musiclibrary.dtos.show.ReservationShow;
+import com.example.musiclibrary.mappers.ReservationMapper;
 import com.example.musiclibrary.models.Book;
 import com.example.musiclibrary.models.Reservation;
 import com.example.musiclibrary.models.User;
@@ -10,15 +10,21 @@ import com.example.musiclibrary.rabbitmq.*;
 import com.example.musiclibrary.repositories.BookRepository;
 import com.example.musiclibrary.repositories.ReservationRepository;
 import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.InventoryService;
 import com.example.musiclibrary.services.ReservationService;
-import org.modelmapper.ModelMapper;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
+import com.example.musiclibrary.repositories.specifications.ReservationSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 @Service
 public class ReservationServiceImpl implements ReservationService {
@@ -29,52 +35,97 @@ public class ReservationServiceImpl implements ReservationService {
     @Autowired
     private ReservationRepository reservationRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private ReservationMapper reservationMapper;
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private EventPublisher eventPublisher;
     @Autowired
-    private ReservationMessageSender reservationSender;
+    private EventOutbox eventOutbox;
+    @Autowired
+    private InventoryService inventoryService;
     @Override
+    @Transactional
     public ReservationDto addReservation(ReservationDto reserv, String user, String book) throws InterruptedException {
         Book b = bookRepository.findByTitle(book).orElseThrow(() -> new RuntimeException("Книга не найдена"));
 
-        if (b.getAvailable_copies() == 0) {
-            reservationSender.sendReservationMessage("Бронирование не оформлено: нет доступных копий книги " + b.getTitle());
+        // Копия списывается условным UPDATE, поэтому параллельные бронирования не уводят счётчик в минус
+        if (!inventoryService.acquireCopy(b)) {
+            eventOutbox.add(RabbitMQConfig.reservationRejected, LibraryEvents.reservationRejected(user, b, "Нет доступных копий книги"));
             return null;
         }
 
-        // Уменьшаем количество доступных копий
-        b.setAvailable_copies(b.getAvailable_copies() - 1);
-        bookRepository.save(b);
-
-        Reservation r = modelMapper.map(reserv, Reservation.class);
+        Reservation r = reservationMapper.toEntity(reserv);
         User u = userRepository.findByName(user).orElseThrow(() -> new RuntimeException("Пользователь не найден"));
         r.setUser(u);
         r.setBook(b);
 
-        reservationSender.sendReservationMessage("Бронирование книги " + b.getTitle() + " для пользователя " + u.getName() + " было оформлено");
-        return modelMapper.map(reservationRepository.save(r), ReservationDto.class);
+        Reservation saved = reservationRepository.save(r);
+        eventOutbox.add(RabbitMQConfig.reservationPlaced, LibraryEvents.reservationPlaced(saved));
+        return reservationMapper.toDto(saved);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<ReservationShow> findReservation(UUID id) throws InterruptedException {
-        reservationSender.sendReservationMessage("Поиск бронирования книги (" + modelMapper.map(reservationRepository.findById(id), ReservationShow.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(reservationRepository.findById(id), ReservationShow.class));
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "find", id, 1));
+        return reservationRepository.findById(id).map(reservationMapper::toShow);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<ReservationDto> findReservationDto(UUID id) throws InterruptedException {
-        reservationSender.sendReservationMessage("Поиск DTO-объекта аренды книги (" + modelMapper.map(reservationRepository.findById(id), ReservationDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(reservationRepository.findById(id), ReservationDto.class));
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "findDto", id, 1));
+        return reservationRepository.findById(id).map(reservationMapper::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ReservationShow> getAllReservations() throws InterruptedException {
-        reservationSender.sendReservationMessage("Вывод всех записей о бронировании книги");
-        return reservationRepository.findAll().stream().map((r) -> modelMapper.map(r, ReservationShow.class)).collect(Collectors.toList());
+        List<ReservationShow> reservations = reservationRepository.findAll().stream().map(reservationMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "all", null, reservations.size()));
+        return reservations;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReservationShow> getAllReservationRefs() throws InterruptedException {
+        List<ReservationShow> reservations = reservationRepository.findAllRefs().stream().map(reservationMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "all", null, reservations.size()));
+        return reservations;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, List<ReservationShow>> findReservationsByBooks(Collection<String> titles) throws InterruptedException {
+        Map<String, List<ReservationShow>> reservations = reservationRepository.findByBookTitles(titles).stream()
+                .map(reservationMapper::toShow)
+                .collect(Collectors.groupingBy(r -> r.getBook().getTitle()));
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "byBooks", null, reservations.size()));
+        return reservations;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReservationShow> getReservationsPage(UUID after, int limit) throws InterruptedException {
+        List<Reservation> reservations = after == null
+                ? reservationRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : reservationRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        CursorPage<ReservationShow> page = CursorPage.of(reservations, limit, reservationMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "page", after, page.getItems().size()));
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReservationShow> getReservationsPage(Specification<Reservation> filter, UUID after, int limit) throws InterruptedException {
+        List<Reservation> reservations = reservationRepository.findBy(Specification.where(ReservationSpecifications.fetchUserAndBook()).and(filter).and(EntitySpecifications.idAfter(after)),
+                q -> q.sortBy(Sort.by("id")).limit(limit + 1).all());
+        CursorPage<ReservationShow> page = CursorPage.of(reservations, limit, reservationMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.reservationRead, LibraryEvents.read("reservation", "filter", after, page.getItems().size()));
+        return page;
     }
 
     @Override
+    @Transactional
     public Optional<ReservationDto> editReservation(UUID id, ReservationDto reserv) throws InterruptedException {
         Reservation r = reservationRepository.findById(id).orElseThrow(() -> new RuntimeException("Бронирование не найдено"));
         boolean wasActive = Boolean.TRUE.equals(r.getIs_active());
@@ -86,20 +137,19 @@ public class ReservationServiceImpl implements ReservationService {
 
         // Если бронирование было активно и теперь стало неактивным, увеличиваем количество доступных копий
         if (wasActive && Boolean.FALSE.equals(reserv.getIs_active())) {
-            Book b = r.getBook();
-            b.setAvailable_copies(b.getAvailable_copies() + 1);
-            bookRepository.save(b);
-            reservationSender.sendReservationMessage("Бронирование книги " + r.getId() + " больше не активно");
+            inventoryService.releaseCopy(r.getBook());
+            eventOutbox.add(RabbitMQConfig.reservationExpired, LibraryEvents.reservationExpired(r));
         }
 
         reservationRepository.save(r);
-        reservationSender.sendReservationMessage("Редактирование записи бронирования книги (" + r.getId() + ")");
-        return Optional.of(modelMapper.map(r, ReservationDto.class));
+        eventOutbox.add(RabbitMQConfig.reservationUpdated, LibraryEvents.reservationUpdated(r));
+        return Optional.of(reservationMapper.toDto(r));
     }
 
     @Override
+    @Transactional
     public void deleteReservation(UUID id) throws InterruptedException {
-        reservationSender.sendReservationMessage("Удаление записи бронирования книги (" + modelMapper.map(reservationRepository.findById(id), ReservationShow.class).getId() + ")");
-        reservationRepository.delete(modelMapper.map(reservationRepository.findById(id), Reservation.class));
+        reservationRepository.delete(reservationRepository.findById(id).orElseThrow(() -> new RuntimeException("Бронирование не найдено")));
+        eventOutbox.add(RabbitMQConfig.reservationDeleted, LibraryEvents.reservationDeleted(id));
     }
 }
@@ -0,0 +1,67 @@
+package com.example.musiclibrary.services.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Копии популярной книги, заранее списанные из БД пачкой и разложенные по полосам.
+ * Потоки выдачи начинают с разных полос, поэтому CAS на одном счётчике не становится точкой конкуренции.
+ */
+final class StripedCopyLease {
+    // полосы разнесены по разным кэш-линиям
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray counters;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    StripedCopyLease(int stripes) {
+        this.stripes = stripes;
+        this.counters = new AtomicIntegerArray(stripes * PADDING);
+    }
+
+    /**
+     * Блокировка пополнения из БД и возврата остатка. Под ней выполняются запросы,
+     * поэтому это не монитор объекта: synchronized закрепил бы виртуальный поток за несущим.
+     */
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    boolean tryTake() {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PADDING;
+            int current;
+            while ((current = counters.get(index)) > 0) {
+                if (counters.compareAndSet(index, current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void add(int copies) {
+        int share = copies / stripes;
+        int rest = copies % stripes;
+        for (int i = 0; i < stripes; i++) {
+            int amount = share + (i < rest ? 1 : 0);
+            if (amount > 0) {
+                counters.addAndGet(i * PADDING, amount);
+            }
+        }
+    }
+
+    /**
+     * Забирает все оставшиеся копии для возврата в БД.
+     */
+    int drain() {
+        int drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += counters.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+}
@@ -1,55 +1,102 @@
 package com.example.musiclibrary.services.impl;
 
+import com.example.musiclibrary.cache.LibraryCaches;
+import com.example.musiclibrary.dtos.CursorPage;
 import com.example.musiclibrary.dtos.UserDto;
 import com.example.musiclibrary.dtos.show.UserShow;
+import com.example.musiclibrary.mappers.UserMapper;
 import com.example.musiclibrary.models.User;
-import com.example.musiclibrary.rabbitmq.UserMessageSender;
+import com.example.musiclibrary.rabbitmq.EventPublisher;
+import com.example.musiclibrary.rabbitmq.LibraryEvents;
+import com.example.musiclibrary.rabbitmq.RabbitMQConfig;
+import com.example.musiclibrary.repositories.BookRepository;
 import com.example.musiclibrary.repositories.UserRepository;
 import com.example.musiclibrary.services.*;
-import org.modelmapper.ModelMapper;
+import com.example.musiclibrary.repositories.specifications.EntitySpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 @Service
 public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private UserMapper userMapper;
     @Autowired
-    private UserMessageSender userSender;
+    private EventPublisher eventPublisher;
+    @Autowired
+    private LibraryCaches libraryCaches;
+    @Autowired
+    private BookRepository bookRepository;
     @Override
     public UserDto register(UserDto user) throws InterruptedException {
         if (!userRepository.existsByName(user.getName())) {
-            User u = modelMapper.map(user, User.class);
+            User u = userMapper.toEntity(user);
             u.setCreated(LocalDateTime.now());
             u.setModified(LocalDateTime.now());
-            userSender.sendUserMessage("Пользователь " + u.getName() + " был зарегистрирован");
-            return modelMapper.map(userRepository.save(u), UserDto.class);
+            User saved = userRepository.save(u);
+            eventPublisher.publishWrite(RabbitMQConfig.userRegistered, LibraryEvents.userRegistered(saved));
+            return userMapper.toDto(saved);
         } else return null;
     }
     @Override
     public Optional<UserDto> findUserDto(String name) throws InterruptedException {
-        userSender.sendUserMessage( "Поиск DTO-объекта пользователя (" + modelMapper.map(userRepository.findByName(name), UserDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(userRepository.findByName(name), UserDto.class));
+        eventPublisher.publishRead(RabbitMQConfig.userRead, LibraryEvents.read("user", "findDto", name, 1));
+        return libraryCaches.userDtos().get(name, n -> userRepository.findByName(n).map(userMapper::toDto));
     }
     @Override
     public Optional<UserShow> findUser(String name) throws InterruptedException {
-        userSender.sendUserMessage("Поиск пользователя " + name + " (" + modelMapper.map(userRepository.findByName(name), UserDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(userRepository.findByName(name), UserShow.class));
+        eventPublisher.publishRead(RabbitMQConfig.userRead, LibraryEvents.read("user", "find", name, 1));
+        return libraryCaches.userShows().get(name, n -> userRepository.findByName(n).map(userMapper::toShow));
 
     }
     @Override
+    @Transactional(readOnly = true)
     public List<UserShow> getAllUsers() throws InterruptedException {
-        userSender.sendUserMessage("Вывод всех записей о пользователях");
-        return userRepository.findAll().stream().map((u) -> modelMapper.map(u, UserShow.class)).collect(Collectors.toList());
+        List<UserShow> users = userRepository.findAll().stream().map(userMapper::toShow).collect(Collectors.toList());
+        eventPublisher.publishRead(RabbitMQConfig.userRead, LibraryEvents.read("user", "all", null, users.size()));
+        return users;
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, UserShow> findUsers(Collection<String> names) throws InterruptedException {
+        Map<String, UserShow> users = userRepository.findByNameIn(names).stream()
+                .collect(Collectors.toMap(User::getName, userMapper::toShow));
+        eventPublisher.publishRead(RabbitMQConfig.userRead, LibraryEvents.read("user", "batch", null, users.size()));
+        return users;
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserShow> getUsersPage(UUID after, int limit) throws InterruptedException {
+        List<User> users = after == null
+                ? userRepository.findAllByOrderByIdAsc(Limit.of(limit + 1))
+                : userRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        CursorPage<UserShow> page = CursorPage.of(users, limit, userMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.userRead, LibraryEvents.read("user", "page", after, page.getItems().size()));
+        return page;
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserShow> getUsersPage(Specification<User> filter, UUID after, int limit) throws InterruptedException {
+        List<User> users = userRepository.findBy(Specification.where(filter).and(EntitySpecifications.idAfter(after)),
+                q -> q.sortBy(Sort.by("id")).limit(limit + 1).all());
+        CursorPage<UserShow> page = CursorPage.of(users, limit, userMapper::toShow);
+        eventPublisher.publishRead(RabbitMQConfig.userRead, LibraryEvents.read("user", "filter", after, page.getItems().size()));
+        return page;
     }
     @Override
     public Optional<UserDto> editUser(String name, UserDto user) throws InterruptedException {
-        UserDto u = modelMapper.map(userRepository.findByName(name), UserDto.class);
+        UserDto u = userMapper.toDto(userRepository.findByName(name).orElseThrow(() -> new RuntimeException("Пользователь не найден")));
         u.setName(user.getName());
         u.setEmail(user.getEmail());
         u.setPassword(user.getPassword());
@@ -58,13 +105,19 @@ public class UserServiceImpl implements UserService {
         u.setPhone_number(user.getPhone_number());
         u.setAddress(user.getAddress());
         u.setModified(LocalDateTime.now());
-        userRepository.save(modelMapper.map(u, User.class));
-        userSender.sendUserMessage("Редактирование записи пользователя (" + modelMapper.map(userRepository.findByName(name), UserDto.class).getId() + ")");
-        return Optional.ofNullable(modelMapper.map(userRepository.findByName(user.getName()), UserDto.class));
+        User saved = userRepository.save(userMapper.toEntity(u));
+        libraryCaches.evictUser(name);
+        libraryCaches.evictUser(u.getName());
+        // Книги в кэше хранят владельца целиком, и контроллеры ищут его по этому имени
+        bookRepository.findTitlesByUserId(saved.getId()).forEach(libraryCaches::evictBook);
+        eventPublisher.publishWrite(RabbitMQConfig.userUpdated, LibraryEvents.userUpdated(u.getId(), u.getName()));
+        return Optional.of(userMapper.toDto(saved));
     }
     @Override
     public void delete(String name) throws InterruptedException {
-        userSender.sendUserMessage("Пользователь " + name + " (" + modelMapper.map(userRepository.findByName(name), User.class).getId() + " был удалён");
-        userRepository.delete(modelMapper.map(userRepository.findByName(name), User.class));
+        User u = userRepository.findByName(name).orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+        userRepository.delete(u);
+        libraryCaches.evictUser(name);
+        eventPublisher.publishWrite(RabbitMQConfig.userDeleted, LibraryEvents.userDeleted(u.getId(), name));
     }
 }
\ No newline at end of file
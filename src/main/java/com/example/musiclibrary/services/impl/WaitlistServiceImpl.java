@@ -0,0 +1,183 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.cache.LibraryCaches;
+import com.example.musiclibrary.exceptions.InvalidArgumentException;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.models.WaitlistEntry;
+import com.example.musiclibrary.rabbitmq.EventOutbox;
+import com.example.musiclibrary.rabbitmq.LibraryEvents;
+import com.example.musiclibrary.rabbitmq.RabbitMQConfig;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.ReservationRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.repositories.WaitlistEntryRepository;
+import com.example.musiclibrary.repositories.projections.BookWaitCount;
+import com.example.musiclibrary.services.WaitlistService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Очередь ожидания хранится в waitlist_entries, голова очереди книги берётся по индексу idx_waitlist_head.
+ * В памяти лежит только число ожидающих по книгам: возврат книги без очереди не делает лишних запросов.
+ * Индекс обновляется после коммита и периодически перечитывается из БД; копии, которые вернулись мимо очереди
+ * (например, через другой экземпляр с устаревшим индексом), при этом отдаются ожидающим.
+ */
+@Service
+public class WaitlistServiceImpl implements WaitlistService {
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private EventOutbox eventOutbox;
+    @Autowired
+    private LibraryCaches libraryCaches;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // fifo - по времени постановки, priority - сначала по приоритету
+    @Value("${library.waitlist.ordering:fifo}")
+    private String ordering;
+    @Value("${library.waitlist.hold-days:3}")
+    private int holdDays;
+
+    private final Map<UUID, AtomicInteger> waiting = new ConcurrentHashMap<>();
+    private Counter assigned;
+    private Timer waitTime;
+
+    @PostConstruct
+    void init() {
+        assigned = Counter.builder("library.waitlist.assigned").register(meterRegistry);
+        waitTime = Timer.builder("library.waitlist.wait")
+                .description("Время от постановки в очередь до выдачи копии")
+                .register(meterRegistry);
+        reloadIndex();
+    }
+
+    @Override
+    @Transactional
+    public long join(String user, String book, int priority) {
+        Book b = bookRepository.findByTitle(book).orElseThrow(() -> new InvalidArgumentException("книга " + book + " не найдена"));
+        User u = userRepository.findByName(user).orElseThrow(() -> new InvalidArgumentException("пользователь " + user + " не найден"));
+        if (b.getAvailable_copies() != null && b.getAvailable_copies() > 0) {
+            throw new InvalidArgumentException("у книги " + book + " есть свободные копии, оформите бронирование");
+        }
+        if (waitlistEntryRepository.existsByBook_IdAndUser_Id(b.getId(), u.getId())) {
+            throw new InvalidArgumentException(user + " уже в очереди на " + book);
+        }
+        WaitlistEntry entry = waitlistEntryRepository.save(new WaitlistEntry(u, b, "priority".equals(ordering) ? priority : 0));
+        long position = waitlistEntryRepository.countAhead(b.getId(), entry.getPriority(), entry.getId()) + 1;
+        eventOutbox.add(RabbitMQConfig.reservationWaitlisted, LibraryEvents.reservationWaitlisted(entry, position));
+        afterCommit(() -> counter(b.getId()).incrementAndGet());
+        return position;
+    }
+
+    @Override
+    @Transactional
+    public boolean leave(String user, String book) {
+        Book b = bookRepository.findByTitle(book).orElseThrow(() -> new InvalidArgumentException("книга " + book + " не найдена"));
+        User u = userRepository.findByName(user).orElseThrow(() -> new InvalidArgumentException("пользователь " + user + " не найден"));
+        if (waitlistEntryRepository.deleteByBookAndUser(b.getId(), u.getId()) == 0) {
+            return false;
+        }
+        afterCommit(() -> counter(b.getId()).updateAndGet(c -> Math.max(0, c - 1)));
+        return true;
+    }
+
+    @Override
+    public boolean hasWaiting(UUID bookId) {
+        AtomicInteger count = waiting.get(bookId);
+        return count != null && count.get() > 0;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int handOff(Book book, int count) {
+        List<WaitlistEntry> heads = waitlistEntryRepository.lockHead(book.getId(), Limit.of(count));
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        for (WaitlistEntry entry : heads) {
+            Reservation r = new Reservation(today, today.plusDays(holdDays), true);
+            r.setUser(entry.getUser());
+            r.setBook(book);
+            Reservation saved = reservationRepository.save(r);
+            Duration waited = Duration.between(entry.getCreated(), now);
+            eventOutbox.add(RabbitMQConfig.reservationAssigned, LibraryEvents.reservationAssigned(saved, waited));
+            waitTime.record(waited);
+        }
+        waitlistEntryRepository.deleteAllInBatch(heads);
+        int handed = heads.size();
+        afterCommit(() -> {
+            assigned.increment(handed);
+            counter(book.getId()).updateAndGet(c -> Math.max(0, c - handed));
+        });
+        return handed;
+    }
+
+    @Scheduled(fixedDelayString = "${library.waitlist.refresh-interval-ms:30000}")
+    public void refresh() {
+        reloadIndex();
+        for (Book book : waitlistEntryRepository.findWaitlistedBooksWithCopies()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                int copies = Math.min(book.getAvailable_copies(), counter(book.getId()).get());
+                if (copies > 0 && bookRepository.takeCopies(book.getId(), copies) == 1) {
+                    int handed = handOff(book, copies);
+                    if (handed < copies) {
+                        bookRepository.returnCopies(book.getId(), copies - handed);
+                    }
+                }
+            });
+            libraryCaches.evictBook(book.getTitle());
+        }
+    }
+
+    private void reloadIndex() {
+        Map<UUID, Long> counts = waitlistEntryRepository.countByBook().stream()
+                .collect(Collectors.toMap(BookWaitCount::bookId, BookWaitCount::count));
+        waiting.keySet().retainAll(counts.keySet());
+        counts.forEach((book, count) -> counter(book).set(count.intValue()));
+    }
+
+    private AtomicInteger counter(UUID bookId) {
+        return waiting.computeIfAbsent(bookId, id -> new AtomicInteger());
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
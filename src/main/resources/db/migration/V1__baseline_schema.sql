@@ -0,0 +1,74 @@
+-- Базовая схема сущностей; раньше её строил hibernate при ddl-auto=create
+create table users (
+    id uuid not null,
+    "created on" timestamp(6),
+    "modified on" timestamp(6),
+    name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    role smallint check (role between 0 and 1),
+    membership_date date,
+    phone_number varchar(255),
+    address varchar(255),
+    primary key (id)
+);
+
+create table books (
+    id uuid not null,
+    "created on" timestamp(6),
+    "modified on" timestamp(6),
+    title varchar(255),
+    author varchar(255),
+    publisher varchar(255),
+    publication_year integer,
+    genre varchar(255),
+    available_copies integer,
+    total_copies integer,
+    description varchar(255),
+    added_by uuid not null,
+    primary key (id),
+    constraint fk_books_added_by foreign key (added_by) references users (id)
+);
+
+create table rentals (
+    id uuid not null,
+    "created on" timestamp(6),
+    "modified on" timestamp(6),
+    rental_date date,
+    due_date date,
+    return_date date,
+    extended_times integer default 0,
+    is_returned boolean default false,
+    user_id uuid not null,
+    book_id uuid not null,
+    primary key (id),
+    constraint fk_rentals_user foreign key (user_id) references users (id),
+    constraint fk_rentals_book foreign key (book_id) references books (id)
+);
+
+create table reservations (
+    id uuid not null,
+    "created on" timestamp(6),
+    "modified on" timestamp(6),
+    reservation_date date,
+    expiry_date date,
+    is_active boolean default true,
+    user_id uuid not null,
+    book_id uuid not null,
+    primary key (id),
+    constraint fk_reservations_user foreign key (user_id) references users (id),
+    constraint fk_reservations_book foreign key (book_id) references books (id)
+);
+
+create table outbox_events (
+    id uuid not null,
+    "created on" timestamp(6),
+    "modified on" timestamp(6),
+    routing_key varchar(255) not null,
+    event_type varchar(255) not null,
+    payload bytea not null,
+    sent_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_outbox_events_sent_at on outbox_events (sent_at);
@@ -0,0 +1,17 @@
+-- Книги и пользователи ищутся по названию и имени (findByTitle, existsByName, join'ы в аренде и брони),
+-- поэтому эти ключи уникальны и обязательны
+alter table books alter column title set not null;
+alter table books add constraint uk_books_title unique (title);
+alter table users alter column name set not null;
+alter table users add constraint uk_users_name unique (name);
+
+-- Внешние ключи: postgres сам их не индексирует, а по ним идут выборки аренд и броней пользователя или книги
+create index idx_books_added_by on books (added_by);
+create index idx_rentals_user_id on rentals (user_id);
+create index idx_rentals_book_id on rentals (book_id);
+create index idx_reservations_user_id on reservations (user_id);
+create index idx_reservations_book_id on reservations (book_id);
+
+-- Невозвращённых аренд мало по сравнению с историей, частичный индекс держит только их
+create index idx_rentals_active_due_date on rentals (due_date) where is_returned = false;
+create index idx_rentals_active_book_id on rentals (book_id) where is_returned = false;
@@ -0,0 +1,19 @@
+-- Поиск по каталогу: полнотекстовый вектор по названию, автору, жанру и описанию
+-- и триграммы для опечаток. Конфигурация simple: каталог смешанный, без стемминга префиксы предсказуемы
+create extension if not exists pg_trgm;
+
+alter table books add column search_vector tsvector generated always as (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(author, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(genre, '')), 'C') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'D')
+) stored;
+
+create index idx_books_search_vector on books using gin (search_vector);
+create index idx_books_title_trgm on books using gin (title gin_trgm_ops);
+create index idx_books_author_trgm on books using gin (author gin_trgm_ops);
+
+-- Фильтры поиска
+create index idx_books_genre on books (genre);
+create index idx_books_publisher on books (publisher);
+create index idx_books_publication_year on books (publication_year);
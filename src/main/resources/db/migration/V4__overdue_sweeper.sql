@@ -0,0 +1,5 @@
+-- Просроченные аренды помечает OverdueSweeper; он ищет их по idx_rentals_active_due_date
+alter table rentals add column is_overdue boolean not null default false;
+
+-- Активных бронирований мало по сравнению с историей, частичный индекс держит только их
+create index idx_reservations_active_expiry_date on reservations (expiry_date) where is_active = true;
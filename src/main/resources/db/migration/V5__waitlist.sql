@@ -0,0 +1,17 @@
+-- Очередь ожидания книг: возвращённая копия сразу уходит первому в очереди
+create table waitlist_entries (
+    id uuid not null,
+    "created on" timestamp(6),
+    "modified on" timestamp(6),
+    priority integer not null default 0,
+    user_id uuid not null,
+    book_id uuid not null,
+    primary key (id),
+    constraint fk_waitlist_user foreign key (user_id) references users (id) on delete cascade,
+    constraint fk_waitlist_book foreign key (book_id) references books (id) on delete cascade,
+    constraint uk_waitlist_book_user unique (book_id, user_id)
+);
+
+-- Голова очереди книги читается из начала индекса: больший приоритет, затем раньше вставший
+create index idx_waitlist_head on waitlist_entries (book_id, priority desc, "created on", id);
+create index idx_waitlist_user_id on waitlist_entries (user_id);
@@ -0,0 +1,6 @@
+-- Аренды из REST без is_returned сохранялись с NULL и не попадали ни в idx_rentals_active_due_date, ни в OverdueSweeper;
+-- теперь RentalMapper подставляет false и 0, а старые строки приводятся к тем же значениям
+update rentals set is_returned = false where is_returned is null;
+update rentals set extended_times = 0 where extended_times is null;
+alter table rentals alter column is_returned set not null;
+alter table rentals alter column extended_times set not null;
@@ -0,0 +1,123 @@
+package com.example.musiclibrary.cache;
+
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoLevelCacheTest {
+
+	// Замена Redis в памяти: хранит значения и запоминает разосланные оповещения об удалении
+	static class InMemoryRemoteCache implements RemoteCache {
+		final Map<String, byte[]> values = new ConcurrentHashMap<>();
+		final List<String> invalidations = new ArrayList<>();
+		boolean down;
+
+		@Override
+		public byte[] get(String key) {
+			if (down) {
+				throw new IllegalStateException("redis down");
+			}
+			return values.get(key);
+		}
+
+		@Override
+		public void put(String key, byte[] value, Duration ttl) {
+			if (down) {
+				throw new IllegalStateException("redis down");
+			}
+			values.put(key, value);
+		}
+
+		@Override
+		public void evict(String key) {
+			values.remove(key);
+			invalidations.add(key);
+		}
+	}
+
+	private InMemoryRemoteCache remote;
+	private TwoLevelCache<BookShow> cache;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		remote = new InMemoryRemoteCache();
+		cache = new TwoLevelCache<>("book-show", BookShow.class, new ObjectMapper().findAndRegisterModules(), remote,
+				100, Duration.ofMinutes(1), Duration.ofMinutes(10), new SimpleMeterRegistry());
+		loads = new AtomicInteger();
+	}
+
+	private Optional<BookShow> load(String title) {
+		loads.incrementAndGet();
+		BookShow book = new BookShow();
+		book.setTitle(title);
+		return Optional.of(book);
+	}
+
+	@Test
+	void repeatedReadIsServedFromNearCache() {
+		assertEquals("Мастер и Маргарита", cache.get("Мастер и Маргарита", this::load).get().getTitle());
+		assertEquals("Мастер и Маргарита", cache.get("Мастер и Маргарита", this::load).get().getTitle());
+		assertEquals(1, loads.get());
+		assertTrue(remote.values.containsKey("library:book-show:Мастер и Маргарита"));
+	}
+
+	@Test
+	void eachReadReturnsOwnCopy() {
+		BookShow first = cache.get("Идиот", this::load).get();
+		first.setTitle("изменено");
+		assertEquals("Идиот", cache.get("Идиот", this::load).get().getTitle());
+	}
+
+	@Test
+	void nearMissIsServedFromRemote() {
+		cache.get("Идиот", this::load);
+		cache.evictLocal("Идиот");
+		assertEquals("Идиот", cache.get("Идиот", this::load).get().getTitle());
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void evictClearsBothLevelsAndBroadcasts() {
+		cache.get("Идиот", this::load);
+		cache.evict("Идиот");
+		assertEquals(List.of("library:book-show:Идиот"), remote.invalidations);
+		cache.get("Идиот", this::load);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void absentValueIsNotCached() {
+		assertTrue(cache.get("Нет такой", title -> {
+			loads.incrementAndGet();
+			return Optional.empty();
+		}).isEmpty());
+		cache.get("Нет такой", this::load);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void remoteFailureFallsBackToLoader() {
+		remote.down = true;
+		assertEquals("Идиот", cache.get("Идиот", this::load).get().getTitle());
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void localKeyMatchesOnlyOwnPrefix() {
+		assertEquals("Идиот", cache.localKey("library:book-show:Идиот"));
+		assertNull(cache.localKey("library:user-show:Идиот"));
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.musiclibrary.controllers;
+
+import com.example.musiclibrary.dtos.ActionDto;
+import com.example.musiclibrary.dtos.show.BookShow;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.dtos.show.UserShow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkTemplatesTest {
+
+	private LinkTemplates linkTemplates;
+
+	@BeforeEach
+	void setUp() {
+		linkTemplates = new LinkTemplates();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rentals");
+		request.setServerPort(8081);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	// Ссылки из шаблонов должны совпадать с тем, что строит WebMvcLinkBuilder
+	@Test
+	void bookLinksMatchLinkBuilder() throws Throwable {
+		BookShow book = new BookShow();
+		book.setTitle("Война и мир / том 1");
+		linkTemplates.decorate(book);
+
+		assertLinks(List.of(
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).findBook(book.getTitle())).withSelfRel(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).all()).withRel("all-books")
+		), book.getLinks().toList());
+		assertActions(book.getActions(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).editBook(book.getTitle(), null)).toUri().toString(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BookController.class).deleteBook(book.getTitle())).toUri().toString());
+	}
+
+	@Test
+	void userLinksMatchLinkBuilder() throws Throwable {
+		UserShow user = new UserShow();
+		user.setName("Иван Петров");
+		linkTemplates.decorate(user);
+
+		assertLinks(List.of(
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).findUser(user.getName())).withSelfRel(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).all()).withRel("all-users")
+		), user.getLinks().toList());
+		assertActions(user.getActions(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).editUser(user.getName(), null)).toUri().toString(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(UserController.class).deleteUser(user.getName())).toUri().toString());
+	}
+
+	@Test
+	void rentalLinksMatchLinkBuilder() throws Throwable {
+		RentalShow rental = new RentalShow();
+		rental.setId(UUID.randomUUID());
+		linkTemplates.decorate(rental);
+
+		assertLinks(List.of(
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).findRental(rental.getId())).withSelfRel(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).all()).withRel("all-rentals")
+		), rental.getLinks().toList());
+		assertActions(rental.getActions(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).editRental(rental.getId(), null)).toUri().toString(),
+				WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).deleteRental(rental.getId())).toUri().toString());
+		assertLinks(List.of(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(RentalController.class).all()).withRel("all-rentals")),
+				List.of(linkTemplates.allRentals()));
+	}
+
+	private static void assertLinks(List<Link> expected, List<Link> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getRel(), actual.get(i).getRel());
+			assertEquals(expected.get(i).getHref(), actual.get(i).getHref());
+		}
+	}
+
+	private static void assertActions(List<ActionDto> actions, String update, String delete) {
+		assertEquals(2, actions.size());
+		assertEquals(update, actions.get(0).getHref());
+		assertEquals("PUT", actions.get(0).getMethod());
+		assertEquals("application/json", actions.get(0).getAccept());
+		assertEquals(delete, actions.get(1).getHref());
+		assertEquals("DELETE", actions.get(1).getMethod());
+		assertNull(actions.get(1).getAccept());
+	}
+}
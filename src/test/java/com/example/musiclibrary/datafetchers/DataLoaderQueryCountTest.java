@@ -0,0 +1,136 @@
+package com.example.musiclibrary.datafetchers;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.ReservationRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.netflix.graphql.dgs.DgsQueryExecutor;
+import graphql.ExecutionResult;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DataLoaderQueryCountTest {
+
+	private static final int USERS = 5;
+	private static final int BOOKS = 10;
+	private static final int ROWS = 30;
+
+	@Autowired
+	private DgsQueryExecutor queryExecutor;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private RentalRepository rentalRepository;
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		if (!userRepository.existsByName("reader0")) {
+			seed();
+		}
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	private void seed() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			users.add(userRepository.save(new User("reader" + i, "reader" + i + "@library.test", "password" + i,
+					User.Role.User, LocalDate.of(2024, 1, 1), "8(800)000-00-0" + i, null)));
+		}
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < BOOKS; i++) {
+			Book b = new Book("Книга " + i, "Автор " + i, "Издательство", 2000 + i, "Жанр", 5, 5, null);
+			b.setUser(users.get(i % USERS));
+			books.add(bookRepository.save(b));
+		}
+		for (int i = 0; i < ROWS; i++) {
+			Rental r = new Rental(LocalDate.of(2024, 9, 1), LocalDate.of(2024, 9, 15), null, 0, false);
+			r.setUser(users.get(i % USERS));
+			r.setBook(books.get(i % BOOKS));
+			rentalRepository.save(r);
+			Reservation reservation = new Reservation(LocalDate.of(2024, 9, 1), LocalDate.of(2024, 9, 8), true);
+			reservation.setUser(users.get((i + 1) % USERS));
+			reservation.setBook(books.get((i + 3) % BOOKS));
+			reservationRepository.save(reservation);
+		}
+	}
+
+	private List<Map<String, Object>> execute(String query, String field) {
+		ExecutionResult result = queryExecutor.execute(query);
+		assertTrue(result.getErrors().isEmpty(), () -> result.getErrors().toString());
+		Map<String, List<Map<String, Object>>> data = result.getData();
+		return data.get(field);
+	}
+
+	// Аренды, их пользователи и книги (с владельцами): по одному запросу на тип сущности
+	@Test
+	void rentalsWithUserAndBook() {
+		List<Map<String, Object>> rentals = execute(
+				"{ getAllRentals { id user { name email } book { title user { name } } } }", "getAllRentals");
+
+		assertTrue(rentals.size() >= ROWS);
+		rentals.forEach(r -> {
+			assertNotNull(((Map<?, ?>) r.get("user")).get("email"));
+			assertNotNull(((Map<?, ?>) ((Map<?, ?>) r.get("book")).get("user")).get("name"));
+		});
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void reservationsWithUserAndBook() {
+		List<Map<String, Object>> reservations = execute(
+				"{ getAllReservations { id user { name } book { title author } } }", "getAllReservations");
+
+		assertTrue(reservations.size() >= ROWS);
+		reservations.forEach(r -> assertNotNull(((Map<?, ?>) r.get("book")).get("author")));
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void usersWithRentals() {
+		List<Map<String, Object>> users = execute("{ getAllUsers { name rentals { id } } }", "getAllUsers");
+
+		// База общая с другими тестами контекста, поэтому проверяются только свои читатели
+		List<Map<String, Object>> readers = users.stream()
+				.filter(u -> ((String) u.get("name")).startsWith("reader"))
+				.toList();
+		assertEquals(USERS, readers.size());
+		readers.forEach(u -> assertEquals(ROWS / USERS, ((List<?>) u.get("rentals")).size()));
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void booksWithOwnerAndReservations() {
+		List<Map<String, Object>> books = execute("{ getAllBooks { title user { name } reservations { id } } }", "getAllBooks");
+
+		assertTrue(books.size() >= BOOKS);
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+}
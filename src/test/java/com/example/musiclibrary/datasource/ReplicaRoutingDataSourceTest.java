@@ -0,0 +1,218 @@
+package com.example.musiclibrary.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Маршрутизация через JpaTransactionManager и Hibernate: две БД H2, ответившую узнаём по select database().
+ */
+class ReplicaRoutingDataSourceTest {
+
+	@Entity
+	@Table(name = "marker")
+	static class Marker {
+		@Id
+		private UUID id;
+		private String name;
+
+		Marker() {
+		}
+
+		Marker(String name) {
+			this.id = UUID.randomUUID();
+			this.name = name;
+		}
+	}
+
+	private JdbcTemplate primary;
+	private JdbcTemplate replicaJdbc;
+	private ReplicaRoutingDataSource.Replica replica;
+	private ReplicaRoutingDataSource routing;
+	private MeterRegistry meterRegistry;
+	private EntityManagerFactory entityManagerFactory;
+	private EntityManager entityManager;
+	private TransactionTemplate readOnly;
+	private TransactionTemplate readWrite;
+
+	@BeforeEach
+	void setUp() {
+		String suffix = UUID.randomUUID().toString().replace("-", "");
+		DataSource primaryDataSource = h2("primary" + suffix);
+		DataSource replicaDataSource = h2("replica" + suffix);
+		primary = new JdbcTemplate(primaryDataSource);
+		replicaJdbc = new JdbcTemplate(replicaDataSource);
+		for (JdbcTemplate db : List.of(primary, replicaJdbc)) {
+			db.execute("create table marker (id uuid primary key, name varchar(255))");
+		}
+		replica = new ReplicaRoutingDataSource.Replica("replica-0", replicaDataSource);
+		meterRegistry = new SimpleMeterRegistry();
+		routing = new ReplicaRoutingDataSource(primaryDataSource, List.of(replica), 1000, meterRegistry);
+		routing.afterPropertiesSet();
+
+		LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+		factory.setDataSource(new LazyConnectionDataSourceProxy(routing));
+		factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		factory.setManagedTypes(PersistenceManagedTypes.of(Marker.class.getName()));
+		factory.setJpaPropertyMap(Map.of(AvailableSettings.CONNECTION_HANDLING, ReplicaDataSourceConfig.CONNECTION_HANDLING));
+		factory.afterPropertiesSet();
+		entityManagerFactory = factory.getObject();
+		entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+		JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+		readWrite = new TransactionTemplate(transactionManager);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+			((EntityManagerHolder) TransactionSynchronizationManager.unbindResource(entityManagerFactory)).getEntityManager().close();
+		}
+		RequestContextHolder.resetRequestAttributes();
+		routing.reset();
+		entityManagerFactory.close();
+	}
+
+	@Test
+	void readOnlyGoesToReplicaWithinAllowedLag() {
+		// Hibernate при старте уже брал соединение для метаданных
+		double primaryBefore = routed("primary");
+		caughtUp();
+		assertEquals("replica", read());
+		assertEquals("primary", readWrite.execute(s -> database()));
+
+		replica.lagMillis = 5000;
+		assertEquals("primary", read());
+
+		// реплика недоступна: H2 не знает функций репликации PostgreSQL, проверка её исключает
+		caughtUp();
+		routing.checkLag();
+		assertEquals("primary", read());
+
+		// каждое соединение учтено ровно в одном счётчике
+		assertEquals(1, routed("replica"));
+		assertEquals(primaryBefore + 1, routed("primary"));
+		assertEquals(2, routed("fallback"));
+	}
+
+	// Как при open-in-view: один EntityManager на запрос, в нём чтение, запись и снова чтение
+	@Test
+	void eachTransactionOfOneEntityManagerIsRoutedOnItsOwn() {
+		TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManagerFactory.createEntityManager()));
+		caughtUp();
+
+		assertEquals("replica", read());
+		readWrite.executeWithoutResult(s -> entityManager.persist(new Marker("written")));
+
+		assertEquals(1, count(primary));
+		assertEquals(0, count(replicaJdbc));
+		// реплика проверена до записи: своё изменение поток читает из основной БД
+		assertEquals("primary", read());
+
+		replica.replayedUpTo = routing.writtenAt() + 1;
+		assertEquals("replica", read());
+	}
+
+	@Test
+	void writeTimeFromClientKeepsNextRequestOffStaleReplica() throws Exception {
+		caughtUp();
+		ReadYourWritesFilter filter = new ReadYourWritesFilter(routing, 60_000);
+
+		MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+		MockHttpServletRequest writeRequest = new MockHttpServletRequest("POST", "/books/add");
+		filter.doFilter(writeRequest, writeResponse, (request, response) -> {
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(writeRequest, writeResponse));
+			readWrite.executeWithoutResult(s -> entityManager.persist(new Marker("written")));
+			RequestContextHolder.resetRequestAttributes();
+		});
+		Cookie cookie = writeResponse.getCookie(ReadYourWritesFilter.COOKIE);
+		assertNotNull(cookie);
+		assertEquals(cookie.getValue(), writeResponse.getHeader(ReadYourWritesFilter.HEADER));
+		assertNull(routing.writtenAt());
+
+		// следующий запрос клиента, в другом потоке
+		AtomicReference<String> target = new AtomicReference<>();
+		MockHttpServletRequest readRequest = new MockHttpServletRequest("GET", "/books");
+		readRequest.setCookies(cookie);
+		Thread thread = new Thread(() -> {
+			try {
+				filter.doFilter(readRequest, new MockHttpServletResponse(), (request, response) -> target.set(read()));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		thread.start();
+		thread.join();
+		assertEquals("primary", target.get());
+
+		// без метки запрос другого клиента читает реплику
+		filter.doFilter(new MockHttpServletRequest("GET", "/books"), new MockHttpServletResponse(), (request, response) -> target.set(read()));
+		assertEquals("replica", target.get());
+	}
+
+	@Test
+	void primaryReadsBypassReplicaInsideReadOnlyTransaction() {
+		caughtUp();
+		assertEquals("primary", readOnly.execute(s -> PrimaryReads.call(this::database)));
+		assertEquals("replica", read());
+	}
+
+	private void caughtUp() {
+		replica.lagMillis = 0;
+		replica.replayedUpTo = System.currentTimeMillis();
+	}
+
+	private String read() {
+		return readOnly.execute(s -> database());
+	}
+
+	private String database() {
+		String name = ((String) entityManager.createNativeQuery("select database()").getSingleResult()).toLowerCase();
+		return name.startsWith("primary") ? "primary" : name.startsWith("replica") ? "replica" : name;
+	}
+
+	private double routed(String target) {
+		return meterRegistry.counter("library.datasource.routed", "target", target).count();
+	}
+
+	private static int count(JdbcTemplate db) {
+		return db.queryForObject("select count(*) from marker", Integer.class);
+	}
+
+	private static DataSource h2(String name) {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.musiclibrary.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.parser.Parser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentCacheTest {
+
+	private static final String QUERY = "{ books(first: 10) { edges { node { title } } } }";
+
+	private DocumentCache cache;
+	private AtomicInteger parses;
+
+	@BeforeEach
+	void setUp() {
+		cache = new DocumentCache(100, new SimpleMeterRegistry());
+		parses = new AtomicInteger();
+	}
+
+	@Test
+	void repeatedQueryIsParsedOnce() {
+		PreparsedDocumentEntry first = get(ExecutionInput.newExecutionInput().query(QUERY).build());
+		PreparsedDocumentEntry second = get(ExecutionInput.newExecutionInput().query(QUERY).build());
+
+		assertSame(first, second);
+		assertEquals(1, parses.get());
+	}
+
+	@Test
+	void persistedQueryNeedsTextOnlyOnce() throws NoSuchAlgorithmException {
+		String hash = sha256(QUERY);
+
+		PreparsedDocumentEntry unknown = get(persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash));
+		assertEquals("PersistedQueryNotFound", unknown.getErrors().get(0).getMessage());
+
+		assertFalse(get(persisted(QUERY, hash)).hasErrors());
+		PreparsedDocumentEntry byHash = get(persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash.toUpperCase()));
+		assertFalse(byHash.hasErrors());
+		assertEquals(1, parses.get());
+	}
+
+	@Test
+	void mismatchedHashIsRejected() throws NoSuchAlgorithmException {
+		PreparsedDocumentEntry entry = get(persisted(QUERY, sha256("{ other }")));
+
+		assertEquals("PersistedQueryIdInvalid", entry.getErrors().get(0).getMessage());
+		assertEquals(0, parses.get());
+	}
+
+	private PreparsedDocumentEntry get(ExecutionInput input) {
+		return cache.getDocumentAsync(input, in -> {
+			parses.incrementAndGet();
+			return new PreparsedDocumentEntry(Parser.parse(in.getQuery()));
+		}).join();
+	}
+
+	private static ExecutionInput persisted(String query, String hash) {
+		return ExecutionInput.newExecutionInput()
+				.query(query)
+				.extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+				.build();
+	}
+
+	private static String sha256(String query) throws NoSuchAlgorithmException {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.musiclibrary.graphql;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationTimingInstrumentationTest {
+
+	@Test
+	void onlyAllowedOperationNamesBecomeTags() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse("type Query { hello: String }"),
+				RuntimeWiring.newRuntimeWiring().build());
+		GraphQL graphQL = GraphQL.newGraphQL(schema)
+				.instrumentation(new OperationTimingInstrumentation(registry, Set.of("Hello")))
+				.build();
+
+		graphQL.execute(ExecutionInput.newExecutionInput().query("query Hello { hello }").operationName("Hello").build());
+		for (int i = 0; i < 3; i++) {
+			String name = "Random" + i;
+			graphQL.execute(ExecutionInput.newExecutionInput().query("query " + name + " { hello }").operationName(name).build());
+		}
+		graphQL.execute("{ hello }");
+
+		Set<String> operations = registry.find("graphql.operation").meters().stream()
+				.map(Meter::getId)
+				.map(id -> id.getTag("operation"))
+				.collect(Collectors.toSet());
+		assertEquals(Set.of("Hello", OperationTimingInstrumentation.OTHER, OperationTimingInstrumentation.ANONYMOUS,
+				OperationTimingInstrumentation.ALL), operations);
+		assertEquals(3, registry.get("graphql.operation").tags("phase", "execute", "operation", "other").timer().count());
+		assertEquals(5, registry.get("graphql.operation").tags("phase", "parse").timer().count());
+	}
+}
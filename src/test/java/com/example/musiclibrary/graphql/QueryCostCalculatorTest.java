@@ -0,0 +1,57 @@
+package com.example.musiclibrary.graphql;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCostCalculatorTest {
+
+	private static final String SDL = """
+			type Query { books(first: Int): BookConnection tags: [String] }
+			type BookConnection { edges: [BookEdge] }
+			type BookEdge { node: Book }
+			type Book { title: String similar(first: Int): BookConnection }
+			""";
+
+	private static ExecutionResult execute(int maxComplexity, String query) {
+		GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL),
+				RuntimeWiring.newRuntimeWiring().build());
+		return GraphQL.newGraphQL(schema)
+				.instrumentation(new MaxQueryComplexityInstrumentation(maxComplexity, new QueryCostCalculator(100, maxComplexity)))
+				.build()
+				.execute(query);
+	}
+
+	// books: 1 + 10 * (edges 1 + node 1 + title 1) = 31
+	@Test
+	void connectionCostIsMultipliedByFirst() {
+		String query = "{ books(first: 10) { edges { node { title } } } }";
+
+		assertTrue(execute(31, query).getErrors().isEmpty());
+		assertFalse(execute(30, query).getErrors().isEmpty());
+	}
+
+	// Список без аргументов стоит list-size
+	@Test
+	void plainListCostsListSize() {
+		assertTrue(execute(101, "{ tags }").getErrors().isEmpty());
+		assertFalse(execute(100, "{ tags }").getErrors().isEmpty());
+	}
+
+	// Четыре уровня first: 1000 дают больше 2^31; в int стоимость становилась отрицательной и проходила лимит
+	@Test
+	void nestedFirstDoesNotOverflowPastTheLimit() {
+		ExecutionResult result = execute(20000, "{ books(first: 1000) { edges { node { similar(first: 1000) { edges { node {"
+				+ " similar(first: 1000) { edges { node { similar(first: 1000) { edges { node { title } } } } } } } } } } } } }");
+
+		assertFalse(result.getErrors().isEmpty());
+		assertTrue(result.getErrors().get(0).getMessage().contains("20000"), result.getErrors().toString());
+	}
+}
@@ -0,0 +1,83 @@
+package com.example.musiclibrary.grpc;
+
+import io.grpc.Attributes;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcConcurrencyLimitInterceptorTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final GrpcConcurrencyLimitInterceptor interceptor = new GrpcConcurrencyLimitInterceptor(1, registry);
+	private final ServerCallHandler<String, String> handler = (call, headers) -> new ServerCall.Listener<>() {
+	};
+
+	@Test
+	void callsOverTheLimitAreRejectedUntilOneFinishes() {
+		FakeCall first = new FakeCall();
+		ServerCall.Listener<String> running = interceptor.interceptCall(first, new Metadata(), handler);
+		FakeCall second = new FakeCall();
+		interceptor.interceptCall(second, new Metadata(), handler);
+
+		assertNull(first.status);
+		assertEquals(Status.Code.RESOURCE_EXHAUSTED, second.status.getCode());
+		assertEquals(1, registry.get("grpc.server.rejected").counter().count());
+
+		running.onComplete();
+		// повторное завершение не возвращает разрешение второй раз
+		running.onCancel();
+		FakeCall third = new FakeCall();
+		ServerCall.Listener<String> next = interceptor.interceptCall(third, new Metadata(), handler);
+		assertNull(third.status);
+		FakeCall fourth = new FakeCall();
+		interceptor.interceptCall(fourth, new Metadata(), handler);
+		assertEquals(Status.Code.RESOURCE_EXHAUSTED, fourth.status.getCode());
+
+		next.onCancel();
+		FakeCall fifth = new FakeCall();
+		interceptor.interceptCall(fifth, new Metadata(), handler);
+		assertNull(fifth.status);
+	}
+
+	private static final class FakeCall extends ServerCall<String, String> {
+		private Status status;
+
+		@Override
+		public void request(int numMessages) {
+		}
+
+		@Override
+		public void sendHeaders(Metadata headers) {
+		}
+
+		@Override
+		public void sendMessage(String message) {
+		}
+
+		@Override
+		public void close(Status status, Metadata trailers) {
+			this.status = status;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			return Attributes.EMPTY;
+		}
+
+		@Override
+		public MethodDescriptor<String, String> getMethodDescriptor() {
+			return null;
+		}
+	}
+}
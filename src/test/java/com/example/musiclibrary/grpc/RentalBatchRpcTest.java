@@ -0,0 +1,214 @@
+package com.example.musiclibrary.grpc;
+
+import com.example.musiclibrary.RentalBatchResponse;
+import com.example.musiclibrary.RentalCheckRequest;
+import com.example.musiclibrary.RentalCheckResponse;
+import com.example.musiclibrary.RentalIdsRequest;
+import com.example.musiclibrary.RentalListResponse;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.rabbitmq.RabbitMQConfig;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.OutboxEventRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import io.grpc.stub.StreamObserver;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RentalBatchRpcTest {
+
+	private static final int USERS = 40;
+
+	@Autowired
+	private RentalServiceImpl rentalService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private RentalRepository rentalRepository;
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		if (!userRepository.existsByName("batch0")) {
+			List<User> users = new ArrayList<>();
+			for (int i = 0; i < USERS; i++) {
+				users.add(userRepository.save(new User("batch" + i, "batch" + i + "@library.test", "password",
+						User.Role.User, LocalDate.of(2024, 1, 1), "8(800)100-00-" + i, null)));
+			}
+			Book scarce = new Book("Редкая книга", "Автор", "Издательство", 2000, "Жанр", 3, 3, null);
+			scarce.setUser(users.get(0));
+			bookRepository.save(scarce);
+			Book plenty = new Book("Массовая книга", "Автор", "Издательство", 2000, "Жанр", 100, 100, null);
+			plenty.setUser(users.get(0));
+			bookRepository.save(plenty);
+			Book single = new Book("Книга одной аренды", "Автор", "Издательство", 2000, "Жанр", 1, 1, null);
+			single.setUser(users.get(0));
+			bookRepository.save(single);
+		}
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void streamedRentalsGetReceiptsInRequestOrder() {
+		List<RentalCheckRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			requests.add(request("batch" + i, "Редкая книга"));
+		}
+		requests.add(request("нет такого", "Редкая книга"));
+		requests.add(request("batch0", "Нет такой книги"));
+		long opened = countEvents(RabbitMQConfig.rentalOpened);
+
+		List<RentalCheckResponse> results = addRentals(requests);
+
+		assertEquals(requests.size(), results.size());
+		for (int i = 0; i < 3; i++) {
+			assertTrue(results.get(i).getSuccess());
+			assertTrue(results.get(i).getReceipt().contains("batch" + i));
+		}
+		assertFalse(results.get(3).getSuccess());
+		assertTrue(results.get(3).getReceipt().contains("Нет доступных копий"));
+		assertTrue(results.get(4).getReceipt().contains("Нет доступных копий"));
+		assertTrue(results.get(5).getReceipt().contains("Пользователь не найден"));
+		assertTrue(results.get(6).getReceipt().contains("Книга не найдена"));
+		assertEquals(0, bookRepository.findByTitle("Редкая книга").orElseThrow().getAvailable_copies());
+
+		assertEquals(opened + 3, countEvents(RabbitMQConfig.rentalOpened));
+
+		List<String> ids = rentalRepository.findByBook("Редкая книга").stream()
+				.map(r -> r.getId().toString())
+				.collect(Collectors.toList());
+		assertEquals(3, ids.size());
+		List<String> toReturn = new ArrayList<>(ids);
+		toReturn.add(ids.get(0));
+		toReturn.add("не uuid");
+
+		RentalBatchResponse returned = returnRentals(toReturn);
+
+		assertEquals(5, returned.getResultsCount());
+		assertTrue(returned.getResults(0).getSuccess());
+		assertTrue(returned.getResults(2).getSuccess());
+		assertTrue(returned.getResults(3).getReceipt().contains("Аренда уже закрыта"));
+		assertTrue(returned.getResults(4).getReceipt().contains("Некорректный формат id"));
+		assertEquals(3, bookRepository.findByTitle("Редкая книга").orElseThrow().getAvailable_copies());
+		assertTrue(rentalRepository.findByBook("Редкая книга").stream().allMatch(Rental::getIs_returned));
+	}
+
+	@Test
+	void batchLooksUpAndWritesOncePerBatch() {
+		List<RentalCheckRequest> requests = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			requests.add(request("batch" + i, "Массовая книга"));
+		}
+		long opened = countEvents(RabbitMQConfig.rentalOpened);
+		statistics.clear();
+
+		List<RentalCheckResponse> results = addRentals(requests);
+
+		assertTrue(results.stream().allMatch(RentalCheckResponse::getSuccess));
+		// пользователи, книги, одно списание копий и вставки одним батчем, а не по запросу на заявку
+		assertTrue(statistics.getPrepareStatementCount() < 10, "statements: " + statistics.getPrepareStatementCount());
+		assertEquals(100 - USERS, bookRepository.findByTitle("Массовая книга").orElseThrow().getAvailable_copies());
+		assertEquals(opened + USERS, countEvents(RabbitMQConfig.rentalOpened));
+
+		List<String> ids = rentalRepository.findByBook("Массовая книга").stream()
+				.map(r -> r.getId().toString())
+				.collect(Collectors.toList());
+		RentalListResponse found = getRentalsByIds(ids);
+		assertEquals(ids.size(), found.getRentalsCount());
+		assertEquals(ids.get(0), found.getRentals(0).getId());
+	}
+
+	// Одиночная аренда пишет rentalOpened в той же транзакции; без копий ничего не пишется
+	@Test
+	void singleRentalWritesOpenedEvent() {
+		long opened = countEvents(RabbitMQConfig.rentalOpened);
+
+		assertTrue(addRental(request("batch1", "Книга одной аренды")).getSuccess());
+		assertFalse(addRental(request("batch2", "Книга одной аренды")).getSuccess());
+
+		assertEquals(opened + 1, countEvents(RabbitMQConfig.rentalOpened));
+		assertEquals(1, rentalRepository.findByBook("Книга одной аренды").size());
+		assertEquals(0, bookRepository.findByTitle("Книга одной аренды").orElseThrow().getAvailable_copies());
+	}
+
+	private long countEvents(String routingKey) {
+		return outboxEventRepository.findAll().stream().filter(e -> routingKey.equals(e.getRouting_key())).count();
+	}
+
+	private RentalCheckResponse addRental(RentalCheckRequest request) {
+		Recorder<RentalCheckResponse> recorder = new Recorder<>();
+		rentalService.addRental(request, recorder);
+		assertTrue(recorder.completed);
+		return recorder.values.get(0);
+	}
+
+	private static RentalCheckRequest request(String user, String book) {
+		return RentalCheckRequest.newBuilder().setUser(user).setBook(book).build();
+	}
+
+	private List<RentalCheckResponse> addRentals(List<RentalCheckRequest> requests) {
+		Recorder<RentalCheckResponse> recorder = new Recorder<>();
+		StreamObserver<RentalCheckRequest> stream = rentalService.addRentals(recorder);
+		requests.forEach(stream::onNext);
+		stream.onCompleted();
+		assertTrue(recorder.completed);
+		return recorder.values;
+	}
+
+	private RentalBatchResponse returnRentals(List<String> ids) {
+		Recorder<RentalBatchResponse> recorder = new Recorder<>();
+		rentalService.returnRentals(RentalIdsRequest.newBuilder().addAllIds(ids).build(), recorder);
+		return recorder.values.get(0);
+	}
+
+	private RentalListResponse getRentalsByIds(List<String> ids) {
+		Recorder<RentalListResponse> recorder = new Recorder<>();
+		rentalService.getRentalsByIds(RentalIdsRequest.newBuilder().addAllIds(ids).build(), recorder);
+		return recorder.values.get(0);
+	}
+
+	private static class Recorder<T> implements StreamObserver<T> {
+		final List<T> values = new ArrayList<>();
+		boolean completed;
+
+		@Override
+		public void onNext(T value) {
+			values.add(value);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			fail(t);
+		}
+
+		@Override
+		public void onCompleted() {
+			completed = true;
+		}
+	}
+}
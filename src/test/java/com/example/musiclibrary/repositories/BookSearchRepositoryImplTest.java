@@ -0,0 +1,26 @@
+package com.example.musiclibrary.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchRepositoryImplTest {
+
+	@Test
+	void lastTermIsPrefix() {
+		assertEquals("война & и & ми:*", BookSearchRepositoryImpl.tsquery("Война и Ми"));
+	}
+
+	@Test
+	void tsqueryOperatorsAreDropped() {
+		assertEquals("чехов & антон:*", BookSearchRepositoryImpl.tsquery("чехов | !антон & ('"));
+		assertEquals("a & b:*", BookSearchRepositoryImpl.tsquery("a:* <-> b"));
+	}
+
+	@Test
+	void blankQueryMatchesEverything() {
+		assertNull(BookSearchRepositoryImpl.tsquery(null));
+		assertNull(BookSearchRepositoryImpl.tsquery("   "));
+		assertNull(BookSearchRepositoryImpl.tsquery("&|!()"));
+	}
+}
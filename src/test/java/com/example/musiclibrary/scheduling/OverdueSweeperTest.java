@@ -0,0 +1,116 @@
+package com.example.musiclibrary.scheduling;
+
+import com.example.musiclibrary.dtos.RentalDto;
+import com.example.musiclibrary.dtos.show.RentalShow;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.rabbitmq.RabbitMQConfig;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.OutboxEventRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.ReservationRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.repositories.specifications.RentalSpecifications;
+import com.example.musiclibrary.services.RentalService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "library.sweeper.batch-size=2")
+@ActiveProfiles("test")
+class OverdueSweeperTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+	@Autowired
+	private OverdueSweeper sweeper;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private ReservationRepository reservationRepository;
+	@Autowired
+	private RentalRepository rentalRepository;
+	@Autowired
+	private OutboxEventRepository outboxEventRepository;
+	@Autowired
+	private RentalService rentalService;
+
+	@Test
+	void expiredReservationsReturnCopiesAndOverdueRentalsAreFlagged() throws InterruptedException {
+		User user = userRepository.save(new User("sweeper", "sweeper@library.test", "password",
+				User.Role.User, LocalDate.of(2024, 1, 1), "8(800)400-00-00", null));
+		// 4 копии из 6 держат бронирования, 1 — аренда
+		Book book = new Book("Просроченная книга", "Автор", "Издательство", 2000, "Жанр", 1, 6, null);
+		book.setUser(user);
+		book = bookRepository.save(book);
+		for (LocalDate expiry : new LocalDate[]{TODAY.minusDays(3), TODAY.minusDays(2), TODAY.minusDays(1), TODAY}) {
+			Reservation reservation = new Reservation(expiry.minusDays(7), expiry, true);
+			reservation.setUser(user);
+			reservation.setBook(book);
+			reservationRepository.save(reservation);
+		}
+		for (LocalDate due : new LocalDate[]{TODAY.minusDays(1), TODAY}) {
+			Rental rental = new Rental(due.minusDays(14), due, null, 0, false);
+			rental.setUser(user);
+			rental.setBook(book);
+			rentalRepository.save(rental);
+		}
+		long expiredEvents = countEvents(RabbitMQConfig.reservationsExpired);
+
+		assertEquals(3, sweeper.expireReservations(TODAY));
+		assertEquals(1, sweeper.flagOverdueRentals(TODAY));
+
+		assertEquals(4, bookRepository.findByTitle("Просроченная книга").orElseThrow().getAvailable_copies());
+		assertEquals(1, reservationRepository.findByBook("Просроченная книга").stream().filter(Reservation::getIs_active).count());
+		assertEquals(1, rentalRepository.findByBook("Просроченная книга").stream().filter(Rental::getIs_overdue).count());
+		List<RentalShow> overdue = rentalService.getRentalsPage(Specification.where(RentalSpecifications.book("Просроченная книга"))
+				.and(RentalSpecifications.overdue(true)).and(RentalSpecifications.returned(false)), null, 50).getItems();
+		assertEquals(1, overdue.size());
+		assertTrue(overdue.get(0).getIs_overdue());
+		assertEquals(TODAY.minusDays(1), overdue.get(0).getDue_date());
+		// батчи по 2 строки: два сводных события вместо трёх отдельных
+		assertEquals(expiredEvents + 2, countEvents(RabbitMQConfig.reservationsExpired));
+
+		assertEquals(0, sweeper.expireReservations(TODAY));
+		assertEquals(0, sweeper.flagOverdueRentals(TODAY));
+		assertEquals(4, bookRepository.findByTitle("Просроченная книга").orElseThrow().getAvailable_copies());
+	}
+
+	// REST-клиент не передал is_returned: аренда всё равно считается невозвращённой и помечается
+	@Test
+	void restRentalWithoutReturnedFlagIsFlagged() throws InterruptedException {
+		User user = userRepository.save(new User("sweeper-rest", "sweeper-rest@library.test", "password",
+				User.Role.User, LocalDate.of(2024, 1, 1), "8(800)400-00-01", null));
+		Book book = new Book("Просроченная книга из REST", "Автор", "Издательство", 2000, "Жанр", 1, 1, null);
+		book.setUser(user);
+		bookRepository.save(book);
+		RentalDto dto = new RentalDto();
+		dto.setRental_date(TODAY.minusDays(15));
+		dto.setDue_date(TODAY.minusDays(1));
+		assertNotNull(rentalService.addRental(dto, "sweeper-rest", "Просроченная книга из REST"));
+
+		Rental saved = rentalRepository.findByBook("Просроченная книга из REST").get(0);
+		assertEquals(false, saved.getIs_returned());
+		assertEquals(0, saved.getExtended_times());
+
+		assertEquals(1, sweeper.flagOverdueRentals(TODAY));
+		List<RentalShow> overdue = rentalService.getRentalsPage(Specification.where(RentalSpecifications.book("Просроченная книга из REST"))
+				.and(RentalSpecifications.overdue(true)).and(RentalSpecifications.returned(false)), null, 50).getItems();
+		assertEquals(1, overdue.size());
+	}
+
+	private long countEvents(String routingKey) {
+		return outboxEventRepository.findAll().stream().filter(e -> routingKey.equals(e.getRouting_key())).count();
+	}
+}
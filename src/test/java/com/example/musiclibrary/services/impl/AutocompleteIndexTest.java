@@ -0,0 +1,108 @@
+package com.example.musiclibrary.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+
+	private static final UUID WAR = new UUID(0, 1);
+	private static final UUID ANNA = new UUID(0, 2);
+	private static final UUID CODE = new UUID(0, 3);
+
+	private AutocompleteIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new AutocompleteIndex();
+		index.put(WAR, "Война и мир", "Лев Толстой");
+		index.put(ANNA, "Анна Каренина", "Лев Толстой");
+		index.put(CODE, "Clean Code", "Robert C. Martin");
+	}
+
+	private List<String> titles(String query) {
+		return index.suggest(query, 10).stream().map(AutocompleteSegment.Hit::title).toList();
+	}
+
+	@Test
+	void titlePrefixComesBeforeWordPrefix() {
+		index.put(new UUID(0, 4), "Мир и война", "Автор");
+		assertEquals(List.of("Война и мир", "Мир и война"), titles("вой"));
+		index.compact();
+		assertEquals(List.of("Война и мир", "Мир и война"), titles("вой"));
+	}
+
+	@Test
+	void everyWordMustMatchSomeWordPrefix() {
+		index.compact();
+		assertEquals(List.of("Анна Каренина", "Война и мир"), titles("толст"));
+		assertEquals(List.of("Анна Каренина"), titles("толстой ка"));
+		assertEquals(List.of("Clean Code"), titles("mart ROB"));
+		assertEquals(List.of(), titles("толстой код"));
+	}
+
+	@Test
+	void normalizesCaseYoAndPunctuation() {
+		index.put(new UUID(0, 5), "Ёлка, ёжик!", "Н. Носов");
+		assertEquals(List.of("Ёлка, ёжик!"), titles("ЕЛКА ЕЖ"));
+	}
+
+	@Test
+	void updatesAndDeletesHideSegmentVersion() {
+		index.compact();
+		index.put(WAR, "Война миров", "Герберт Уэллс");
+		index.remove(ANNA);
+		assertEquals(List.of("Война миров"), titles("война"));
+		assertEquals(List.of(), titles("толстой"));
+		index.compact();
+		assertEquals(List.of("Война миров"), titles("война"));
+		assertEquals(List.of(), titles("толстой"));
+		assertEquals(0, index.state().pending());
+	}
+
+	@Test
+	void changesDuringRebuildAreKept() {
+		index.compact();
+		index.rebuild(state -> {
+			List<AutocompleteDoc> docs = new ArrayList<>(state.visibleDocs());
+			// запись и удаление, пришедшие, пока строится новый сегмент
+			index.put(CODE, "Clean Architecture", "Robert C. Martin");
+			index.remove(WAR);
+			return docs;
+		});
+		assertEquals(List.of("Clean Architecture"), titles("clean"));
+		assertEquals(List.of("Анна Каренина"), titles("толстой"));
+		assertEquals(2, index.state().pending());
+	}
+
+	@Test
+	void rebuildFromSourceReadAfterChangeIsNotResurrected() {
+		index.compact();
+		index.remove(ANNA);
+		index.rebuild(state -> {
+			index.put(ANNA, "Анна Каренина", "Лев Толстой");
+			List<AutocompleteDoc> loaded = List.of(AutocompleteDoc.of(ANNA, "Анна Каренина", "Лев Толстой"),
+					AutocompleteDoc.of(WAR, "Война и мир", "Лев Толстой"));
+			index.remove(ANNA);
+			return loaded;
+		});
+		assertEquals(List.of("Война и мир"), titles("толстой"));
+	}
+
+	@Test
+	void limitAndManyMatchingTermsInSegment() {
+		for (int i = 0; i < 200; i++) {
+			index.put(new UUID(1, i), String.format("Том %03d", i), "Автор" + i);
+		}
+		index.compact();
+		List<AutocompleteSegment.Hit> hits = index.suggest("автор", 5);
+		assertEquals(5, hits.size());
+		assertEquals(List.of("Том 000", "Том 001", "Том 002", "Том 003", "Том 004"), hits.stream().map(AutocompleteSegment.Hit::title).toList());
+		assertTrue(index.state().base().memoryBytes() > 0);
+	}
+}
@@ -0,0 +1,90 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.dtos.BookImportReport;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.BookImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "library.import.chunk-size=2")
+@ActiveProfiles("test")
+class BookImportServiceImplTest {
+
+	@Autowired
+	private BookImportService bookImportService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+
+	@BeforeEach
+	void setUp() {
+		if (!userRepository.existsByName("importer")) {
+			User user = userRepository.save(new User("importer", "importer@library.test", "password",
+					User.Role.Librarian, LocalDate.of(2024, 1, 1), "8(800)200-00-00", null));
+			Book existing = new Book("Уже в каталоге", "Автор", "Издательство", 2000, "Жанр", 1, 1, null);
+			existing.setUser(user);
+			bookRepository.save(existing);
+		}
+	}
+
+	@Test
+	void csvSkipsDuplicatesAndInvalidRows() throws IOException {
+		String csv = "\uFEFFauthor,title,total_copies,description\r\n"
+				+ "Лев Толстой,Война и мир,3,\"Роман, \"\"эпопея\"\"\nв четырёх томах\"\r\n"
+				+ "Автор,Уже в каталоге,1,\r\n"
+				+ "Лев Толстой,Война и мир,2,\r\n"
+				+ ",Без автора,1,\r\n"
+				+ "Автор,Плохое число,много,\r\n"
+				+ "Фёдор Достоевский,Идиот,2,\r\n";
+		List<BookImportReport> progress = new ArrayList<>();
+
+		BookImportReport report = bookImportService.importBooks(bytes(csv), BookImportService.Format.CSV, "importer", progress::add);
+
+		assertEquals(6, report.rows());
+		assertEquals(2, report.imported());
+		assertEquals(2, report.duplicates());
+		assertEquals(2, report.invalid());
+		assertTrue(report.errors().get(0).startsWith("запись 4"));
+		assertEquals(3, progress.size());
+		Book war = bookRepository.findByTitle("Война и мир").orElseThrow();
+		assertEquals("Роман, \"эпопея\"\nв четырёх томах", war.getDescription());
+		assertEquals(3, war.getAvailable_copies());
+		assertEquals("importer", war.getUser().getName());
+	}
+
+	@Test
+	void ndjsonReportsMalformedLines() throws IOException {
+		String ndjson = "{\"title\":\"Мастер и Маргарита\",\"author\":\"Михаил Булгаков\",\"total_copies\":4,\"available_copies\":2,\"extra\":1}\n"
+				+ "{не json\n"
+				+ "\n"
+				+ "{\"title\":\"Собачье сердце\",\"author\":\"Михаил Булгаков\",\"total_copies\":1,\"available_copies\":5}\n";
+
+		BookImportReport report = bookImportService.importBooks(bytes(ndjson), BookImportService.Format.NDJSON, "importer", r -> { });
+
+		assertEquals(3, report.rows());
+		assertEquals(1, report.imported());
+		assertEquals(2, report.invalid());
+		assertEquals(2, bookRepository.findByTitle("Мастер и Маргарита").orElseThrow().getAvailable_copies());
+		assertTrue(bookRepository.findByTitle("Собачье сердце").isEmpty());
+	}
+
+	private static ByteArrayInputStream bytes(String s) {
+		return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,54 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookServiceImplTest {
+
+	private static final String TITLE = "Книга с правкой карточки";
+
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Как в editBook: карточка прочитана, списание копии закоммитилось раньше правки, правка его не затирает
+	@Test
+	void editDoesNotOverwriteCopiesTakenConcurrently() {
+		User owner = userRepository.save(new User("card-editor", "card-editor@library.test", "password",
+				User.Role.Librarian, LocalDate.of(2024, 1, 1), "8(800)900-00-00", null));
+		Book book = new Book(TITLE, "Автор", "Издательство", 2000, "Жанр", 3, 3, null);
+		book.setUser(owner);
+		bookRepository.save(book);
+
+		TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+		checkout.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Book b = bookRepository.findByTitle(TITLE).orElseThrow();
+			assertEquals(1, checkout.execute(s -> bookRepository.takeCopies(b.getId(), 1)));
+			b.setDescription("Новое описание");
+			bookRepository.save(b);
+		});
+
+		Book saved = bookRepository.findByTitle(TITLE).orElseThrow();
+		assertEquals("Новое описание", saved.getDescription());
+		assertEquals(2, saved.getAvailable_copies());
+	}
+}
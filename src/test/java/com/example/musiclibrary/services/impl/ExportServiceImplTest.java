@@ -0,0 +1,90 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.ExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ExportServiceImplTest {
+
+	@Autowired
+	private ExportService exportService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private RentalRepository rentalRepository;
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() {
+		if (userRepository.existsByName("exporter")) {
+			return;
+		}
+		User user = userRepository.save(new User("exporter", "exporter@library.test", "password",
+				User.Role.User, LocalDate.of(2024, 1, 1), "8(800)300-00-00", null));
+		Book book = new Book("Выгрузка, \"часть 1\"", "Автор", "Издательство", 2000, "Жанр", 5, 5, "две\nстроки");
+		book.setUser(user);
+		bookRepository.save(book);
+		for (int day = 1; day <= 3; day++) {
+			Rental rental = new Rental(LocalDate.of(2025, 3, day), LocalDate.of(2025, 3, day + 14), null, 0, false);
+			rental.setUser(user);
+			rental.setBook(book);
+			rentalRepository.save(rental);
+		}
+	}
+
+	@Test
+	void rentalsCsvIsFilteredByRentalDate() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long count = exportService.exportRentals(out, ExportService.Format.CSV, LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 3));
+
+		assertEquals(1, count);
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals("id,rental_date,due_date,return_date,extended_times,is_returned,is_overdue,user,book", lines.get(0));
+		assertTrue(lines.get(1).contains(",2025-03-02,2025-03-16,,0,false,exporter,\"Выгрузка, \"\"часть 1\"\"\""), lines.get(1));
+	}
+
+	@Test
+	void booksNdjsonHasOneFlatObjectPerLine() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long count = exportService.exportBooks(out, ExportService.Format.NDJSON);
+
+		List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals(count, lines.size());
+		JsonNode book = null;
+		for (String line : lines) {
+			JsonNode node = objectMapper.readTree(line);
+			if (node.get("title").asText().startsWith("Выгрузка")) {
+				book = node;
+			}
+		}
+		assertNotNull(book);
+		assertEquals("exporter", book.get("user").asText());
+		assertEquals("две\nстроки", book.get("description").asText());
+	}
+}
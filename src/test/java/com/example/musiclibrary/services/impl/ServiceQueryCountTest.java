@@ -0,0 +1,103 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Rental;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.RentalRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.BookService;
+import com.example.musiclibrary.services.RentalService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Число запросов сервисных методов не зависит от числа строк (statements.norm в ApplicationBenchmark проверяет то же под нагрузкой).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ServiceQueryCountTest {
+
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private RentalService rentalService;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private RentalRepository rentalRepository;
+
+	private Statistics statistics;
+	// Общий счётчик: контекст и БД общие для тестов, имена и почта не должны повторяться
+	private static int seeded;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	// Каждая порция добавляет новых пользователей и книги, чтобы N+1 был виден по росту числа запросов
+	private void seed(int rows) {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < Math.max(1, rows / 5); i++, seeded++) {
+			users.add(userRepository.save(new User("querycount" + seeded, "querycount" + seeded + "@library.test", "password",
+					User.Role.User, LocalDate.of(2024, 1, 1), "8(800)700-00-0" + seeded, null)));
+		}
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < Math.max(1, rows / 2); i++, seeded++) {
+			Book b = new Book("Книга подсчёта запросов " + seeded, "Автор", "Издательство", 2000, "Жанр", 1, 1, null);
+			b.setUser(users.get(i % users.size()));
+			books.add(bookRepository.save(b));
+		}
+		List<Rental> rentals = new ArrayList<>();
+		for (int i = 0; i < rows; i++) {
+			Rental r = new Rental(LocalDate.of(2024, 9, 1), LocalDate.of(2024, 9, 15), null, 0, false);
+			r.setUser(users.get(i % users.size()));
+			r.setBook(books.get(i % books.size()));
+			rentals.add(r);
+		}
+		rentalRepository.saveAll(rentals);
+	}
+
+	private long statements(Action action) throws InterruptedException {
+		statistics.clear();
+		action.run();
+		return statistics.getPrepareStatementCount();
+	}
+
+	@Test
+	void allBooksIsOneQueryAtAnySize() throws InterruptedException {
+		seed(10);
+		assertEquals(1, statements(bookService::getAllBooks));
+		seed(50);
+		assertEquals(1, statements(bookService::getAllBooks));
+	}
+
+	@Test
+	void allRentalsWithDetailsIsOneQueryAtAnySize() throws InterruptedException {
+		seed(10);
+		assertEquals(1, statements(rentalService::getAllRentalsWithDetails));
+		seed(50);
+		assertEquals(1, statements(rentalService::getAllRentalsWithDetails));
+	}
+
+	private interface Action {
+		Object run() throws InterruptedException;
+	}
+}
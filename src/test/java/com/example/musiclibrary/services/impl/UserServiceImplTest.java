@@ -0,0 +1,52 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.dtos.UserDto;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.BookService;
+import com.example.musiclibrary.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceImplTest {
+
+	private static final String TITLE = "Книга переименованного владельца";
+
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private BookService bookService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Test
+	void renameEvictsCachedBooksOfOwner() throws InterruptedException {
+		User owner = userRepository.save(new User("owner-before", "owner@library.test", "password",
+				User.Role.Librarian, LocalDate.of(2024, 1, 1), "8(800)600-00-00", null));
+		Book book = new Book(TITLE, "Автор", "Издательство", 2000, "Жанр", 1, 1, null);
+		book.setUser(owner);
+		bookRepository.save(book);
+		assertEquals("owner-before", bookService.findBook(TITLE).orElseThrow().getUser().getName());
+		assertEquals("owner-before", bookService.findBookDto(TITLE).orElseThrow().getUser().getName());
+
+		UserDto renamed = userService.findUserDto("owner-before").orElseThrow();
+		renamed.setName("owner-after");
+		userService.editUser("owner-before", renamed);
+
+		assertEquals("owner-after", bookService.findBook(TITLE).orElseThrow().getUser().getName());
+		assertEquals("owner-after", bookService.findBookDto(TITLE).orElseThrow().getUser().getName());
+		assertTrue(userService.findUser("owner-before").isEmpty());
+	}
+}
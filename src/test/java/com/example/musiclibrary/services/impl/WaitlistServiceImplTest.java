@@ -0,0 +1,75 @@
+package com.example.musiclibrary.services.impl;
+
+import com.example.musiclibrary.exceptions.InvalidArgumentException;
+import com.example.musiclibrary.models.Book;
+import com.example.musiclibrary.models.Reservation;
+import com.example.musiclibrary.models.User;
+import com.example.musiclibrary.repositories.BookRepository;
+import com.example.musiclibrary.repositories.ReservationRepository;
+import com.example.musiclibrary.repositories.UserRepository;
+import com.example.musiclibrary.services.InventoryService;
+import com.example.musiclibrary.services.WaitlistService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "library.waitlist.ordering=priority")
+@ActiveProfiles("test")
+class WaitlistServiceImplTest {
+
+	private static final String TITLE = "Книга с очередью";
+
+	@Autowired
+	private WaitlistService waitlistService;
+	@Autowired
+	private InventoryService inventoryService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Test
+	void returnedCopyGoesToHeadOfQueue() {
+		User owner = null;
+		for (int i = 0; i < 3; i++) {
+			User user = userRepository.save(new User("waiter" + i, "waiter" + i + "@library.test", "password",
+					User.Role.User, LocalDate.of(2024, 1, 1), "8(800)500-00-0" + i, null));
+			owner = owner != null ? owner : user;
+		}
+		// единственная копия на руках
+		Book book = new Book(TITLE, "Автор", "Издательство", 2000, "Жанр", 0, 1, null);
+		book.setUser(owner);
+		book = bookRepository.save(book);
+
+		assertEquals(1, waitlistService.join("waiter1", TITLE, 0));
+		assertEquals(1, waitlistService.join("waiter2", TITLE, 5));
+		assertThrows(InvalidArgumentException.class, () -> waitlistService.join("waiter1", TITLE, 0));
+		assertTrue(waitlistService.hasWaiting(book.getId()));
+
+		inventoryService.releaseCopy(book);
+
+		assertEquals(0, bookRepository.findByTitle(TITLE).orElseThrow().getAvailable_copies());
+		List<Reservation> reservations = reservationRepository.findByBook(TITLE);
+		assertEquals(1, reservations.size());
+		assertEquals("waiter2", reservations.get(0).getUser().getName());
+		assertTrue(reservations.get(0).getIs_active());
+		assertTrue(waitlistService.hasWaiting(book.getId()));
+
+		assertTrue(waitlistService.leave("waiter1", TITLE));
+		assertFalse(waitlistService.leave("waiter1", TITLE));
+		assertFalse(waitlistService.hasWaiting(book.getId()));
+
+		inventoryService.releaseCopy(book);
+
+		assertEquals(1, bookRepository.findByTitle(TITLE).orElseThrow().getAvailable_copies());
+		assertEquals(1, reservationRepository.findByBook(TITLE).size());
+	}
+}